@@ -0,0 +1,105 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest of a text in chunks into AppendableIndex, over text sizes.
+ * Ingest throughput in MB/s (the "megabytes" counter) falls only with the number of levels, i.e. log(size / chunk) / log(fanIn),
+ * where rebuilding one SuffixArray per chunk would fall linearly with the size;
+ * it stays flat once the size is beyond maxRunLength, while the run count grows linearly instead.
+ * The size only applies to the synthetic inputs.
+ * countRuns and countWhole compare search over the runs with search on one SuffixArray of the whole text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AppendBenchmark {
+    @Param({"houston", "random"})
+    public String input;
+
+    @Param({"4194304", "16777216"})
+    public int size;
+
+    @Param({"65536"})
+    public int chunk;
+
+    @Param({"4"})
+    public int fanIn;
+
+    /** the default cap, and no cap */
+    @Param({"4194304", "2147483647"})
+    public int maxRunLength;
+
+    private byte[] bytes;
+    private AppendableIndex index;
+    private SuffixArray whole;
+    private byte[][] patterns;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bytes = Inputs.load(input, size);
+        index = ingest();
+        whole = new SuffixArray(bytes);
+        patterns = Inputs.patterns(bytes, 1024, 8, 7);
+        System.out.printf("%n%s: %d runs, %.2f bytes sorted per byte%n",
+                input, index.runCount(), (double) index.bytesSorted() / index.length());
+    }
+
+    private AppendableIndex ingest() {
+        AppendableIndex index = new AppendableIndex(fanIn, maxRunLength);
+        for (int from = 0; from < bytes.length; from += chunk) {
+            index.append(bytes, from, Math.min(bytes.length, from + chunk));
+        }
+        return index;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public AppendableIndex append(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        return ingest();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long countRuns() {
+        return index.count(patterns[next++ & (patterns.length - 1)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long countWhole() {
+        return whole.count(patterns[next++ & (patterns.length - 1)]);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of a batch of small documents of random length up to maxLength,
+ * by SuffixArrayBuilder into reused arrays, compared with a new SuffixArray per document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BatchBenchmark {
+    @Param({"10000"})
+    public int documents;
+
+    @Param({"2000"})
+    public int maxLength;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private List<byte[]> docs;
+    private int[][] SAs;
+    private SuffixArrayBuilder builder;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        docs = new ArrayList<>();
+        for (int d = 0; d < documents; d++) {
+            docs.add(Inputs.random(1 + random.nextInt(maxLength), 26, d));
+        }
+        SAs = new int[documents][];
+        builder = new SuffixArrayBuilder();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[][] builder() {
+        return builder.buildAll(docs, SAs, pool);
+    }
+
+    @Benchmark
+    public int sequentialSuffixArrays() {
+        int sum = 0;
+        for (byte[] T : docs) {
+            sum += new SuffixArray(T).getArray()[0];
+        }
+        return sum;
+    }
+}
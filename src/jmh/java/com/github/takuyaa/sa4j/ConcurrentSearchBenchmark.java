@@ -0,0 +1,76 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query throughput of one {@link ImmutableIndex} shared by all benchmark threads.
+ * Run with -t 1, -t 2, ... up to the number of cores (e.g. -Pjmh.args='-t 4') and compare the ops/s:
+ * queries share no mutable state, so throughput should scale linearly until memory bandwidth runs out.
+ * Each thread walks the patterns from its own offset, so that threads don't query in lock step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(1)
+public class ConcurrentSearchBenchmark {
+    @Param({"houston", "paper5x80", "random"})
+    public String input;
+
+    @Param({"4194304"})
+    public int size;
+
+    @Param({"8"})
+    public int patternLength;
+
+    private ImmutableIndex index;
+    private byte[][] patterns;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        final int[] positions = new int[16];
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = new Random().nextInt(1024);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] T = Inputs.load(input, size);
+        index = new ImmutableIndex(T);
+        patterns = Inputs.patterns(T, 1024, patternLength, 7);
+    }
+
+    @Benchmark
+    public int count(Cursor cursor) {
+        byte[] pattern = patterns[cursor.next++ & (patterns.length - 1)];
+        return index.count(pattern);
+    }
+
+    @Benchmark
+    public int locate(Cursor cursor) {
+        byte[] pattern = patterns[cursor.next++ & (patterns.length - 1)];
+        return index.locate(pattern, cursor.positions);
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares suffix array construction of SuffixArray and sais.
+ * Throughput is reported as ops/s, and as MB/s through the "megabytes" counter.
+ * Run with "-prof gc" (the default of the jmh task) to see bytes allocated per op (gc.alloc.rate.norm).
+ * Differences of a few percent are within the run-to-run variation of a single fork; compare the errors of three forks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 3, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConstructionBenchmark {
+    @Param({"abac", "fss9", "houston", "paper5x80", "test1", "test2", "test3", "random", "lowentropy", "repetitive"})
+    public String input;
+
+    /** length of synthetic inputs */
+    @Param({"4194304"})
+    public int size;
+
+    /**
+     * Build from every input type during setup, as a process that indexes both strings and bytes would.
+     * This pollutes the type profile that a single-type run doesn't have, so compare with false for the headline number.
+     */
+    @Param({"false"})
+    public boolean mixed;
+
+    private byte[] bytes;
+    private String string;
+    private char[] chars;
+    private int[] ints;
+    private int[] SA;
+    private byte[] BWT;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bytes = Inputs.load(input, size);
+        string = new String(bytes, StandardCharsets.ISO_8859_1);
+        chars = Inputs.toChars(bytes);
+        ints = Inputs.toInts(bytes);
+        SA = new int[bytes.length];
+        BWT = new byte[bytes.length];
+        if (mixed) {
+            byte[] sample = Arrays.copyOf(bytes, Math.min(bytes.length, 1 << 16));
+            for (int i = 0; i < 100; i++) {
+                new SuffixArray(sample);
+                new SuffixArray(new String(sample, StandardCharsets.ISO_8859_1));
+            }
+        }
+    }
+
+    @Benchmark
+    public SuffixArray suffixArrayBytes(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        return new SuffixArray(bytes);
+    }
+
+    @Benchmark
+    public SuffixArray suffixArrayBytesLowMemory(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        return new SuffixArray(bytes, SuffixArray.Mode.LOW_MEMORY);
+    }
+
+    @Benchmark
+    public SuffixArray suffixArrayString(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        return new SuffixArray(string);
+    }
+
+    @Benchmark
+    public LongSuffixArray longSuffixArray(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        return new LongSuffixArray(new byte[][]{bytes});
+    }
+
+    @Benchmark
+    public LongSuffixArray longSuffixArrayPacked40(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        return new LongSuffixArray(new byte[][]{bytes}, LongSuffixArray.Layout.PACKED40);
+    }
+
+    @Benchmark
+    public int[] saisBytes(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        sais.suffixsort(bytes, SA, bytes.length);
+        return SA;
+    }
+
+    @Benchmark
+    public int[] saisChars(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        sais.suffixsort(chars, SA, chars.length);
+        return SA;
+    }
+
+    @Benchmark
+    public int[] saisInts(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        sais.suffixsort(ints, SA, ints.length, 256);
+        return SA;
+    }
+
+    @Benchmark
+    public byte[] saisBWT(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        sais.bwt(bytes, BWT, SA, bytes.length);
+        return BWT;
+    }
+
+    /** BWT by a second pass over SA, for comparison with saisBWT */
+    @Benchmark
+    public byte[] saisThenBWT(Bytes counter) {
+        counter.megabytes += bytes.length / 1e6;
+        int n = bytes.length;
+        sais.suffixsort(bytes, SA, n);
+        BWT[0] = bytes[n - 1];
+        for (int i = 0, j = 1; i < n; i++) {
+            if (SA[i] != 0) {
+                BWT[j++] = bytes[SA[i] - 1];
+            }
+        }
+        return BWT;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enhanced suffix array: top-down search (compare with count of SearchBenchmark) and repeat enumeration.
+ * The size of the index is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class EnhancedSuffixArrayBenchmark {
+    @Param({"houston", "paper5x80", "random"})
+    public String input;
+
+    @Param({"4194304"})
+    public int size;
+
+    @Param({"8"})
+    public int patternLength;
+
+    /** min length of repeats */
+    @Param({"16"})
+    public int minLength;
+
+    private EnhancedSuffixArray esa;
+    private byte[][] patterns;
+    private int next;
+    private long sum;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] T = Inputs.load(input, size);
+        esa = new EnhancedSuffixArray(T);
+        patterns = Inputs.patterns(T, 1024, patternLength, 7);
+        System.out.printf("%n%s: %d bytes, enhanced suffix array %d bytes (%.3f bytes per character)%n",
+                input, T.length, esa.sizeInBytes(), (double) esa.sizeInBytes() / T.length);
+    }
+
+    @Benchmark
+    public int count() {
+        byte[] pattern = patterns[next++ & (patterns.length - 1)];
+        return esa.count(pattern);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long maximalRepeats() {
+        sum = 0;
+        esa.maximalRepeats(minLength, (lcp, start, end) -> sum += end - start);
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long supermaximalRepeats() {
+        sum = 0;
+        esa.supermaximalRepeats(minLength, (lcp, start, end) -> sum += end - start);
+        return sum;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size/speed tradeoff of FMIndex over sample rates; patterns are substrings sampled from the text.
+ * The size of each index is printed at setup, to be compared with 5 bytes per character of the text and SA
+ * (see SearchBenchmark for the speed of SuffixArray).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FMIndexBenchmark {
+    @Param({"houston", "paper5x80", "random"})
+    public String input;
+
+    @Param({"4194304"})
+    public int size;
+
+    @Param({"4", "16", "64"})
+    public int sampleRate;
+
+    @Param({"8"})
+    public int patternLength;
+
+    /** occurrences located per pattern at most */
+    @Param({"16"})
+    public int locateLimit;
+
+    /** bytes per extract */
+    @Param({"64"})
+    public int extractLength;
+
+    private FMIndex index;
+    private byte[][] patterns;
+    private int[] positions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] T = Inputs.load(input, size);
+        index = new FMIndex(T, sampleRate);
+        patterns = Inputs.patterns(T, 1024, patternLength, 7);
+        positions = new Random(7).ints(1024, 0, T.length - extractLength).toArray();
+        System.out.printf("%n%s: %d bytes, FM-index %d bytes (%.3f bytes per character)%n",
+                input, T.length, index.sizeInBytes(), (double) index.sizeInBytes() / T.length);
+    }
+
+    @Benchmark
+    public int count() {
+        byte[] pattern = patterns[next++ & (patterns.length - 1)];
+        return index.count(pattern);
+    }
+
+    @Benchmark
+    public int locate() {
+        byte[] pattern = patterns[next++ & (patterns.length - 1)];
+        return index.locate(pattern).limit(locateLimit).sum();
+    }
+
+    @Benchmark
+    public byte[] extract() {
+        int position = positions[next++ & (positions.length - 1)];
+        return index.extract(position, position + extractLength);
+    }
+}
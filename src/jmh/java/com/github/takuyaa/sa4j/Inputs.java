@@ -0,0 +1,145 @@
+package com.github.takuyaa.sa4j;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark inputs: files in corpus/gauntlet and synthetic texts.
+ */
+class Inputs {
+    static final String CORPUS_DIR = System.getProperty("sa4j.corpus", "corpus/gauntlet");
+
+    private Inputs() {
+    }
+
+    /**
+     * Load named input.
+     * @param name file name in corpus/gauntlet, or one of "random", "lowentropy" and "repetitive"
+     * @param size length of synthetic inputs (ignored for corpus files)
+     * @return input text
+     */
+    static byte[] load(String name, int size) throws IOException {
+        switch (name) {
+            case "random":
+                return random(size, 256, 1);
+            case "lowentropy":
+                return random(size, 4, 2);
+            case "repetitive":
+                return repetitive(size, 1024, 3);
+            default:
+                return readFile(new File(CORPUS_DIR, name));
+        }
+    }
+
+    /**
+     * Uniformly random text over alphabet {'a', 'a' + 1, ..., 'a' + sigma - 1} (or all bytes if sigma is 256).
+     */
+    static byte[] random(int size, int sigma, long seed) {
+        Random random = new Random(seed);
+        byte[] T = new byte[size];
+        int base = sigma == 256 ? 0 : 'a';
+        for (int i = 0; i < size; i++) {
+            T[i] = (byte) (base + random.nextInt(sigma));
+        }
+        return T;
+    }
+
+    /**
+     * Random block of given period repeated to fill size, with a mutation every 4096 bytes.
+     */
+    static byte[] repetitive(int size, int period, long seed) {
+        Random random = new Random(seed);
+        byte[] T = new byte[size];
+        for (int i = 0; i < size; i++) {
+            T[i] = i < period ? (byte) ('a' + random.nextInt(26)) : T[i - period];
+        }
+        for (int i = period; i < size; i += 4096) {
+            T[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return T;
+    }
+
+    /**
+     * Token ids with a Zipf-like distribution over a vocabulary: id r is drawn with probability about 1 / r.
+     * @param spread multiplier of ids (1 for dense ids, larger for sparse ones such as hashed vocabularies)
+     */
+    static int[] tokens(int size, int vocabulary, int spread, long seed) {
+        Random random = new Random(seed);
+        int[] T = new int[size];
+        for (int i = 0; i < size; i++) {
+            int r = (int) Math.pow(vocabulary, random.nextDouble()) - 1;
+            T[i] = r * spread;
+        }
+        return T;
+    }
+
+    /**
+     * Query log over count items which follows Zipf's law: item r (0-origin) is drawn with probability
+     * proportional to 1 / (r + 1)^exponent.
+     */
+    static int[] zipf(int size, int count, double exponent, long seed) {
+        double[] cdf = new double[count];
+        double sum = 0;
+        for (int r = 0; r < count; r++) {
+            sum += 1 / Math.pow(r + 1, exponent);
+            cdf[r] = sum;
+        }
+        Random random = new Random(seed);
+        int[] queries = new int[size];
+        for (int i = 0; i < size; i++) {
+            int r = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            queries[i] = Math.min(r < 0 ? -r - 1 : r, count - 1);
+        }
+        return queries;
+    }
+
+    /**
+     * Sample patterns of given length from T.
+     */
+    static byte[][] patterns(byte[] T, int count, int length, long seed) {
+        Random random = new Random(seed);
+        byte[][] patterns = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            int pos = random.nextInt(T.length - length + 1);
+            patterns[i] = Arrays.copyOfRange(T, pos, pos + length);
+        }
+        return patterns;
+    }
+
+    static byte[] readFile(File f) throws IOException {
+        byte[] T = new byte[(int) f.length()];
+        FileInputStream s = new FileInputStream(f);
+        try {
+            int off = 0;
+            while (off < T.length) {
+                int read = s.read(T, off, T.length - off);
+                if (read < 0) {
+                    break;
+                }
+                off += read;
+            }
+        } finally {
+            s.close();
+        }
+        return T;
+    }
+
+    static char[] toChars(byte[] T) {
+        char[] chars = new char[T.length];
+        for (int i = 0; i < T.length; i++) {
+            chars[i] = (char) (T[i] & 0xff);
+        }
+        return chars;
+    }
+
+    static int[] toInts(byte[] T) {
+        int[] ints = new int[T.length];
+        for (int i = 0; i < T.length; i++) {
+            ints[i] = T[i] & 0xff;
+        }
+        return ints;
+    }
+}
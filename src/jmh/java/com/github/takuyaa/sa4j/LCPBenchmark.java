@@ -0,0 +1,70 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of LCP construction on top of suffix array construction.
+ * Compare suffixArrayWithPhi and saisWithLCP against suffixArray and sais of the same input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LCPBenchmark {
+    @Param({"abac", "fss9", "houston", "paper5x80", "test1", "test2", "test3"})
+    public String input;
+
+    private byte[] bytes;
+    private int[] SA;
+    private int[] lcp;
+
+    @Setup
+    public void setUp() throws IOException {
+        bytes = Inputs.readFile(new File(Inputs.CORPUS_DIR, input));
+        SA = new int[bytes.length];
+        lcp = new int[bytes.length];
+    }
+
+    @Benchmark
+    public SuffixArray suffixArray() {
+        return new SuffixArray(bytes);
+    }
+
+    @Benchmark
+    public int[] suffixArrayWithKasai() {
+        return LCP.kasai(bytes, new SuffixArray(bytes).getArray());
+    }
+
+    @Benchmark
+    public int[] suffixArrayWithPhi() {
+        return new SuffixArray(bytes).computeLCP();
+    }
+
+    @Benchmark
+    public int[] sais() {
+        sais.suffixsort(bytes, SA, bytes.length);
+        return SA;
+    }
+
+    @Benchmark
+    public int[] saisWithLCP() {
+        sais.suffixsort(bytes, SA, lcp, bytes.length);
+        return lcp;
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of parallel construction over the number of threads, on large inputs.
+ * Compare with "sequential", which doesn't use the pool at all.
+ * Counting, classification, naming and the text accesses of induced sorting run in parallel,
+ * while the bucket writes of induced sorting are sequential, so that the speedup levels off below the number of threads.
+ * With threads = 1, induced sorting runs the sequential scans.
+ * No scaling numbers have been recorded yet: they need a machine with at least 16 cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ParallelBenchmark {
+    @Param({"random", "lowentropy", "repetitive"})
+    public String input;
+
+    /** length of synthetic inputs */
+    @Param({"67108864"})
+    public int size;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    private byte[] bytes;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bytes = Inputs.load(input, size);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SuffixArray parallel() {
+        return new SuffixArray(bytes, pool);
+    }
+
+    @Benchmark
+    public SuffixArray sequential() {
+        return new SuffixArray(bytes);
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of {@link ImmutableIndex} and of {@link MappedIndex} (with the text on the heap)
+ * without (prefixLength = 0) and with a {@link PrefixTable}.
+ * Sampled, so that JMH reports percentiles; compare the p0.50 rows.
+ * The gain grows with size, as the skipped steps of the binary search are the ones which miss the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PrefixTableBenchmark {
+    @Param({"houston", "paper5x80", "random"})
+    public String input;
+
+    @Param({"4194304"})
+    public int size;
+
+    @Param({"8"})
+    public int patternLength;
+
+    @Param({"0", "1", "2", "3"})
+    public int prefixLength;
+
+    private ImmutableIndex index;
+    private MappedIndex mapped;
+    private File file;
+    private byte[][] patterns;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] T = Inputs.load(input, size);
+        index = new ImmutableIndex(T, SuffixArray.Mode.FAST, prefixLength);
+        patterns = Inputs.patterns(T, 1 << 16, patternLength, 7);
+
+        file = File.createTempFile("sa4j", ".idx");
+        IndexWriter writer = new IndexWriter(T, index.copyArray());
+        if (prefixLength > 0) {
+            writer.setPrefixTable(index.getPrefixTable());
+        }
+        writer.write(file);
+        mapped = new MappedIndex(file, ByteBuffer.wrap(T));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int count() {
+        byte[] pattern = patterns[next++ & (patterns.length - 1)];
+        return index.count(pattern);
+    }
+
+    @Benchmark
+    public long mappedCount() {
+        byte[] pattern = patterns[next++ & (patterns.length - 1)];
+        return mapped.count(pattern);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of queries from a Zipfian log over distinct patterns sampled from the text,
+ * with and without {@link QueryCache}. The hit rate of the cache is printed at teardown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class QueryCacheBenchmark {
+    @Param({"houston", "paper5x80", "random"})
+    public String input;
+
+    @Param({"4194304"})
+    public int size;
+
+    @Param({"8"})
+    public int patternLength;
+
+    /** distinct patterns in the log */
+    @Param({"100000"})
+    public int patternCount;
+
+    /** exponent of Zipf's law; about 1 for query logs */
+    @Param({"1.0"})
+    public double exponent;
+
+    /** bytes of cached entries */
+    @Param({"1048576"})
+    public long budget;
+
+    private SuffixArray SA;
+    private QueryCache cache;
+    private byte[][] patterns;
+    private int[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] T = Inputs.load(input, size);
+        SA = new SuffixArray(T);
+        cache = new QueryCache(SA, budget);
+        patterns = Inputs.patterns(T, patternCount, patternLength, 7);
+        queries = Inputs.zipf(1 << 20, patternCount, exponent, 7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s: %s%n", input, cache);
+    }
+
+    @Benchmark
+    public int uncached() {
+        byte[] pattern = patterns[queries[next++ & (queries.length - 1)]];
+        return SA.count(pattern);
+    }
+
+    @Benchmark
+    public int cached() {
+        byte[] pattern = patterns[queries[next++ & (queries.length - 1)]];
+        return cache.count(pattern);
+    }
+}
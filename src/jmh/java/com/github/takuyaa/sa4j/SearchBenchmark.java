@@ -0,0 +1,62 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pattern search over a suffix array; patterns are substrings sampled from the text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SearchBenchmark {
+    @Param({"houston", "paper5x80", "random"})
+    public String input;
+
+    @Param({"4194304"})
+    public int size;
+
+    @Param({"8"})
+    public int patternLength;
+
+    private SuffixArray SA;
+    private LCPLRSearch lcplr;
+    private byte[][] patterns;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] T = Inputs.load(input, size);
+        SA = new SuffixArray(T);
+        lcplr = new LCPLRSearch(SA);
+        patterns = Inputs.patterns(T, 1024, patternLength, 7);
+    }
+
+    @Benchmark
+    public int count() {
+        byte[] pattern = patterns[next++ & (patterns.length - 1)];
+        return SA.count(pattern);
+    }
+
+    @Benchmark
+    public int countLCPLR() {
+        byte[] pattern = patterns[next++ & (patterns.length - 1)];
+        return lcplr.count(pattern);
+    }
+}
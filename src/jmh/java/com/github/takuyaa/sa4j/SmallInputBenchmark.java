@@ -0,0 +1,67 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of many small suffix arrays (per-document indexes),
+ * where alphabet-sized work dominates the runtime.
+ * Run with "-prof gc" to compare allocation per build; builderBytes only allocates the kernel object after warm-up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SmallInputBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private byte[] bytes;
+    private String string;
+    private int[] SA;
+    private SuffixArrayBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bytes = Inputs.random(size, 26, 1);
+        string = new String(bytes, StandardCharsets.ISO_8859_1);
+        SA = new int[size];
+        builder = new SuffixArrayBuilder();
+    }
+
+    @Benchmark
+    public SuffixArray suffixArrayBytes() {
+        return new SuffixArray(bytes);
+    }
+
+    @Benchmark
+    public SuffixArray suffixArrayString() {
+        return new SuffixArray(string);
+    }
+
+    @Benchmark
+    public int[] saisBytes() {
+        sais.suffixsort(bytes, SA, bytes.length);
+        return SA;
+    }
+
+    @Benchmark
+    public int[] builderBytes() {
+        return builder.build(bytes, bytes.length, SA);
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.takuyaa.sa4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction over token ids of a vocabulary, where ids are dense (spread 1) or sparse (spread > 1).
+ * saisInts is sais with k = max id + 1, whose buckets grow with the ids rather than the tokens.
+ * Run with "-prof gc" to compare allocation per build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TokenBenchmark {
+    @Param({"4194304"})
+    public int size;
+
+    @Param({"50000", "2000000"})
+    public int vocabulary;
+
+    @Param({"1", "97"})
+    public int spread;
+
+    private int[] tokens;
+    private int k;
+    private int[] SA;
+    private SuffixArrayBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokens = Inputs.tokens(size, vocabulary, spread, 1);
+        for (int token : tokens) {
+            k = Math.max(k, token + 1);
+        }
+        SA = new int[size];
+        builder = new SuffixArrayBuilder();
+    }
+
+    @Benchmark
+    public SuffixArray suffixArrayInts() {
+        return new SuffixArray(tokens);
+    }
+
+    @Benchmark
+    public int[] builderInts() {
+        return builder.build(tokens, tokens.length, SA);
+    }
+
+    @Benchmark
+    public int[] saisInts() {
+        sais.suffixsort(tokens, SA, tokens.length, k);
+        return SA;
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of a byte text which grows by appending chunks, such as a log.
+ * Each chunk gets its own {@link SuffixArray}, and runs of consecutive chunks are merged in a log-structured way:
+ * when fanIn runs of the same level have piled up, they are rebuilt as one run of the next level.
+ * So there are at most fanIn - 1 runs per level and O(fanIn * log(n)) runs in all,
+ * and each byte is sorted once per level, i.e. O(log(n) / log(fanIn)) times.
+ * Runs are not merged beyond maxRunLength bytes, which bounds the levels and so keeps the ingest cost per byte constant
+ * as the text grows. The price is that the run count then grows linearly, by one per maxRunLength bytes,
+ * and every search visits every run. Neither can be bounded without the other: merging the capped runs too
+ * brings back the O(log(n)) sorts per byte. Pass {@link Integer#MAX_VALUE} as maxRunLength for O(log(n)) runs instead.
+ *
+ * Searches fan out over the runs. A run only finds occurrences which end inside it,
+ * so occurrences which cross the end of a run are found by comparing the last m - 1 positions of each run directly.
+ * This class is not thread-safe.
+ */
+public class AppendableIndex {
+    public static final int DEFAULT_FAN_IN = 4;
+    /** caps the levels at log(4 MB / chunk) / log(fanIn), e.g. 3 for 64 KB chunks and fan-in 4 */
+    public static final int DEFAULT_MAX_RUN_LENGTH = 1 << 22;
+
+    private final int fanIn;
+    private final int maxRunLength;
+    /**
+     * runs from the oldest to the newest; levels are non-increasing up to the first capped group of runs,
+     * and may rise again after it, since the runs after it are merged by themselves
+     */
+    private final List<Run> runs = new ArrayList<>();
+    private long length;
+    private long bytesSorted;
+
+    private static final class Run {
+        /** position of the first byte in the whole text */
+        final long start;
+        final byte[] text;
+        final SuffixArray SA;
+        final int level;
+
+        Run(long start, byte[] text, int level) {
+            this.start = start;
+            this.text = text;
+            this.SA = new SuffixArray(text);
+            this.level = level;
+        }
+
+        long end() {
+            return start + text.length;
+        }
+    }
+
+    /**
+     * Construct empty index with {@link #DEFAULT_FAN_IN} and {@link #DEFAULT_MAX_RUN_LENGTH}.
+     */
+    public AppendableIndex() {
+        this(DEFAULT_FAN_IN, DEFAULT_MAX_RUN_LENGTH);
+    }
+
+    /**
+     * @param fanIn number of runs of a level which are merged into one; larger is cheaper to append and slower to search
+     * @param maxRunLength max length of merged runs (a longer chunk is a run by itself)
+     */
+    public AppendableIndex(int fanIn, int maxRunLength) {
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("fan-in must be at least 2: " + fanIn);
+        }
+        if (maxRunLength < 1) {
+            throw new IllegalArgumentException("max run length must be positive: " + maxRunLength);
+        }
+        this.fanIn = fanIn;
+        this.maxRunLength = maxRunLength;
+    }
+
+    /**
+     * Append chunk to the text.
+     * @param chunk bytes to append (copied)
+     */
+    public void append(byte[] chunk) {
+        append(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Append chunk[from..to-1] to the text.
+     */
+    public void append(byte[] chunk, int from, int to) {
+        if (from < 0 || to > chunk.length || to < from) {
+            throw new IndexOutOfBoundsException("range: [" + from + ", " + to + "), length: " + chunk.length);
+        }
+        if (from == to) {
+            return;
+        }
+        addRun(length, Arrays.copyOfRange(chunk, from, to), 0);
+        length += to - from;
+        compact();
+    }
+
+    /**
+     * Merge the newest runs while fanIn of them share a level.
+     */
+    private void compact() {
+        while (runs.size() >= fanIn) {
+            int first = runs.size() - fanIn;
+            int level = runs.get(first).level;
+            if (runs.get(runs.size() - 1).level != level) {
+                return;
+            }
+            long size = runs.get(runs.size() - 1).end() - runs.get(first).start;
+            if (size > maxRunLength) {
+                // this level stays as it is, and the runs after it pile up at levels below
+                return;
+            }
+            byte[] text = new byte[(int) size];
+            long start = runs.get(first).start;
+            for (int i = first; i < runs.size(); i++) {
+                Run run = runs.get(i);
+                System.arraycopy(run.text, 0, text, (int) (run.start - start), run.text.length);
+            }
+            runs.subList(first, runs.size()).clear();
+            addRun(start, text, level + 1);
+        }
+    }
+
+    private void addRun(long start, byte[] text, int level) {
+        runs.add(new Run(start, text, level));
+        bytesSorted += text.length;
+    }
+
+    /**
+     * @return length of the text
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return number of runs
+     */
+    public int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * @return bytes passed to suffix sorting so far, including merges (divide by {@link #length()} for the ingest cost per byte)
+     */
+    public long bytesSorted() {
+        return bytesSorted;
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern
+     */
+    public long count(byte[] pattern) {
+        long count = 0;
+        for (Run run : runs) {
+            count += run.SA.count(pattern);
+        }
+        for (int r = 0; r + 1 < runs.size(); r++) {
+            Run run = runs.get(r);
+            for (long p = Math.max(run.start, run.end() - pattern.length + 1); p < run.end(); p++) {
+                if (matches(pattern, p, r)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return start positions of occurrences of pattern, in ascending order
+     */
+    public long[] locate(byte[] pattern) {
+        long[] positions = new long[16];
+        int size = 0;
+        for (int r = 0; r < runs.size(); r++) {
+            Run run = runs.get(r);
+            Range range = run.SA.range(pattern);
+            if (size + range.size() + pattern.length > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, size + range.size() + pattern.length));
+            }
+            // positions of each run are sorted, and come after the ones of the preceding runs
+            int from = size;
+            int[] SA = run.SA.getArray();
+            for (int i = range.start(); i < range.end(); i++) {
+                positions[size++] = run.start + SA[i];
+            }
+            if (r + 1 < runs.size()) {
+                for (long p = Math.max(run.start, run.end() - pattern.length + 1); p < run.end(); p++) {
+                    if (matches(pattern, p, r)) {
+                        positions[size++] = p;
+                    }
+                }
+            }
+            Arrays.sort(positions, from, size);
+        }
+        return Arrays.copyOf(positions, size);
+    }
+
+    /**
+     * @param r run which contains position p
+     * @return whether pattern occurs at position p of the text
+     */
+    private boolean matches(byte[] pattern, long p, int r) {
+        if (p + pattern.length > length) {
+            return false;
+        }
+        Run run = runs.get(r);
+        int offset = (int) (p - run.start);
+        for (byte b : pattern) {
+            if (offset == run.text.length) {
+                run = runs.get(++r);
+                offset = 0;
+            }
+            if (run.text[offset++] != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
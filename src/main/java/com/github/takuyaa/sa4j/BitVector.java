@@ -0,0 +1,73 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Immutable bit vector with constant-time rank.
+ * Cumulative counts are kept for every block of 256 bits, which adds 12.5% to the bits.
+ */
+final class BitVector {
+    /** log2 of words per block */
+    private static final int BLOCK_SHIFT = 2;
+
+    private final long[] words;
+    /** ranks[b] is the number of 1s before block b */
+    private final int[] ranks;
+    private final int length;
+
+    /**
+     * @param words bits of at least {@link #words(int)} entries; bit i is (words[i / 64] >>> (i % 64)) & 1
+     * @param length number of bits
+     */
+    BitVector(long[] words, int length) {
+        this.length = length;
+        this.words = words;
+        this.ranks = new int[(words.length >>> BLOCK_SHIFT) + 1];
+        int rank = 0;
+        for (int w = 0; w < words.length; w++) {
+            if ((w & ((1 << BLOCK_SHIFT) - 1)) == 0) {
+                ranks[w >>> BLOCK_SHIFT] = rank;
+            }
+            rank += Long.bitCount(words[w]);
+        }
+    }
+
+    /**
+     * @return number of words to hold given number of bits, with room for rank(length)
+     */
+    static int words(int length) {
+        return (length >>> 6) + 1;
+    }
+
+    int length() {
+        return length;
+    }
+
+    boolean get(int i) {
+        return (words[i >>> 6] >>> i & 1) != 0;
+    }
+
+    /**
+     * @return number of 1s in [0, i)
+     */
+    int rank1(int i) {
+        int w = i >>> 6;
+        int rank = ranks[w >>> BLOCK_SHIFT];
+        for (int j = w & ~((1 << BLOCK_SHIFT) - 1); j < w; j++) {
+            rank += Long.bitCount(words[j]);
+        }
+        return rank + Long.bitCount(words[w] & ((1L << i) - 1));
+    }
+
+    /**
+     * @return number of 0s in [0, i)
+     */
+    int rank0(int i) {
+        return i - rank1(i);
+    }
+
+    /**
+     * @return approximate heap size in bytes
+     */
+    long sizeInBytes() {
+        return words.length * 8L + ranks.length * 4L;
+    }
+}
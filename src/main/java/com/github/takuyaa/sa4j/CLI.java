@@ -3,29 +3,151 @@ package com.github.takuyaa.sa4j;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.Date;
 
 public class CLI {
+    /** chunk length of texts read for the long implementations (1 GiB) */
+    private static final int CHUNK_LENGTH = 1 << 30;
+
+    /** max blocks of the external implementation, whose I/O is quadratic in the number of blocks */
+    private static final long MAX_EXTERNAL_BLOCKS = 256;
+
     public static void main (String[] args) {
         String impl = args[0];
         System.out.println("target implementation:" + impl);
 
+        // results printed per file by the analytics, which count the rest
+        int limit = Integer.getInteger("sa4j.limit", 10);
+
+        if ("lcs".equals(impl)) {
+            // longest common substrings of two files
+            try {
+                System.out.print(args[1] + ": ");
+                byte[] T1 = readFile(args[1]);
+                System.out.print("\n" + args[2] + ": ");
+                byte[] T2 = readFile(args[2]);
+                long start = new Date().getTime();
+                long[] matches = new long[1];
+                int length = Repeats.longestCommonSubstring(T1, T2, (position1, position2, l) -> {
+                    if (matches[0]++ < limit) {
+                        System.out.print("\n  at " + position1 + " and " + position2 + ": " + preview(T1, position1, l));
+                    }
+                });
+                long finish = new Date().getTime();
+                System.out.println("\n" + matches[0] + " substrings of length " + length + ", " + ((finish - start) / 1000.0) + " sec");
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
         for (int i = 1; i < args.length; ++i) {
             System.out.print(args[i] + ": ");
             try {
+                if ("mmap".equals(impl)) {
+                    // text and SA stay in memory-mapped files; SA is written to <file>.sa
+                    RandomAccessFile text = new RandomAccessFile(args[i], "r");
+                    RandomAccessFile output = new RandomAccessFile(args[i] + ".sa", "rw");
+                    System.out.print(text.length() + " bytes ... ");
+                    try {
+                        long start = new Date().getTime();
+                        new MappedSuffixArray(text.getChannel(), output.getChannel());
+                        long finish = new Date().getTime();
+
+                        System.out.println(((finish - start) / 1000.0) + " sec");
+                    } finally {
+                        text.close();
+                        output.close();
+                    }
+                    continue;
+                }
+
+                if ("external".equals(impl)) {
+                    // SA is built on disk within -Dsa4j.memory bytes of heap, and written to <file>.sa
+                    long memoryBudget = Long.getLong("sa4j.memory", ExternalSuffixArray.DEFAULT_MEMORY_BUDGET);
+                    File file = new File(args[i]);
+                    long blocks = ExternalSuffixArray.blocks(file.length(), memoryBudget);
+                    if (blocks > MAX_EXTERNAL_BLOCKS) {
+                        throw new IllegalArgumentException(blocks + " blocks of " + file.length() + " bytes within "
+                                + memoryBudget + " bytes of memory would take too much I/O; raise -Dsa4j.memory");
+                    }
+                    RandomAccessFile text = new RandomAccessFile(file, "r");
+                    RandomAccessFile output = new RandomAccessFile(args[i] + ".sa", "rw");
+                    System.out.print(text.length() + " bytes ... ");
+                    try {
+                        long start = new Date().getTime();
+                        ExternalSuffixArray SA = new ExternalSuffixArray(text.getChannel(), output.getChannel(),
+                                file.getAbsoluteFile().getParentFile(), memoryBudget);
+                        long finish = new Date().getTime();
+
+                        double n = Math.max(1, SA.length());
+                        System.out.println(((finish - start) / 1000.0) + " sec, " + SA.blocks() + " blocks, "
+                                + String.format("%.2f bytes read and %.2f bytes written per input byte",
+                                SA.bytesRead() / n, SA.bytesWritten() / n));
+                    } finally {
+                        text.close();
+                        output.close();
+                    }
+                    continue;
+                }
+
+                if ("long".equals(impl) || "long40".equals(impl)) {
+                    byte[][] T = readChunks(args[i]);
+
+                    long start = new Date().getTime();
+                    new LongSuffixArray(T, "long".equals(impl) ? LongSuffixArray.Layout.LONG : LongSuffixArray.Layout.PACKED40);
+                    long finish = new Date().getTime();
+
+                    System.out.println(((finish - start) / 1000.0) + " sec");
+                    System.gc();
+                    continue;
+                }
+
+                if ("lrs".equals(impl) || "repeats".equals(impl)) {
+                    // longest repeated substrings, or repeats of -Dsa4j.minLength bytes or longer with their counts
+                    byte[] T = readFile(args[i]);
+                    long start = new Date().getTime();
+                    SuffixArray SA = new SuffixArray(T);
+                    int[] LCP = SA.computeLCP();
+                    long[] repeats = new long[1];
+                    Repeats.RepeatVisitor visitor = (position, length, count) -> {
+                        if (repeats[0]++ < limit) {
+                            System.out.print("\n  " + count + " times at " + position + ": " + preview(T, position, length));
+                        }
+                    };
+                    String result;
+                    if ("lrs".equals(impl)) {
+                        int length = Repeats.longestRepeatedSubstring(SA.getArray(), LCP, visitor);
+                        result = repeats[0] + " substrings of length " + length;
+                    } else {
+                        Repeats.repeats(SA.getArray(), LCP, Integer.getInteger("sa4j.minLength", 32), visitor);
+                        result = repeats[0] + " repeats";
+                    }
+                    long finish = new Date().getTime();
+                    System.out.println("\n" + result + ", " + ((finish - start) / 1000.0) + " sec");
+                    continue;
+                }
+
                 byte[] T = readFile(args[i]);
 
+                // -Dsa4j.stats=true prints the time, reduction and allocation of each stage and recursion level
+                ConstructionStats stats = Boolean.getBoolean("sa4j.stats") ? new ConstructionStats() : null;
                 long start = new Date().getTime();
                 if ("sais".equals(impl)) {
                     int n = T.length;
                     int[] SA = new int[n];
-                    new sais().suffixsort(T, SA, n);
+                    sais.suffixsort(T, SA, n, stats);
                 } else {
-                    new SuffixArray(T);
+                    new SuffixArray(T, stats);
                 }
                 long finish = new Date().getTime();
 
                 System.out.println(((finish - start) / 1000.0) + " sec");
+                if (stats != null) {
+                    System.out.print(stats);
+                }
 
                 System.gc();
             } catch (Exception e) {
@@ -34,17 +156,68 @@ public class CLI {
         }
     }
 
+    /**
+     * @return up to 64 bytes of T[position..position+length-1] as Latin-1, with control and non-ASCII characters escaped
+     */
+    private static String preview(byte[] T, int position, int length) {
+        StringBuilder sb = new StringBuilder(length + " bytes \"");
+        for (int i = position; i < position + Math.min(length, 64); i++) {
+            int c = T[i] & 0xff;
+            if (c < 0x20 || c >= 0x7f) {
+                sb.append(String.format("\\x%02x", c));
+            } else {
+                sb.append((char) c);
+            }
+        }
+        return sb.append(length > 64 ? "\"..." : "\"").toString();
+    }
+
     private static byte[] readFile(String path) throws IOException {
         File f = new File(path);
+        long length = f.length();
+        System.out.print(length + " bytes ... ");
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(path + " is larger than 2 GiB, use the long or long40 implementation");
+        }
+
+        byte[] T = new byte[(int) length];
         FileInputStream s = new FileInputStream(f);
+        try {
+            readFully(s, T);
+        } finally {
+            s.close();
+        }
 
-        int n = (int) f.length();
-        System.out.print(n + " bytes ... ");
+        return T;
+    }
+
+    private static byte[][] readChunks(String path) throws IOException {
+        File f = new File(path);
+        long length = f.length();
+        System.out.print(length + " bytes ... ");
 
-        byte[] T = new byte[n];
-        s.read(T);
-        s.close();
+        byte[][] T = new byte[(int) ((length + CHUNK_LENGTH - 1) / CHUNK_LENGTH)][];
+        FileInputStream s = new FileInputStream(f);
+        try {
+            for (int c = 0; c < T.length; c++) {
+                T[c] = new byte[(int) Math.min(CHUNK_LENGTH, length - (long) c * CHUNK_LENGTH)];
+                readFully(s, T[c]);
+            }
+        } finally {
+            s.close();
+        }
 
         return T;
     }
+
+    private static void readFully(InputStream s, byte[] buffer) throws IOException {
+        int off = 0;
+        while (off < buffer.length) {
+            int read = s.read(buffer, off, buffer.length - off);
+            if (read < 0) {
+                throw new IOException("unexpected end of file");
+            }
+            off += read;
+        }
+    }
 }
@@ -0,0 +1,305 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * SA-IS kernel for char input (String is sorted through its char array).
+ */
+final class CharSAISKernel extends SAISKernel {
+    private final char[] S;
+
+    CharSAISKernel(char[] S) {
+        this.S = S;
+    }
+
+    int countAndSetTypes(int[] count, long[] isTypeS, int n) {
+        final char[] S = this.S;
+
+        // process last index of S
+        int ch = S[n - 1];
+        count[ch]++;
+        // last character is always Type-L considering virtual sentinel
+        boolean typeS = false;
+        // words are written as a whole, so that a reused array doesn't have to be cleared
+        isTypeS[(n - 1) >>> 6] = 0;
+        long word = 0;
+
+        int countLMS = 0;
+        for (int i = n - 2; i >= 0; i--) {
+            int ch2 = ch;
+            ch = S[i];
+
+            count[ch]++;
+            boolean nextTypeS = typeS;
+            typeS = ch < ch2 || (ch == ch2 && nextTypeS);
+            if (typeS) {
+                word |= 1L << i;
+            } else if (nextTypeS) {
+                // [i] is L and [i+1] is S
+                countLMS++;
+            }
+            if ((i & 63) == 0) {
+                isTypeS[i >>> 6] = word;
+                word = 0;
+            }
+        }
+        return countLMS;
+    }
+
+    int typeOfRun(int from, int to, int n) {
+        final char[] S = this.S;
+        for (int i = from; i < to; i++) {
+            if (i == n - 1) {
+                return 0;
+            }
+            if (S[i] != S[i + 1]) {
+                return S[i] < S[i + 1] ? 1 : 0;
+            }
+        }
+        return -1;
+    }
+
+    void setTypes(long[] isTypeS, int[] count, int from, int to, int n, boolean typeSAtTo) {
+        final char[] S = this.S;
+        int i = to - 1;
+        boolean typeS = typeSAtTo;
+        int ch;
+        if (to == n) {
+            // last character is always Type-L considering virtual sentinel
+            ch = S[n - 1];
+            count[ch]++;
+            typeS = false;
+            i--;
+        } else {
+            ch = S[to];
+        }
+        for (; i >= from; i--) {
+            int ch2 = ch;
+            ch = S[i];
+            count[ch]++;
+            typeS = ch < ch2 || (ch == ch2 && typeS);
+            if (typeS) {
+                isTypeS[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    void sortLMSByFirstCharacter(int[] SA, int[] P1, long[] isTypeS, int[] pointers, int n, int n1) {
+        final char[] S = this.S;
+        int p1 = n1 - 1;
+        for (int w = (n - 1) >>> 6; w >= 0; w--) {
+            for (long lms = typeLMSWord(isTypeS, w); lms != 0; ) {
+                int bit = 63 - Long.numberOfLeadingZeros(lms);
+                lms ^= 1L << bit;
+                int i = w << 6 | bit;
+                int pointer = pointers[S[i]]--;
+                assert SA[pointer] <= 0;
+                SA[pointer] = i;
+                P1[p1--] = i;
+            }
+        }
+    }
+
+    void sortTypeL(int[] SA, int[] pointers, int n) {
+        final char[] S = this.S;
+
+        // consider virtual sentinel
+        // if sentinel exists, first we look at the character in front of sentinel
+        int j = n - 1;
+        int c1 = S[j];
+        // the pointer of the last bucket is kept in a local, as runs of suffixes go to the same bucket
+        int pointer = pointers[c1];
+        SA[pointer++] = j > 0 && S[j - 1] < c1 ? ~j : j;
+
+        for (int i = 0; i < n; i++) {
+            j = SA[i];
+            SA[i] = ~j;
+            if (j <= 0) {
+                // empty, or S[j-1] is S-Type
+                continue;
+            }
+            // L-Type
+            j--;
+            int ch = S[j];
+            if (ch != c1) {
+                pointers[c1] = pointer;
+                pointer = pointers[c1 = ch];
+            }
+            assert SA[pointer] == 0;
+            // S[j-1] is L-Type unless it is smaller than S[j], and is next to S[j] in memory
+            SA[pointer++] = j > 0 && S[j - 1] < ch ? ~j : j;
+        }
+        pointers[c1] = pointer;
+    }
+
+    void sortTypeS(int[] SA, int[] pointers, int n) {
+        final char[] S = this.S;
+        int c1 = 0;
+        int pointer = pointers[c1];
+        for (int i = n - 1; i >= 0; i--) {
+            int j = SA[i];
+            if (j <= 0) {
+                // S[j-1] is L-Type
+                SA[i] = ~j;
+                continue;
+            }
+            // S-Type
+            j--;
+            int ch = S[j];
+            if (ch != c1) {
+                pointers[c1] = pointer;
+                pointer = pointers[c1 = ch];
+            }
+            SA[pointer--] = j == 0 || S[j - 1] > ch ? ~j : j;
+        }
+        pointers[c1] = pointer;
+    }
+
+    void prepareTypeL(int[] SA, int[] buckets, int[] values, int offset, int from, int to) {
+        final char[] S = this.S;
+        for (int i = from; i < to; i++) {
+            int j = SA[i];
+            if (j <= 0) {
+                buckets[i - offset] = -1;
+                continue;
+            }
+            j--;
+            int ch = S[j];
+            buckets[i - offset] = ch;
+            values[i - offset] = j > 0 && S[j - 1] < ch ? ~j : j;
+        }
+    }
+
+    void sortTypeL(int[] SA, int[] pointers, int n, int from, int to, int[] buckets, int[] values) {
+        final char[] S = this.S;
+        int c1 = 0;
+        if (from == 0) {
+            // consider virtual sentinel
+            int j = n - 1;
+            c1 = S[j];
+            SA[pointers[c1]++] = j > 0 && S[j - 1] < c1 ? ~j : j;
+        }
+        int pointer = pointers[c1];
+
+        for (int i = from; i < to; i++) {
+            int j = SA[i];
+            SA[i] = ~j;
+            int ch = buckets[i - from];
+            int value;
+            if (ch >= 0) {
+                value = values[i - from];
+            } else if (j > 0) {
+                // set after the block was prepared
+                j--;
+                ch = S[j];
+                value = j > 0 && S[j - 1] < ch ? ~j : j;
+            } else {
+                continue;
+            }
+            if (ch != c1) {
+                pointers[c1] = pointer;
+                pointer = pointers[c1 = ch];
+            }
+            assert SA[pointer] == 0;
+            SA[pointer++] = value;
+        }
+        pointers[c1] = pointer;
+    }
+
+    void prepareTypeS(int[] SA, int[] buckets, int[] values, int offset, int from, int to) {
+        final char[] S = this.S;
+        for (int i = from; i < to; i++) {
+            int j = SA[i];
+            if (j <= 0) {
+                buckets[i - offset] = -1;
+                continue;
+            }
+            j--;
+            int ch = S[j];
+            buckets[i - offset] = ch;
+            values[i - offset] = j == 0 || S[j - 1] > ch ? ~j : j;
+        }
+    }
+
+    void sortTypeS(int[] SA, int[] pointers, int from, int to, int[] buckets, int[] values) {
+        final char[] S = this.S;
+        int c1 = 0;
+        int pointer = pointers[c1];
+        for (int i = to - 1; i >= from; i--) {
+            int ch = buckets[i - from];
+            int value;
+            if (ch >= 0) {
+                value = values[i - from];
+            } else {
+                int j = SA[i];
+                if (j <= 0) {
+                    SA[i] = ~j;
+                    continue;
+                }
+                // set after the block was prepared
+                j--;
+                ch = S[j];
+                value = j == 0 || S[j - 1] > ch ? ~j : j;
+            }
+            if (ch != c1) {
+                pointers[c1] = pointer;
+                pointer = pointers[c1 = ch];
+            }
+            SA[pointer--] = value;
+        }
+        pointers[c1] = pointer;
+    }
+
+    void setTypeLMS(int[] SA, int[] lmsSubstrings, int[] pointers, int n1) {
+        final char[] S = this.S;
+        for (int i = n1 - 1; i >= 0; i--) {
+            int lms = lmsSubstrings[i];
+            SA[pointers[S[lms]]--] = lms;
+        }
+    }
+
+    int nameLMSSubstrings(int[] lmsSubstrings, int[] names, long[] isTypeS, int n, int from, int to) {
+        final char[] S = this.S;
+        int name = 0;
+        int i = from;
+        if (i == 0 && i < to) {
+            names[lmsSubstrings[0] / 2] = ++name;
+            i++;
+        }
+
+        for (; i < to; i++) {
+            int p0 = lmsSubstrings[i - 1];
+            int p1 = lmsSubstrings[i];
+
+            // compare first character
+            if (S[p0] != S[p1] || (p0 == n - 1 ^ p1 == n - 1)) {
+                names[p1 / 2] = ++name;
+                continue;
+            } else if (p0 == n - 1 /* && p1 == n - 1 */) {
+                names[p1 / 2] = name;
+                continue;
+            }
+            p0++;
+            p1++;
+
+            // compare after second character
+            while (true) {
+                if (S[p0] != S[p1] || (p0 == n - 1 ^ p1 == n - 1)) {
+                    name++;
+                    break;
+                } else if (p0 == n - 1 /* && p1 == n - 1 */) {
+                    break;
+                }
+                boolean lms0 = isTypeLMS(isTypeS, p0);
+                if (lms0 ^ isTypeLMS(isTypeS, p1)) {
+                    name++;
+                    break;
+                } else if (lms0 /* && isTypeLMS(isTypeS, p1) */) {
+                    break;
+                }
+                p0++;
+                p1++;
+            }
+            names[lmsSubstrings[i] / 2] = name;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Read-only LongArray over text split into byte[] chunks (characters are unsigned, 0 to 255).
+ * All chunks but the last must have the same length, which is a power of two.
+ */
+final class ChunkedByteArray extends LongArray {
+    private final byte[][] chunks;
+    private final int shift;
+    private final long mask;
+    private final long length;
+
+    ChunkedByteArray(byte[][] chunks) {
+        long length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length;
+        }
+        int shift = 31;
+        if (chunks.length > 1) {
+            int chunkLength = chunks[0].length;
+            if (Integer.bitCount(chunkLength) != 1) {
+                throw new IllegalArgumentException("chunk length must be a power of two: " + chunkLength);
+            }
+            for (int c = 1; c < chunks.length; c++) {
+                if (chunks[c].length > chunkLength || (c < chunks.length - 1 && chunks[c].length != chunkLength)) {
+                    throw new IllegalArgumentException("chunk " + c + " has length " + chunks[c].length + ", expected " + chunkLength);
+                }
+            }
+            shift = Integer.numberOfTrailingZeros(chunkLength);
+        }
+        this.chunks = chunks;
+        this.shift = shift;
+        this.mask = (1L << shift) - 1;
+        this.length = length;
+    }
+
+    long get(long i) {
+        return chunks[(int) (i >>> shift)][(int) (i & mask)] & 0xff;
+    }
+
+    void set(long i, long value) {
+        throw new UnsupportedOperationException();
+    }
+
+    long length() {
+        return length;
+    }
+
+    LongArray view(long offset) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+
+/**
+ * LongArray backed by long[][] chunks of 2^shift entries (8 bytes per entry).
+ */
+final class ChunkedLongArray extends LongArray {
+    /** 2^24 entries (128 MiB) per chunk */
+    static final int DEFAULT_SHIFT = 24;
+
+    private final long[][] chunks;
+    private final int shift;
+    private final long mask;
+    private final long offset;
+    private final long length;
+
+    ChunkedLongArray(long length) {
+        this(length, DEFAULT_SHIFT);
+    }
+
+    ChunkedLongArray(long length, int shift) {
+        long chunkLength = 1L << shift;
+        int numChunks = (int) ((length + chunkLength - 1) >>> shift);
+        this.chunks = new long[numChunks][];
+        for (int c = 0; c < numChunks; c++) {
+            chunks[c] = new long[(int) Math.min(chunkLength, length - ((long) c << shift))];
+        }
+        this.shift = shift;
+        this.mask = chunkLength - 1;
+        this.offset = 0;
+        this.length = length;
+    }
+
+    private ChunkedLongArray(ChunkedLongArray base, long offset) {
+        this.chunks = base.chunks;
+        this.shift = base.shift;
+        this.mask = base.mask;
+        this.offset = base.offset + offset;
+        this.length = base.length - offset;
+    }
+
+    long get(long i) {
+        long j = offset + i;
+        return chunks[(int) (j >>> shift)][(int) (j & mask)];
+    }
+
+    void set(long i, long value) {
+        long j = offset + i;
+        chunks[(int) (j >>> shift)][(int) (j & mask)] = value;
+    }
+
+    long length() {
+        return length;
+    }
+
+    LongArray view(long offset) {
+        return new ChunkedLongArray(this, offset);
+    }
+
+    void fill(long from, long to, long value) {
+        long j = offset + from;
+        long end = offset + to;
+        while (j < end) {
+            long[] chunk = chunks[(int) (j >>> shift)];
+            int start = (int) (j & mask);
+            int stop = (int) Math.min(chunk.length, start + (end - j));
+            Arrays.fill(chunk, start, stop, value);
+            j += stop - start;
+        }
+    }
+}
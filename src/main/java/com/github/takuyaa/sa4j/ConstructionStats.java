@@ -0,0 +1,227 @@
+package com.github.takuyaa.sa4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics of a construction by SA-IS: the time and allocation of each stage of each recursion level.
+ * Pass an instance to a constructor of {@link SuffixArray}, {@link SuffixArrayBuilder} or {@link sais} which takes one
+ * to collect them; constructions without stats only test for null once per stage.
+ * Each construction replaces the levels of the previous one, and an empty input leaves no levels
+ * (nor does a single character sorted by {@link sais}).
+ *
+ * Time and allocation of stage 2 include the deeper levels, so the stages of level 0 add up to the whole construction.
+ * Allocation is counted on the constructing thread (by com.sun.management.ThreadMXBean, -1 if unsupported),
+ * so the blocks which run in a ForkJoinPool are not included.
+ * An instance collects one construction at a time.
+ */
+public final class ConstructionStats {
+    /**
+     * Stages of SA-IS.
+     */
+    public enum Stage {
+        /** count characters, classify types, sort and name LMS-substrings */
+        SORT_LMS_SUBSTRINGS,
+        /** sort the reduced problem of n1 names recursively (if names aren't unique) */
+        SOLVE_REDUCED_PROBLEM,
+        /** induce SA from sorted LMS-suffixes */
+        INDUCE
+    }
+
+    /**
+     * Statistics of a recursion level.
+     */
+    public static final class Level {
+        private final int depth;
+        private final int n;
+        private final int k;
+        private int n1;
+        private int names;
+        private final long[] nanos = new long[Stage.values().length];
+        private final long[] allocatedBytes = new long[Stage.values().length];
+        /** clock and allocation at the start of the current stage */
+        private long startNanos;
+        private long startBytes;
+
+        Level(int depth, int n, int k) {
+            this.depth = depth;
+            this.n = n;
+            this.k = k;
+            this.startNanos = System.nanoTime();
+            this.startBytes = currentAllocatedBytes();
+        }
+
+        /**
+         * Record the reduced problem of this level.
+         */
+        void reduced(int n1, int names) {
+            this.n1 = n1;
+            this.names = names;
+        }
+
+        /**
+         * Record the current stage, which ends now, and start the next one.
+         */
+        void finish(Stage stage) {
+            long now = System.nanoTime();
+            long bytes = currentAllocatedBytes();
+            nanos[stage.ordinal()] = now - startNanos;
+            allocatedBytes[stage.ordinal()] = startBytes < 0 || bytes < 0 ? -1 : bytes - startBytes;
+            startNanos = now;
+            startBytes = bytes;
+        }
+
+        /**
+         * @return recursion level (0 for the input)
+         */
+        public int depth() {
+            return depth;
+        }
+
+        /**
+         * @return length of the text of this level
+         */
+        public int length() {
+            return n;
+        }
+
+        /**
+         * @return max character value of the text of this level
+         */
+        public int maxCharacter() {
+            return k;
+        }
+
+        /**
+         * @return number of LMS-substrings, i.e. length of the reduced problem
+         */
+        public int lmsCount() {
+            return n1;
+        }
+
+        /**
+         * @return number of distinct LMS-substrings; the level recurses unless it equals {@link #lmsCount()}
+         */
+        public int names() {
+            return names;
+        }
+
+        /**
+         * @return n1 / n
+         */
+        public double reductionRatio() {
+            return n == 0 ? 0 : (double) n1 / n;
+        }
+
+        /**
+         * @return wall-clock time of stage in nanoseconds
+         */
+        public long nanos(Stage stage) {
+            return nanos[stage.ordinal()];
+        }
+
+        /**
+         * @return bytes allocated by the constructing thread during stage, or -1 if unknown
+         */
+        public long allocatedBytes(Stage stage) {
+            return allocatedBytes[stage.ordinal()];
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final List<Level> levels = new ArrayList<>();
+
+    /**
+     * @return statistics of recursion levels, from the input to the deepest level
+     */
+    public List<Level> levels() {
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * @return wall-clock time of the whole construction in nanoseconds
+     */
+    public long totalNanos() {
+        long total = 0;
+        if (!levels.isEmpty()) {
+            for (Stage stage : Stage.values()) {
+                total += levels.get(0).nanos(stage);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return bytes allocated by the whole construction, or -1 if unknown
+     */
+    public long totalAllocatedBytes() {
+        return levels.isEmpty() ? 0 : allocatedBytes(levels.get(0));
+    }
+
+    /**
+     * @return bytes allocated by all stages of level, including the deeper levels, or -1 if unknown
+     */
+    private static long allocatedBytes(Level level) {
+        long total = 0;
+        for (Stage stage : Stage.values()) {
+            if (level.allocatedBytes(stage) < 0) {
+                return -1;
+            }
+            total += level.allocatedBytes(stage);
+        }
+        return total;
+    }
+
+    /**
+     * Start a recursion level; levels are started in the order of depth.
+     */
+    Level start(int depth, int n, int k) {
+        if (depth == 0) {
+            levels.clear();
+        }
+        Level level = new Level(depth, n, k);
+        levels.add(level);
+        return level;
+    }
+
+    /**
+     * Forget the levels of the previous construction, for an input which has none.
+     */
+    void clear() {
+        levels.clear();
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or -1 if unsupported
+     */
+    private static long currentAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return table of levels, one line per level (allocation of a level includes the deeper levels)
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%5s %12s %10s %12s %12s %7s %10s %10s %10s %12s%n",
+                "depth", "n", "k", "n1", "names", "n1/n", "stage1 ms", "stage2 ms", "stage3 ms", "alloc bytes"));
+        for (Level level : levels) {
+            sb.append(String.format("%5d %12d %10d %12d %12d %7.3f %10.1f %10.1f %10.1f %12d%n",
+                    level.depth, level.n, level.k, level.n1, level.names, level.reductionRatio(),
+                    level.nanos(Stage.SORT_LMS_SUBSTRINGS) / 1e6, level.nanos(Stage.SOLVE_REDUCED_PROBLEM) / 1e6,
+                    level.nanos(Stage.INDUCE) / 1e6, allocatedBytes(level)));
+        }
+        return sb.toString();
+    }
+}
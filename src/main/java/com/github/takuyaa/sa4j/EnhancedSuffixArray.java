@@ -0,0 +1,379 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+
+/**
+ * Enhanced suffix array of byte text (Abouelhoda, Kurtz and Ohlebusch, 2004): SA with LCP and child tables,
+ * which replaces the traversals of a suffix tree.
+ * The internal nodes of the suffix tree are the lcp-intervals of SA: an l-interval [start, end) is a maximal interval
+ * of at least 2 suffixes whose longest common prefix has length l, and its children are the maximal subintervals
+ * (and single suffixes) without an l-index, i.e. an index i with LCP[i] = l.
+ *
+ * The index takes 12 bytes per text byte besides the text (SA, LCP and the child table in one int array each),
+ * where a pointer-based suffix tree takes 20 or more.
+ * Traversals report intervals to an {@link IntervalVisitor} and allocate no object per interval;
+ * search takes O(m * sigma) time for a pattern of length m over an alphabet of size sigma.
+ */
+public class EnhancedSuffixArray {
+    /** left character of an interval whose suffixes are preceded by different characters, or one of them starts the text */
+    private static final int DIVERSE = SuffixArray.BYTE_MAX_VALUE + 1;
+    /** left character of an interval which has no suffix yet */
+    private static final int NONE = -1;
+
+    private static final int ALL = 0;
+    private static final int MAXIMAL = 1;
+    private static final int SUPERMAXIMAL = 2;
+
+    /**
+     * Receiver of intervals of SA.
+     */
+    public interface IntervalVisitor {
+        /**
+         * @param lcp length of the longest common prefix of the suffixes of the interval
+         * @param start first index of SA
+         * @param end index of SA next to the last one
+         */
+        void visit(int lcp, int start, int end);
+    }
+
+    private final byte[] text;
+    private final int[] SA;
+    /** LCP array: lcpTable[i] is the longest common prefix of SA[i - 1] and SA[i]; lcpTable[0] and the virtual lcpTable[n] are read as -1 */
+    private final int[] lcpTable;
+    /**
+     * Child table of n + 1 entries in one array: cld[i] is nextlIndex[i] if defined, otherwise down[i];
+     * and cld[i] is up[i + 1] if LCP[i] > LCP[i + 1], where the other two are undefined.
+     */
+    private final int[] cld;
+
+    /**
+     * @param T input text
+     */
+    public EnhancedSuffixArray(byte[] T) {
+        this(T, new SuffixArray(T).getArray());
+    }
+
+    /**
+     * Construct enhanced suffix array from a suffix array built by {@link sais} or {@link SuffixArray}.
+     * @param T input text
+     * @param SA suffix array of T
+     */
+    public EnhancedSuffixArray(byte[] T, int[] SA) {
+        if (SA.length != T.length) {
+            throw new IllegalArgumentException("SA has " + SA.length + " entries for text of " + T.length + " bytes");
+        }
+        this.text = T;
+        this.SA = SA;
+        this.lcpTable = LCP.phi(T, SA);
+        this.cld = childTable();
+    }
+
+    /**
+     * @return LCP[i] of the enhanced suffix array, with -1 at both ends
+     */
+    private int lcp(int i) {
+        return i == 0 || i == SA.length ? -1 : lcpTable[i];
+    }
+
+    /**
+     * Build the child table by the stack-based algorithms of up/down and nextlIndex.
+     */
+    private int[] childTable() {
+        int n = SA.length;
+        int[] cld = new int[n + 1];
+        int[] stack = new int[n + 1];
+
+        // up and down
+        int top = 0;
+        int lastIndex = -1;
+        for (int i = 1; i <= n; i++) {
+            int h = lcp(i);
+            while (h < lcp(stack[top])) {
+                lastIndex = stack[top--];
+                int l = lcp(stack[top]);
+                if (h <= l && l != lcp(lastIndex)) {
+                    cld[stack[top]] = lastIndex;
+                }
+            }
+            if (lastIndex != -1) {
+                cld[i - 1] = lastIndex;
+                lastIndex = -1;
+            }
+            stack[++top] = i;
+        }
+
+        // nextlIndex, which takes priority over down
+        top = 0;
+        for (int i = 1; i <= n; i++) {
+            int h = lcp(i);
+            while (h < lcp(stack[top])) {
+                top--;
+            }
+            if (h == lcp(stack[top])) {
+                cld[stack[top--]] = i;
+            }
+            stack[++top] = i;
+        }
+        return cld;
+    }
+
+    /**
+     * @return number of suffixes
+     */
+    public int length() {
+        return SA.length;
+    }
+
+    /**
+     * @return suffix array
+     */
+    public int[] getArray() {
+        return SA;
+    }
+
+    /**
+     * @return LCP array; LCP[i] is the length of the longest common prefix of suffixes SA[i - 1] and SA[i]
+     */
+    public int[] getLCP() {
+        return lcpTable;
+    }
+
+    /**
+     * @return approximate heap size of the index in bytes, excluding the text
+     */
+    public long sizeInBytes() {
+        return 4L * (SA.length + lcpTable.length + cld.length);
+    }
+
+    /**
+     * @param start first index of an lcp-interval, or of a single suffix
+     * @param end index next to the last one
+     * @return lcp value of the interval, or the length of the suffix if end - start == 1
+     */
+    public int lcp(int start, int end) {
+        if (end - start == 1) {
+            return SA.length - SA[start];
+        }
+        return lcp(firstLIndex(start, end - 1));
+    }
+
+    /**
+     * Report the children of an lcp-interval, in the order of SA; single suffixes are reported with their lengths as lcp,
+     * which equal the lcp of the parent for a suffix which is the common prefix itself.
+     * @param start first index of an lcp-interval, e.g. 0 for the root
+     * @param end index next to the last one, e.g. {@link #length()} for the root
+     */
+    public void children(int start, int end, IntervalVisitor visitor) {
+        if (end - start < 2) {
+            return;
+        }
+        int j = end - 1;
+        int k = firstLIndex(start, j);
+        int l = lcp(k);
+        visitChild(start, k, visitor);
+        for (int next; (next = nextLIndex(k, l, j)) != -1; k = next) {
+            visitChild(k, next, visitor);
+        }
+        visitChild(k, end, visitor);
+    }
+
+    private void visitChild(int start, int end, IntervalVisitor visitor) {
+        visitor.visit(lcp(start, end), start, end);
+    }
+
+    /**
+     * @return first l-index of the l-interval [i, j] (inclusive)
+     */
+    private int firstLIndex(int i, int j) {
+        // LCP[j] > LCP[j + 1], so cld[j] is up[j + 1]
+        int up = cld[j];
+        return i < up && up <= j ? up : cld[i];
+    }
+
+    /**
+     * @return l-index next to k in the l-interval which ends at j (inclusive), or -1 if k is the last one
+     */
+    private int nextLIndex(int k, int l, int j) {
+        int next = cld[k];
+        return next > k && next <= j && lcp(next) == l ? next : -1;
+    }
+
+    /**
+     * Find the interval of suffixes which start with pattern by top-down traversal of lcp-intervals.
+     * @param pattern pattern to search
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(byte[] pattern) {
+        int n = SA.length;
+        int m = pattern.length;
+        if (n == 0 || m == 0) {
+            return new Range(0, m == 0 ? n : 0);
+        }
+        int i = 0;
+        int j = n - 1;
+        int c = 0; // length of the matched prefix of pattern
+        while (true) {
+            int l = i == j ? n - SA[i] : lcp(firstLIndex(i, j));
+            int p = SA[i];
+            for (int end = Math.min(l, m); c < end; c++) {
+                if (text[p + c] != pattern[c]) {
+                    return new Range(i, i);
+                }
+            }
+            if (c == m) {
+                return new Range(i, j + 1);
+            }
+            if (i == j) {
+                // the suffix is a proper prefix of pattern
+                return new Range(i, i);
+            }
+
+            // find the child which continues with pattern[c]
+            byte b = pattern[c];
+            int k = firstLIndex(i, j);
+            int start = i;
+            int childEnd = k - 1;
+            while (!startsWith(start, c, b)) {
+                if (childEnd == j) {
+                    return new Range(i, i);
+                }
+                start = k;
+                k = nextLIndex(k, l, j);
+                childEnd = k == -1 ? j : k - 1;
+            }
+            i = start;
+            j = childEnd;
+        }
+    }
+
+    /**
+     * @return whether suffix SA[start] has byte b at offset c
+     */
+    private boolean startsWith(int start, int c, byte b) {
+        int p = SA[start] + c;
+        return p < SA.length && text[p] == b;
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern
+     */
+    public int count(byte[] pattern) {
+        return range(pattern).size();
+    }
+
+    /**
+     * Report all lcp-intervals bottom-up, i.e. each interval after its children.
+     * The root is reported last with the lcp of all suffixes (0 unless the text is a run of one byte).
+     */
+    public void bottomUp(IntervalVisitor visitor) {
+        traverse(ALL, 0, visitor);
+    }
+
+    /**
+     * Report maximal repeats: substrings which occur twice or more and can't be extended to the left or to the right
+     * without losing an occurrence. Each repeat is reported once as the lcp-interval of its occurrences.
+     * @param minLength min length of repeats (at least 1)
+     */
+    public void maximalRepeats(int minLength, IntervalVisitor visitor) {
+        traverse(MAXIMAL, Math.max(minLength, 1), visitor);
+    }
+
+    /**
+     * Report supermaximal repeats: maximal repeats which are not a substring of another maximal repeat.
+     * They are the lcp-intervals without child intervals whose suffixes are preceded by pairwise different characters.
+     * @param minLength min length of repeats (at least 1)
+     */
+    public void supermaximalRepeats(int minLength, IntervalVisitor visitor) {
+        traverse(SUPERMAXIMAL, Math.max(minLength, 1), visitor);
+    }
+
+    /**
+     * Bottom-up traversal with a stack of open intervals in parallel arrays.
+     * Each interval collects the left character of its suffixes (or {@link #DIVERSE}),
+     * and whether it has a child interval.
+     */
+    private void traverse(int mode, int minLength, IntervalVisitor visitor) {
+        int n = SA.length;
+        int[] lcps = new int[64];
+        int[] starts = new int[64];
+        int[] lefts = new int[64];
+        boolean[] inner = new boolean[64];
+        long[] seen = new long[(DIVERSE + 64) >>> 6];
+
+        // sentinel which is never closed
+        int top = 0;
+        lcps[0] = -1;
+        lefts[0] = NONE;
+        for (int i = 1; i <= n; i++) {
+            int h = lcp(i);
+            // suffix i - 1, and then the interval closed last, which belong to the interval on the top or to a new one
+            int carry = leftCharacter(i - 1);
+            boolean carryInterval = false;
+            int start = i - 1;
+            while (h < lcps[top]) {
+                int left = lefts[top] = merge(lefts[top], carry);
+                boolean hasChild = inner[top] |= carryInterval;
+                int l = lcps[top];
+                start = starts[top];
+                if (mode == ALL
+                        || l >= minLength && left == DIVERSE
+                        && (mode == MAXIMAL || !hasChild && distinctLeftCharacters(start, i, seen))) {
+                    visitor.visit(l, start, i);
+                }
+                carry = left;
+                carryInterval = true;
+                top--;
+            }
+            if (h > lcps[top]) {
+                if (++top == lcps.length) {
+                    lcps = Arrays.copyOf(lcps, top * 2);
+                    starts = Arrays.copyOf(starts, top * 2);
+                    lefts = Arrays.copyOf(lefts, top * 2);
+                    inner = Arrays.copyOf(inner, top * 2);
+                }
+                lcps[top] = h;
+                starts[top] = start;
+                lefts[top] = carry;
+                inner[top] = carryInterval;
+            } else {
+                lefts[top] = merge(lefts[top], carry);
+                inner[top] |= carryInterval;
+            }
+        }
+    }
+
+    /**
+     * @return character preceding suffix SA[i], or {@link #DIVERSE} for the suffix which starts the text
+     */
+    private int leftCharacter(int i) {
+        int p = SA[i];
+        return p == 0 ? DIVERSE : text[p - 1] & 0xff;
+    }
+
+    private static int merge(int left1, int left2) {
+        if (left1 == NONE) {
+            return left2;
+        }
+        return left2 == NONE || left1 == left2 ? left1 : DIVERSE;
+    }
+
+    /**
+     * @param seen buffer of 257 bits
+     * @return whether the suffixes of [start, end) are preceded by pairwise different characters
+     */
+    private boolean distinctLeftCharacters(int start, int end, long[] seen) {
+        if (end - start > DIVERSE + 1) {
+            return false;
+        }
+        Arrays.fill(seen, 0);
+        for (int i = start; i < end; i++) {
+            int c = leftCharacter(i);
+            if ((seen[c >>> 6] & 1L << c) != 0) {
+                return false;
+            }
+            seen[c >>> 6] |= 1L << c;
+        }
+        return true;
+    }
+}
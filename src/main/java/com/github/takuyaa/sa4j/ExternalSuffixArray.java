@@ -0,0 +1,585 @@
+package com.github.takuyaa.sa4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Suffix array built on disk, for texts larger than the heap and the page cache.
+ * The text is split into blocks which fit a memory budget, and blocks are processed from right to left
+ * in the style of SAscan (Kärkkäinen, Kempa and Puglisi):
+ * <ol>
+ * <li>The suffixes starting in the block are sorted in memory by SA-IS of {@link SuffixArray}.
+ *     Comparisons which reach the end of the block are decided by a bit vector gt on disk,
+ *     where gt[j] tells whether suffix j is greater than the suffix at the end of the block.</li>
+ * <li>The text right of the block is streamed backwards to rank each of its suffixes among the suffixes of the block
+ *     by LF-mapping over the BWT of the block, which gives the number of those suffixes between each pair
+ *     of adjacent block suffixes (the gap array), and gt for the next block.</li>
+ * <li>The suffix array and the gap array of the block are written to temporary files.</li>
+ * </ol>
+ * Finally the suffix arrays of all blocks are merged in one pass: the gap array of a block tells how many suffixes
+ * right of it come before each of its suffixes, and which block they come from is decided by the next gap array.
+ * The text and temporary files are only read and written sequentially, apart from one window per block.
+ * Streaming the text for each block makes I/O quadratic in the number of blocks b: about
+ * 5 * b * n / 8 + n * (3 * width + 10) bytes are read and written. As a block takes
+ * {@value #BYTES_PER_BLOCK_BYTE} bytes of heap per byte, that is about 37 bytes per input byte when the text is
+ * as large as the memory budget, and 67 when it is 3 times larger. Use it when the input is at most a few times
+ * larger than the memory budget.
+ *
+ * The output file has the layout of {@link MappedSuffixArray}: n little-endian signed entries of {@link #width()} bytes.
+ */
+public class ExternalSuffixArray {
+    /** memory budget of the public constructors without one (256 MiB) */
+    public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+    /**
+     * Heap bytes per byte of block at the peak, which is SA-IS: text and lookahead (2),
+     * SA-IS input (2), output (4) and workspace (up to 12), and slack of the heap (4).
+     */
+    static final int BYTES_PER_BLOCK_BYTE = 24;
+
+    /** bytes per I/O buffer */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** max character of the block string passed to SA-IS (3 codes per byte) */
+    private static final int BLOCK_MAX_CHARACTER = 3 * SuffixArray.BYTE_MAX_VALUE + 2;
+
+    private long length;
+    private int width;
+    private int blockLength;
+    private int blocks;
+    private long bytesRead;
+    private long bytesWritten;
+
+    /**
+     * Construct suffix array of text in a file.
+     * @param text channel of the text, opened for reading
+     * @param output channel of the output file, opened for reading and writing (it is truncated to the size of SA)
+     * @param tempDirectory directory for temporary files of about n * (width + 4 + 1/8) bytes
+     * @param memoryBudget approximate heap bytes to use
+     */
+    public ExternalSuffixArray(FileChannel text, FileChannel output, File tempDirectory, long memoryBudget) throws IOException {
+        build(text, output, tempDirectory, blockLength(memoryBudget));
+    }
+
+    /**
+     * Construct suffix array of a stream, which is copied to a temporary file first.
+     * @param text input text, read to its end (not closed)
+     * @param output channel of the output file, opened for reading and writing (it is truncated to the size of SA)
+     * @param tempDirectory directory for temporary files of about n * (width + 5 + 1/8) bytes
+     * @param memoryBudget approximate heap bytes to use
+     */
+    public ExternalSuffixArray(InputStream text, FileChannel output, File tempDirectory, long memoryBudget) throws IOException {
+        File spool = File.createTempFile("sa4j", ".txt", tempDirectory);
+        try {
+            RandomAccessFile f = new RandomAccessFile(spool, "rw");
+            try {
+                FileChannel channel = f.getChannel();
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (int read; (read = text.read(buffer)) >= 0; ) {
+                    write(channel, ByteBuffer.wrap(buffer, 0, read));
+                }
+                build(channel, output, tempDirectory, blockLength(memoryBudget));
+            } finally {
+                f.close();
+            }
+        } finally {
+            spool.delete();
+        }
+    }
+
+    /**
+     * @param blockLength bytes per block (a multiple of 64)
+     */
+    ExternalSuffixArray(FileChannel text, FileChannel output, File tempDirectory, int blockLength) throws IOException {
+        build(text, output, tempDirectory, blockLength);
+    }
+
+    /**
+     * @return number of suffixes (length of the text)
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return bytes per entry in the output file
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return bytes per block (the last block may be shorter)
+     */
+    public int blockLength() {
+        return blockLength;
+    }
+
+    /**
+     * @return number of blocks
+     */
+    public int blocks() {
+        return blocks;
+    }
+
+    /**
+     * @return bytes read from the text, the output and temporary files
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return bytes written to the output and temporary files
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return bytes per block for a memory budget, a multiple of 64
+     */
+    static int blockLength(long memoryBudget) {
+        long length = Math.min(memoryBudget / BYTES_PER_BLOCK_BYTE, Integer.MAX_VALUE / 4);
+        return (int) Math.max(64, length & ~63L);
+    }
+
+    /**
+     * @return number of blocks of a text of the given length for a memory budget
+     */
+    static long blocks(long length, long memoryBudget) {
+        int blockLength = blockLength(memoryBudget);
+        return (length + blockLength - 1) / blockLength;
+    }
+
+    private void build(FileChannel text, FileChannel output, File tempDirectory, int blockLength) throws IOException {
+        if (blockLength <= 0 || blockLength % 64 != 0) {
+            throw new IllegalArgumentException("block length must be a positive multiple of 64: " + blockLength);
+        }
+        long n = text.size();
+        this.length = n;
+        this.width = MappedSuffixArray.width(n);
+        this.blockLength = blockLength;
+        this.blocks = (int) ((n + blockLength - 1) / blockLength);
+
+        output.truncate(0);
+        // a single block is written to the output as it is
+        File saFile = blocks > 1 ? File.createTempFile("sa4j", ".sa", tempDirectory) : null;
+        File gapFile = blocks > 1 ? File.createTempFile("sa4j", ".gap", tempDirectory) : null;
+        File gtFile = File.createTempFile("sa4j", ".gt", tempDirectory);
+        RandomAccessFile[] files = new RandomAccessFile[3];
+        try {
+            files[0] = new RandomAccessFile(gtFile, "rw");
+            FileChannel gt = files[0].getChannel();
+            FileChannel sa = output;
+            FileChannel gaps = null;
+            if (blocks > 1) {
+                files[1] = new RandomAccessFile(saFile, "rw");
+                sa = files[1].getChannel();
+                files[2] = new RandomAccessFile(gapFile, "rw");
+                gaps = files[2].getChannel();
+            }
+            for (int k = blocks - 1; k >= 0; k--) {
+                long start = (long) k * blockLength;
+                int m = (int) (Math.min(n, start + blockLength) - start);
+                processBlock(text, gt, sa, gaps, n, start, m, k);
+            }
+            if (blocks > 1) {
+                merge(sa, gaps, output, n);
+            }
+            output.truncate(n * width);
+        } finally {
+            for (RandomAccessFile f : files) {
+                if (f != null) {
+                    f.close();
+                }
+            }
+            for (File f : new File[]{gtFile, saFile, gapFile}) {
+                if (f != null) {
+                    f.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sort the suffixes of block [s, e), and write their suffix array and gap array.
+     * @param gt gt[j] for j in [e, n) is whether suffix j is greater than suffix e; updated for suffix s
+     * @param sa channel of the suffix arrays of the blocks, each at its own position
+     * @param gaps channel of the gap arrays of the blocks but the last one, each at its own position
+     * @param k index of the block
+     */
+    private void processBlock(FileChannel text, FileChannel gt, FileChannel sa, FileChannel gaps,
+                              long n, long s, int m, int k) throws IOException {
+        long e = s + m;
+        // the block and as many bytes after it, for comparing suffixes of the block with suffix e
+        int lookahead = (int) Math.min(m, n - e);
+        byte[] X = new byte[m + lookahead];
+        read(text, ByteBuffer.wrap(X), s);
+
+        boolean[] greater = greaterThanBlockEnd(gt, X, m, lookahead, n, e);
+
+        // a suffix of the block is compared with another one which is its prefix by gt at the point the shorter one ends,
+        // so the gt bit of the next position is folded into each character, and the last character is between them
+        char[] Y = new char[m];
+        for (int i = 0; i < m; i++) {
+            int code = i == m - 1 ? 1 : greater[i + 1] ? 2 : 0;
+            Y[i] = (char) (3 * (X[i] & 0xff) + code);
+        }
+        greater = null;
+        int[] SA = new int[m];
+        SuffixArray.SAIS(new CharSAISKernel(Y), SA, m, BLOCK_MAX_CHARACTER);
+        Y = null;
+
+        int rank0 = 0;
+        while (SA[rank0] != 0) {
+            rank0++;
+        }
+        if (k > 0) {
+            writeBlockGt(gt, SA, rank0, s, m);
+        }
+        writeEntries(sa, SA, s, m);
+        if (e < n) {
+            // BWT of the block; the row of suffix s has no preceding byte in the block, and holds 0
+            byte[] L = new byte[m];
+            for (int t = 0; t < m; t++) {
+                L[t] = SA[t] > 0 ? X[SA[t] - 1] : 0;
+            }
+            SA = null;
+            int[] gap = new int[m + 1];
+            rankTail(text, gt, X, L, gap, n, s, m, rank0, k > 0);
+            writeGaps(gaps, gap, s + k);
+        }
+    }
+
+    /**
+     * @return greater[i] is whether suffix s + i is greater than suffix e
+     */
+    private boolean[] greaterThanBlockEnd(FileChannel gt, byte[] X, int m, int lookahead, long n, long e) throws IOException {
+        // bits of gt for [e, e + m]
+        long end = Math.min(n, e + m + 1);
+        long firstByte = e >>> 3;
+        byte[] bits = new byte[(int) (((end + 7) >>> 3) - firstByte)];
+        read(gt, ByteBuffer.wrap(bits), firstByte);
+
+        int[] matches = matchLengths(X, m, lookahead);
+        boolean[] greater = new boolean[m];
+        for (int i = 0; i < m; i++) {
+            int l = matches[i];
+            if (l == m - i) {
+                // T[s + i, e) == T[e, q), so compare suffix e with suffix q
+                long q = e + l;
+                if (q >= n) {
+                    greater[i] = true;
+                } else {
+                    long b = q - (firstByte << 3);
+                    greater[i] = (bits[(int) (b >>> 3)] >>> (b & 7) & 1) == 0;
+                }
+            } else if (l == lookahead) {
+                // suffix e is a proper prefix of suffix s + i
+                greater[i] = true;
+            } else {
+                greater[i] = (X[i + l] & 0xff) > (X[m + l] & 0xff);
+            }
+        }
+        return greater;
+    }
+
+    /**
+     * Z-algorithm over X[m, m + lookahead) followed by X[0, m).
+     * @return lengths of the longest common prefixes of X[i, m) and X[m, m + lookahead) for i in [0, m)
+     */
+    static int[] matchLengths(byte[] X, int m, int lookahead) {
+        int length = lookahead + m;
+        int[] z = new int[length];
+        for (int i = 1, left = 0, right = 0; i < length; i++) {
+            int l = i < right ? Math.min(right - i, z[i - left]) : 0;
+            // the pattern part doesn't match beyond its end, which works as a separator
+            int limit = i < lookahead ? lookahead - i : Math.min(lookahead, length - i);
+            while (l < limit && X[pattern(i + l, m, lookahead)] == X[pattern(l, m, lookahead)]) {
+                l++;
+            }
+            z[i] = l;
+            if (i + l > right) {
+                left = i;
+                right = i + l;
+            }
+        }
+        int[] matches = new int[m];
+        System.arraycopy(z, lookahead, matches, 0, m);
+        return matches;
+    }
+
+    /**
+     * @return index of X for position p of the string X[m, m + lookahead) X[0, m)
+     */
+    private static int pattern(int p, int m, int lookahead) {
+        return p < lookahead ? m + p : p - lookahead;
+    }
+
+    /**
+     * Stream the text of [e, n) backwards, rank its suffixes among the suffixes of the block,
+     * count them into gap and update gt for suffix s.
+     */
+    private void rankTail(FileChannel text, FileChannel gt, byte[] X, byte[] L, int[] gap,
+                          long n, long s, int m, int rank0, boolean updateGt) throws IOException {
+        long e = s + m;
+        // C[c] is the number of suffixes of the block which start with a byte smaller than c
+        int[] C = new int[SuffixArray.BYTE_MAX_VALUE + 2];
+        for (int i = 0; i < m; i++) {
+            C[(X[i] & 0xff) + 1]++;
+        }
+        for (int c = 0; c <= SuffixArray.BYTE_MAX_VALUE; c++) {
+            C[c + 1] += C[c];
+        }
+        WaveletMatrix BWT = new WaveletMatrix(L, m, 8);
+        int last = X[m - 1] & 0xff;
+
+        ByteBuffer textBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer gtBuffer = ByteBuffer.allocate(BUFFER_SIZE / 8);
+        int rank = 0;                 // rank of suffix j + 1 among the suffixes of the block
+        boolean greaterNext = false;  // whether suffix j + 1 is greater than suffix e (suffix n is not)
+        for (long hi = n; hi > e; ) {
+            // chunks end at multiples of 8 apart from the first one, so that they don't share bytes of gt
+            long lo = Math.max(e, (hi - 1) / BUFFER_SIZE * BUFFER_SIZE);
+            textBuffer.clear().limit((int) (hi - lo));
+            read(text, textBuffer, lo);
+            long firstByte = lo >>> 3;
+            gtBuffer.clear().limit((int) (((hi + 7) >>> 3) - firstByte));
+            read(gt, gtBuffer, firstByte);
+            byte[] bits = gtBuffer.array();
+
+            for (long j = hi - 1; j >= lo; j--) {
+                int c = textBuffer.get((int) (j - lo)) & 0xff;
+                int r = BWT.rank(c, rank);
+                if (c == 0 && rank0 < rank) {
+                    r--;
+                }
+                if (c == last && greaterNext) {
+                    r++; // suffix e - 1 is smaller
+                }
+                rank = C[c] + r;
+                gap[rank]++;
+
+                int b = (int) (j - (firstByte << 3));
+                int mask = 1 << (b & 7);
+                greaterNext = (bits[b >>> 3] & mask) != 0;
+                if (rank > rank0) {
+                    bits[b >>> 3] |= mask;
+                } else {
+                    bits[b >>> 3] &= ~mask;
+                }
+            }
+            if (updateGt) {
+                gtBuffer.rewind();
+                write(gt, gtBuffer, firstByte);
+            }
+            hi = lo;
+        }
+    }
+
+    /**
+     * Write gt for suffix s of positions in the block: the suffixes ranked after it are greater.
+     */
+    private void writeBlockGt(FileChannel gt, int[] SA, int rank0, long s, int m) throws IOException {
+        // s is a multiple of 64, and so is m unless the block is the last one
+        byte[] bits = new byte[(m + 7) >>> 3];
+        for (int t = rank0 + 1; t < m; t++) {
+            int i = SA[t];
+            bits[i >>> 3] |= 1 << (i & 7);
+        }
+        write(gt, ByteBuffer.wrap(bits), s >>> 3);
+    }
+
+    /**
+     * Write suffix s + SA[t] of the block at entry s + t.
+     */
+    private void writeEntries(FileChannel sa, int[] SA, long s, int m) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE * width).order(ByteOrder.LITTLE_ENDIAN);
+        long outPosition = s * width;
+        for (int t = 0; t < m; t++) {
+            if (!out.hasRemaining()) {
+                outPosition += flush(sa, out, outPosition);
+            }
+            putEntry(out, s + SA[t]);
+        }
+        flush(sa, out, outPosition);
+    }
+
+    /**
+     * Write gap at entry offset of gaps.
+     */
+    private void writeGaps(FileChannel gaps, int[] gap, long offset) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE * 4).order(ByteOrder.LITTLE_ENDIAN);
+        long outPosition = offset * 4;
+        for (int g : gap) {
+            if (!out.hasRemaining()) {
+                outPosition += flush(gaps, out, outPosition);
+            }
+            out.putInt(g);
+        }
+        flush(gaps, out, outPosition);
+    }
+
+    /**
+     * Merge the suffix arrays of all blocks into output.
+     * The next suffix belongs to the first block whose current gap is exhausted, and each block
+     * passed over gives one suffix of its gap to the blocks right of it.
+     */
+    private void merge(FileChannel sa, FileChannel gaps, FileChannel output, long n) throws IOException {
+        // buffers of all blocks share the budget of one block
+        long budget = (long) blockLength * BYTES_PER_BLOCK_BYTE / ((long) blocks * (width + 4));
+        int bufferEntries = (int) Math.max(1024, Math.min(BUFFER_SIZE, budget));
+        Run[] runs = new Run[blocks];
+        for (int k = 0; k < blocks; k++) {
+            runs[k] = new Run(sa, gaps, k, n, bufferEntries);
+        }
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE * width).order(ByteOrder.LITTLE_ENDIAN);
+        long outPosition = 0;
+        for (long i = 0; i < n; i++) {
+            int k = 0;
+            while (runs[k].gap > 0) {
+                runs[k].gap--;
+                k++;
+            }
+            if (!out.hasRemaining()) {
+                outPosition += flush(output, out, outPosition);
+            }
+            runs[k].next(out);
+        }
+        flush(output, out, outPosition);
+    }
+
+    /**
+     * Sorted suffixes of one block with its gap array, read sequentially.
+     */
+    private final class Run {
+        private final FileChannel sa;
+        private final FileChannel gaps;
+        private final ByteBuffer entries;
+        private final ByteBuffer counts;
+        private long entryPosition;
+        private final long entryEnd;
+        private long countPosition;
+        private final long countEnd;
+        /** suffixes right of the block which come before its next suffix */
+        int gap;
+
+        Run(FileChannel sa, FileChannel gaps, int k, long n, int bufferEntries) throws IOException {
+            long s = (long) k * blockLength;
+            long e = Math.min(n, s + blockLength);
+            this.sa = sa;
+            this.gaps = gaps;
+            entries = ByteBuffer.allocate(bufferEntries * width);
+            entries.flip();
+            counts = ByteBuffer.allocate(bufferEntries * 4).order(ByteOrder.LITTLE_ENDIAN);
+            counts.flip();
+            entryPosition = s * width;
+            entryEnd = e * width;
+            // the last block has no gap array
+            countPosition = (s + k) * 4;
+            countEnd = e < n ? (e + k + 1) * 4 : countPosition;
+            gap = nextGap();
+        }
+
+        /**
+         * Copy the next suffix of the block to out.
+         */
+        void next(ByteBuffer out) throws IOException {
+            if (!entries.hasRemaining()) {
+                entries.clear();
+                read(sa, entries, entryPosition, entryEnd - entryPosition);
+                entryPosition += entries.remaining();
+            }
+            for (int b = 0; b < width; b++) {
+                out.put(entries.get());
+            }
+            gap = nextGap();
+        }
+
+        private int nextGap() throws IOException {
+            if (!counts.hasRemaining()) {
+                if (countPosition == countEnd) {
+                    return 0;
+                }
+                counts.clear();
+                read(gaps, counts, countPosition, countEnd - countPosition);
+                countPosition += counts.remaining();
+            }
+            return counts.getInt();
+        }
+    }
+
+    private void putEntry(ByteBuffer out, long value) {
+        switch (width) {
+            case 4:
+                out.putInt((int) value);
+                break;
+            case 8:
+                out.putLong(value);
+                break;
+            default:
+                out.putInt((int) value);
+                out.put((byte) (value >>> 32));
+                break;
+        }
+    }
+
+    private long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int size = buffer.remaining();
+        write(channel, buffer, position);
+        buffer.clear();
+        return size;
+    }
+
+    /**
+     * Fill buffer from position of channel, and flip it.
+     * Bytes beyond the end of channel are read as 0; they are the bits of gt which aren't written yet.
+     */
+    private void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int size = buffer.remaining();
+        for (long p = position; buffer.hasRemaining(); ) {
+            int read = channel.read(buffer, p);
+            if (read < 0) {
+                while (buffer.hasRemaining()) {
+                    buffer.put((byte) 0);
+                }
+                break;
+            }
+            p += read;
+        }
+        bytesRead += size;
+        buffer.flip();
+    }
+
+    /**
+     * Read at most available bytes from position of channel into buffer, and flip it.
+     */
+    private void read(FileChannel channel, ByteBuffer buffer, long position, long available) throws IOException {
+        if (available < buffer.remaining()) {
+            buffer.limit((int) available);
+        }
+        read(channel, buffer, position);
+    }
+
+    private void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int size = buffer.remaining();
+        for (long p = position; buffer.hasRemaining(); ) {
+            p += channel.write(buffer, p);
+        }
+        bytesWritten += size;
+    }
+
+    private void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        bytesWritten += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
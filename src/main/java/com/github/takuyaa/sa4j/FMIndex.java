@@ -0,0 +1,242 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.stream.IntStream;
+
+/**
+ * FM-index of byte text, for search without keeping the text and the full suffix array.
+ * The BWT is held in a wavelet matrix over the bytes which occur in the text,
+ * and SA and its inverse are sampled at every sampleRate-th text position.
+ * For sample rate s and alphabet size sigma, the index takes about (ceil(log2(sigma)) + 1) * 1.125 / 8 + 8 / s bytes per text byte.
+ * count takes O(m log sigma) time for a pattern of length m, and locate and extract take O(s log sigma) time per position.
+ *
+ * Rows are the suffixes of T$ in sorted order, where $ is a virtual sentinel smaller than any byte:
+ * row 0 is the suffix $, and row r + 1 is the suffix SA[r].
+ */
+public class FMIndex {
+    public static final int DEFAULT_SAMPLE_RATE = 32;
+
+    private final int n;
+    private final int sampleRate;
+    /** row whose BWT character is the sentinel, i.e. the row of suffix 0 */
+    private final int primaryIndex;
+    /** code of each byte value (-1 if it doesn't occur), in the order of byte values */
+    private final int[] codes;
+    /** byte value of each code */
+    private final byte[] symbols;
+    /** C[c] is the number of rows starting with $ or with a code smaller than c */
+    private final int[] C;
+    /** BWT of T$ without the sentinel, as codes */
+    private final WaveletMatrix BWT;
+    /** rows whose suffix is at a multiple of sampleRate */
+    private final BitVector sampled;
+    /** suffixes of the sampled rows, in the order of rows */
+    private final int[] samples;
+    /** inverseSamples[k] is the row of suffix k * sampleRate */
+    private final int[] inverseSamples;
+
+    /**
+     * Construct FM-index with {@link #DEFAULT_SAMPLE_RATE}.
+     * @param T input text
+     */
+    public FMIndex(byte[] T) {
+        this(T, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * @param T input text
+     * @param sampleRate distance of sampled text positions; larger is smaller and slower
+     */
+    public FMIndex(byte[] T, int sampleRate) {
+        this(T, suffixsort(T), sampleRate);
+    }
+
+    /**
+     * Construct FM-index from a suffix array built by {@link sais} or {@link SuffixArray}.
+     * @param T input text
+     * @param SA suffix array of T
+     * @param sampleRate distance of sampled text positions; larger is smaller and slower
+     */
+    public FMIndex(byte[] T, int[] SA, int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("sample rate must be positive: " + sampleRate);
+        }
+        if (SA.length != T.length) {
+            throw new IllegalArgumentException("SA has " + SA.length + " entries for text of " + T.length + " bytes");
+        }
+        int n = T.length;
+        this.n = n;
+        this.sampleRate = sampleRate;
+
+        // compact the alphabet to the bytes which occur, keeping their order
+        int[] count = new int[SuffixArray.BYTE_MAX_VALUE + 1];
+        for (byte b : T) {
+            count[b & 0xff]++;
+        }
+        int[] codes = new int[count.length];
+        int sigma = 0;
+        for (int b = 0; b < count.length; b++) {
+            codes[b] = count[b] > 0 ? sigma++ : -1;
+        }
+        byte[] symbols = new byte[sigma];
+        int[] C = new int[sigma + 1];
+        C[0] = 1;
+        for (int b = 0; b < count.length; b++) {
+            if (codes[b] >= 0) {
+                symbols[codes[b]] = (byte) b;
+                C[codes[b] + 1] = C[codes[b]] + count[b];
+            }
+        }
+        this.codes = codes;
+        this.symbols = symbols;
+        this.C = C;
+
+        // BWT; the character preceding row 0 ($) is the last character
+        byte[] L = new byte[n];
+        int primaryIndex = 0;
+        if (n > 0) {
+            L[0] = (byte) codes[T[n - 1] & 0xff];
+            for (int r = 0, j = 1; r < n; r++) {
+                if (SA[r] == 0) {
+                    primaryIndex = r + 1;
+                } else {
+                    L[j++] = (byte) codes[T[SA[r] - 1] & 0xff];
+                }
+            }
+        }
+        this.primaryIndex = primaryIndex;
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(sigma - 1, 0));
+        this.BWT = new WaveletMatrix(L, n, bits);
+
+        // the suffixes 0, s, 2s, ... (and n if it is a multiple of s) are sampled
+        long[] words = new long[BitVector.words(n + 1)];
+        int[] samples = new int[n / sampleRate + 1];
+        int[] inverseSamples = new int[n / sampleRate + 1];
+        for (int r = 0, k = 0; r <= n; r++) {
+            int suffix = r == 0 ? n : SA[r - 1];
+            if (suffix % sampleRate == 0) {
+                words[r >>> 6] |= 1L << r;
+                samples[k++] = suffix;
+                inverseSamples[suffix / sampleRate] = r;
+            }
+        }
+        this.sampled = new BitVector(words, n + 1);
+        this.samples = samples;
+        this.inverseSamples = inverseSamples;
+    }
+
+    private static int[] suffixsort(byte[] T) {
+        int[] SA = new int[T.length];
+        sais.suffixsort(T, SA, T.length);
+        return SA;
+    }
+
+    /**
+     * @return length of the text
+     */
+    public int length() {
+        return n;
+    }
+
+    /**
+     * @return distance of sampled text positions
+     */
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Find the interval of suffixes which start with pattern by backward search.
+     * @param pattern pattern to search
+     * @return interval of SA (same as {@link SuffixArray#range(byte[])} if not empty)
+     */
+    public Range range(byte[] pattern) {
+        if (pattern.length == 0) {
+            return new Range(0, n);
+        }
+        int sp = 0;
+        int ep = n + 1;
+        for (int i = pattern.length - 1; i >= 0; i--) {
+            int c = codes[pattern[i] & 0xff];
+            if (c < 0) {
+                return new Range(0, 0);
+            }
+            sp = C[c] + rank(c, sp);
+            ep = C[c] + rank(c, ep);
+            if (sp >= ep) {
+                return new Range(sp - 1, sp - 1);
+            }
+        }
+        return new Range(sp - 1, ep - 1);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern
+     */
+    public int count(byte[] pattern) {
+        return range(pattern).size();
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return start positions of occurrences of pattern, in the order of suffixes
+     */
+    public IntStream locate(byte[] pattern) {
+        Range range = range(pattern);
+        return IntStream.range(range.start(), range.end()).map(i -> suffix(i + 1));
+    }
+
+    /**
+     * @param from start position in the text (inclusive)
+     * @param to end position in the text (exclusive)
+     * @return T[from..to-1]
+     */
+    public byte[] extract(int from, int to) {
+        if (from < 0 || to > n || to < from) {
+            throw new IndexOutOfBoundsException("range: [" + from + ", " + to + "), length: " + n);
+        }
+        byte[] result = new byte[to - from];
+        // walk back from the first sampled suffix at or after to
+        int j = (int) Math.min(((long) to + sampleRate - 1) / sampleRate * sampleRate, n);
+        int row = j == n ? 0 : inverseSamples[j / sampleRate];
+        while (j > from) {
+            // the BWT character of the row of suffix j is T[j - 1]
+            long cr = BWT.accessAndRank(row < primaryIndex ? row : row - 1);
+            int c = (int) cr;
+            if (--j < to) {
+                result[j - from] = symbols[c];
+            }
+            row = C[c] + (int) (cr >>> 32);
+        }
+        return result;
+    }
+
+    /**
+     * @return approximate heap size of this index in bytes
+     */
+    public long sizeInBytes() {
+        return BWT.sizeInBytes() + sampled.sizeInBytes()
+                + (samples.length + inverseSamples.length + codes.length + C.length) * 4L + symbols.length;
+    }
+
+    /**
+     * @return number of occurrences of code c in the BWT rows [0, row)
+     */
+    private int rank(int c, int row) {
+        return BWT.rank(c, row <= primaryIndex ? row : row - 1);
+    }
+
+    /**
+     * @return start position of the suffix at given row, found by LF-mapping to a sampled row
+     */
+    private int suffix(int row) {
+        int steps = 0;
+        // the row of suffix 0, whose BWT character is the sentinel, is always sampled
+        while (!sampled.get(row)) {
+            long cr = BWT.accessAndRank(row < primaryIndex ? row : row - 1);
+            row = C[(int) cr] + (int) (cr >>> 32);
+            steps++;
+        }
+        return samples[sampled.rank1(row)] + steps;
+    }
+}
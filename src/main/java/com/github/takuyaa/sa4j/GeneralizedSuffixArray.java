@@ -0,0 +1,154 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Suffix array of a collection of byte documents, with the document of each suffix.
+ * Suffixes never extend over the end of their document, and equal suffixes of different documents
+ * are in the order of documents.
+ *
+ * The collection is sorted by {@link sais#suffixsort(int[], int[], int, int)} as one int text,
+ * where bytes are shifted by the number of documents N and document d ends with a unique terminator d.
+ * Construction takes about 17 bytes per input byte; the result takes 9 bytes per input byte
+ * (the concatenated text, SA and DA).
+ */
+public class GeneralizedSuffixArray {
+    /** concatenation of documents without separators */
+    private final byte[] text;
+    /** starts[d] is the start of document d in text, and starts[N] is the length of text */
+    private final int[] starts;
+    /** start positions of suffixes in text, in sorted order */
+    private final int[] array;
+    /** document array: documents[i] is the document of suffix array[i] */
+    private final int[] documents;
+
+    /**
+     * @param documents input texts
+     */
+    public GeneralizedSuffixArray(List<byte[]> documents) {
+        int N = documents.size();
+        long total = 0;
+        for (byte[] document : documents) {
+            total += document.length;
+        }
+        if (total + N > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("collection is too large: " + total + " bytes in " + N + " documents");
+        }
+        int n = (int) total;
+
+        byte[] text = new byte[n];
+        int[] starts = new int[N + 1];
+        int[] T = new int[n + N];
+        for (int d = 0, p = 0; d < N; d++) {
+            byte[] document = documents.get(d);
+            System.arraycopy(document, 0, text, starts[d], document.length);
+            starts[d + 1] = starts[d] + document.length;
+            for (byte b : document) {
+                T[p++] = N + (b & 0xff);
+            }
+            T[p++] = d;
+        }
+
+        int[] SA = new int[n + N];
+        sais.suffixsort(T, SA, n + N, N + SuffixArray.BYTE_MAX_VALUE + 1);
+
+        // the suffixes of terminators come first; T is overwritten with the document of each position
+        for (int d = 0, p = 0; d < N; d++) {
+            int end = p + starts[d + 1] - starts[d] + 1;
+            Arrays.fill(T, p, end, d);
+            p = end;
+        }
+        int[] DA = new int[n];
+        for (int i = 0; i < n; i++) {
+            int p = SA[i + N];
+            int d = T[p];
+            DA[i] = d;
+            // d terminators precede position p
+            SA[i] = p - d;
+        }
+
+        this.text = text;
+        this.starts = starts;
+        this.array = N == 0 ? SA : Arrays.copyOf(SA, n);
+        this.documents = DA;
+    }
+
+    /**
+     * @return number of documents
+     */
+    public int documentCount() {
+        return starts.length - 1;
+    }
+
+    /**
+     * @return number of suffixes, i.e. total length of documents
+     */
+    public int length() {
+        return array.length;
+    }
+
+    /**
+     * @return start positions of suffixes in the concatenation of documents, in sorted order
+     */
+    public int[] getArray() {
+        return array;
+    }
+
+    /**
+     * @return document array; element i is the document of suffix i of {@link #getArray()}
+     */
+    public int[] getDocumentArray() {
+        return documents;
+    }
+
+    /**
+     * @param i index of suffix array
+     * @return document of suffix i
+     */
+    public int document(int i) {
+        return documents[i];
+    }
+
+    /**
+     * @param i index of suffix array
+     * @return start position of suffix i in its document
+     */
+    public int offset(int i) {
+        return array[i] - starts[documents[i]];
+    }
+
+    /**
+     * Find the interval of suffixes which start with pattern.
+     * @param pattern pattern to search
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(byte[] pattern) {
+        int start = Search.lowerBound(text, array, documents, starts, 0, array.length, pattern);
+        int end = Search.upperBound(text, array, documents, starts, start, array.length, pattern);
+        return new Range(start, end);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern in all documents
+     */
+    public int count(byte[] pattern) {
+        return range(pattern).size();
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return documents which contain pattern, in ascending order
+     */
+    public IntStream documents(byte[] pattern) {
+        Range range = range(pattern);
+        BitSet listed = new BitSet();
+        for (int i = range.start(); i < range.end(); i++) {
+            listed.set(documents[i]);
+        }
+        return listed.stream();
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+
+/**
+ * Read-only suffix array index of byte text, to be shared by any number of query threads.
+ * The text is copied at construction and SA never leaves the instance, so no caller can modify them;
+ * both are held in final fields, so an instance is safely published to other threads
+ * even through a data race (JLS 17.5), without volatile or locks.
+ *
+ * Searches share nothing but the two arrays, and {@link #count(byte[])}, {@link #lowerBound(byte[])},
+ * {@link #upperBound(byte[])} and {@link #locate(byte[], int[])} allocate nothing,
+ * so concurrent queries scale with the number of cores until memory bandwidth runs out.
+ *
+ * With an optional {@link PrefixTable}, a search starts from the interval of the first k bytes of the pattern
+ * instead of the whole SA, which skips the first (and most cache-missing) steps of the binary search.
+ */
+public final class ImmutableIndex {
+    private final byte[] text;
+    private final int[] array;
+    /** null if searches start from the whole SA */
+    private final PrefixTable prefixTable;
+
+    /**
+     * @param T input text (copied)
+     */
+    public ImmutableIndex(byte[] T) {
+        this(T, SuffixArray.Mode.FAST);
+    }
+
+    /**
+     * @param T input text (copied)
+     * @param mode construction mode
+     */
+    public ImmutableIndex(byte[] T, SuffixArray.Mode mode) {
+        this(T, mode, 0);
+    }
+
+    /**
+     * @param T input text (copied)
+     * @param mode construction mode
+     * @param prefixLength k of the prefix table, or 0 for no table
+     */
+    public ImmutableIndex(byte[] T, SuffixArray.Mode mode, int prefixLength) {
+        byte[] text = Arrays.copyOf(T, T.length);
+        this.array = new SuffixArray(text, mode).getArray();
+        this.prefixTable = prefixLength == 0 ? null : new PrefixTable(text, prefixLength);
+        this.text = text;
+    }
+
+    /**
+     * @return length of the text
+     */
+    public int length() {
+        return text.length;
+    }
+
+    /**
+     * @param i index of SA
+     * @return start position of the i-th smallest suffix
+     */
+    public int position(int i) {
+        return array[i];
+    }
+
+    /**
+     * @param p position in the text
+     * @return byte of the text at p
+     */
+    public byte byteAt(int p) {
+        return text[p];
+    }
+
+    /**
+     * @return copy of SA
+     */
+    public int[] copyArray() {
+        return Arrays.copyOf(array, array.length);
+    }
+
+    /**
+     * @return prefix table, or null if the index has none
+     */
+    public PrefixTable getPrefixTable() {
+        return prefixTable;
+    }
+
+    /**
+     * @return first index of SA to search for pattern
+     */
+    private int start(byte[] pattern) {
+        return prefixTable == null ? 0 : prefixTable.start(pattern);
+    }
+
+    /**
+     * @return index of SA next to the last one to search for pattern
+     */
+    private int end(byte[] pattern) {
+        return prefixTable == null ? array.length : prefixTable.end(pattern);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return index of the first suffix which starts with pattern or is greater than pattern
+     */
+    public int lowerBound(byte[] pattern) {
+        return Search.lowerBound(text, array, start(pattern), end(pattern), pattern);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return index next to the last suffix which starts with pattern or is less than pattern
+     */
+    public int upperBound(byte[] pattern) {
+        return Search.upperBound(text, array, start(pattern), end(pattern), pattern);
+    }
+
+    /**
+     * Find the interval of suffixes which start with pattern.
+     * @param pattern pattern to search
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(byte[] pattern) {
+        int start = lowerBound(pattern);
+        return new Range(start, Search.upperBound(text, array, start, end(pattern), pattern));
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern
+     */
+    public int count(byte[] pattern) {
+        int start = lowerBound(pattern);
+        return Search.upperBound(text, array, start, end(pattern), pattern) - start;
+    }
+
+    /**
+     * Copy the start positions of occurrences of pattern, in the order of suffixes, into a buffer of the caller.
+     * @param pattern pattern to search
+     * @param positions buffer which receives the first positions.length occurrences
+     * @return number of occurrences of pattern, which may exceed positions.length
+     */
+    public int locate(byte[] pattern, int[] positions) {
+        int start = lowerBound(pattern);
+        int count = Search.upperBound(text, array, start, end(pattern), pattern) - start;
+        System.arraycopy(array, start, positions, 0, Math.min(count, positions.length));
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Binary format of index files written by {@link IndexWriter} and read by {@link MappedIndex}.
+ * All values are little-endian.
+ *
+ * <pre>
+ * header (40 bytes)
+ *   int  magic          "SA4J"
+ *   int  version
+ *   long n              length of the text
+ *   int  alphabetSize   256 for byte text
+ *   int  sectionCount
+ *   long textChecksum   CRC32 of the text
+ *   long reserved
+ * section table (sectionCount * 24 bytes)
+ *   int  type           SECTION_*
+ *   int  width          bytes per entry
+ *   long offset         from the start of the file, aligned to 8 bytes
+ *   long length         number of entries
+ * sections
+ *   SA      n entries of 4 (n &lt; 2^31), 5 or 8 bytes
+ *   LCP     n entries of 4 bytes; LCP[0] is 0 and LCP[i] is the longest common prefix of SA[i - 1] and SA[i]
+ *   BWT     one 8-byte entry (primary index) followed by n bytes
+ *   PREFIX  256^k + 1 entries of 4 bytes (k = 1, 2 or 3, by the number of entries); see {@link PrefixTable}
+ * </pre>
+ */
+final class IndexFormat {
+    /** "SA4J" in little-endian */
+    static final int MAGIC = 'S' | 'A' << 8 | '4' << 16 | 'J' << 24;
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 40;
+    static final int SECTION_ENTRY_SIZE = 24;
+
+    static final int SECTION_SA = 1;
+    static final int SECTION_LCP = 2;
+    static final int SECTION_BWT = 3;
+    static final int SECTION_PREFIX = 4;
+
+    private IndexFormat() {
+    }
+
+    static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
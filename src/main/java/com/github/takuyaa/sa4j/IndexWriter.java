@@ -0,0 +1,196 @@
+package com.github.takuyaa.sa4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a suffix array of byte text, and optionally its LCP array, BWT and prefix table, to an index file.
+ * The format is described in {@link IndexFormat}; files are read back by {@link MappedIndex}.
+ */
+public class IndexWriter {
+    /** entries per write buffer */
+    private static final int BUFFER_ENTRIES = 1 << 16;
+
+    private final byte[] text;
+    private final int[] SA;
+    private int[] LCP;
+    private byte[] BWT;
+    private int primaryIndex;
+    private PrefixTable prefixTable;
+
+    /**
+     * @param text input text
+     * @param SA suffix array of text
+     */
+    public IndexWriter(byte[] text, int[] SA) {
+        if (SA.length != text.length) {
+            throw new IllegalArgumentException("SA has " + SA.length + " entries for text of " + text.length + " bytes");
+        }
+        this.text = text;
+        this.SA = SA;
+    }
+
+    /**
+     * Add LCP section.
+     * @param LCP LCP array of SA (n entries)
+     * @return this writer
+     */
+    public IndexWriter setLCP(int[] LCP) {
+        if (LCP.length != text.length) {
+            throw new IllegalArgumentException("LCP has " + LCP.length + " entries for text of " + text.length + " bytes");
+        }
+        this.LCP = LCP;
+        return this;
+    }
+
+    /**
+     * Add BWT section.
+     * @param BWT Burrows-Wheeler transform of text (n bytes)
+     * @param primaryIndex primary index of BWT
+     * @return this writer
+     */
+    public IndexWriter setBWT(byte[] BWT, int primaryIndex) {
+        if (BWT.length != text.length) {
+            throw new IllegalArgumentException("BWT has " + BWT.length + " bytes for text of " + text.length + " bytes");
+        }
+        this.BWT = BWT;
+        this.primaryIndex = primaryIndex;
+        return this;
+    }
+
+    /**
+     * Add PREFIX section.
+     * @param prefixTable prefix table of text
+     * @return this writer
+     */
+    public IndexWriter setPrefixTable(PrefixTable prefixTable) {
+        if (prefixTable.length() != text.length) {
+            throw new IllegalArgumentException("prefix table has " + prefixTable.length() + " suffixes for text of " + text.length + " bytes");
+        }
+        this.prefixTable = prefixTable;
+        return this;
+    }
+
+    /**
+     * Write index file (an existing file is overwritten).
+     * @param file index file
+     */
+    public void write(File file) throws IOException {
+        RandomAccessFile f = new RandomAccessFile(file, "rw");
+        try {
+            f.setLength(0);
+            write(f.getChannel());
+        } finally {
+            f.close();
+        }
+    }
+
+    /**
+     * Write index from the start of channel.
+     * Section offsets are from the start of the file, where {@link MappedIndex} reads the header,
+     * so an index can't be written after other data.
+     * @param channel channel opened for writing, at position 0
+     * @throws IllegalArgumentException if channel is not at position 0
+     */
+    public void write(FileChannel channel) throws IOException {
+        if (channel.position() != 0) {
+            throw new IllegalArgumentException("index must be written from the start of the file: position " + channel.position());
+        }
+        int n = text.length;
+        int sectionCount = 1 + (LCP != null ? 1 : 0) + (BWT != null ? 1 : 0) + (prefixTable != null ? 1 : 0);
+
+        ByteBuffer header = ByteBuffer.allocate(IndexFormat.HEADER_SIZE + sectionCount * IndexFormat.SECTION_ENTRY_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(IndexFormat.MAGIC);
+        header.putInt(IndexFormat.VERSION);
+        header.putLong(n);
+        header.putInt(256);
+        header.putInt(sectionCount);
+        header.putLong(checksum(text));
+        header.putLong(0);
+
+        long offset = IndexFormat.align(header.capacity());
+        offset = putSection(header, IndexFormat.SECTION_SA, 4, offset, n);
+        if (LCP != null) {
+            offset = putSection(header, IndexFormat.SECTION_LCP, 4, offset, n);
+        }
+        if (BWT != null) {
+            offset = putSection(header, IndexFormat.SECTION_BWT, 1, offset, 8L + n);
+        }
+        if (prefixTable != null) {
+            putSection(header, IndexFormat.SECTION_PREFIX, 4, offset, prefixTable.starts().capacity());
+        }
+        header.flip();
+        writeFully(channel, header);
+
+        writeInts(channel, IndexFormat.align(header.capacity()), SA);
+        if (LCP != null) {
+            writeInts(channel, IndexFormat.align(channel.position()), LCP);
+        }
+        if (BWT != null) {
+            pad(channel, IndexFormat.align(channel.position()));
+            ByteBuffer pidx = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            pidx.putLong(0, primaryIndex);
+            writeFully(channel, pidx);
+            writeFully(channel, ByteBuffer.wrap(BWT));
+        }
+        if (prefixTable != null) {
+            writeInts(channel, IndexFormat.align(channel.position()), prefixTable.starts());
+        }
+    }
+
+    static long checksum(byte[] text) {
+        CRC32 crc = new CRC32();
+        crc.update(text, 0, text.length);
+        return crc.getValue();
+    }
+
+    private static long putSection(ByteBuffer header, int type, int width, long offset, long length) {
+        header.putInt(type);
+        header.putInt(width);
+        header.putLong(offset);
+        header.putLong(length);
+        return IndexFormat.align(offset + width * length);
+    }
+
+    private static void writeInts(FileChannel channel, long offset, int[] values) throws IOException {
+        writeInts(channel, offset, IntBuffer.wrap(values));
+    }
+
+    /**
+     * Write the remaining entries of values; its position is moved to the limit.
+     */
+    private static void writeInts(FileChannel channel, long offset, IntBuffer values) throws IOException {
+        pad(channel, offset);
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Math.min(BUFFER_ENTRIES, Math.max(1, values.remaining()))).order(ByteOrder.LITTLE_ENDIAN);
+        while (values.hasRemaining()) {
+            buffer.clear();
+            int length = Math.min(values.remaining(), BUFFER_ENTRIES);
+            IntBuffer chunk = values.duplicate();
+            chunk.limit(chunk.position() + length);
+            buffer.asIntBuffer().put(chunk);
+            values.position(values.position() + length);
+            buffer.limit(4 * length);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void pad(FileChannel channel, long offset) throws IOException {
+        long padding = offset - channel.position();
+        if (padding > 0) {
+            writeFully(channel, ByteBuffer.allocate((int) padding));
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
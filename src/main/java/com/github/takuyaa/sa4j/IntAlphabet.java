@@ -0,0 +1,101 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+
+/**
+ * Alphabet of int input, such as token ids of a vocabulary.
+ * SA-IS takes 16 bytes per character value for buckets (count, pointers, and head and tail pointers of each level),
+ * so that a text whose values are sparse, negative or much larger than the text is sorted through dense ranks:
+ * rank r is the r-th smallest value in the text, which keeps the order of suffixes.
+ * Small non-negative alphabets are sorted as they are, without the copy of ranks.
+ */
+final class IntAlphabet {
+    /** max character value which is sorted without ranks, whatever the length of the text (1 MB of buckets) */
+    static final int MIN_DIRECT_MAX_VALUE = (1 << 16) - 1;
+
+    /** text to sort; input itself, or ranks of its characters */
+    final int[] text;
+    /** max character value of text */
+    final int k;
+
+    private IntAlphabet(int[] text, int k) {
+        this.text = text;
+        this.k = k;
+    }
+
+    /**
+     * @param T input text
+     * @param n length of the text
+     * @return T itself if its alphabet is small enough, otherwise ranks of T[0..n-1]
+     */
+    static IntAlphabet of(int[] T, int n) {
+        if (n == 0) {
+            return new IntAlphabet(T, 0);
+        }
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            min = Math.min(min, T[i]);
+            max = Math.max(max, T[i]);
+        }
+        // buckets of the input alphabet take no more memory than the ranks (4n bytes)
+        if (min >= 0 && max <= Math.max(n / 4, MIN_DIRECT_MAX_VALUE)) {
+            return new IntAlphabet(T, max);
+        }
+        long range = (long) max - min + 1;
+        return isBitmapRange(range, n) ? rankByBitmap(T, n, min, (int) range) : rankBySorting(T, n);
+    }
+
+    /**
+     * @param range number of values in [min, max], up to 2^32
+     * @return whether the bitmap over the range takes no more memory than the ranks, and its size fits in int
+     */
+    static boolean isBitmapRange(long range, int n) {
+        return range <= 8L * n && range <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Rank values by a bitmap over [min, max], which takes range / 8 bytes and range / 16 bytes of popcounts.
+     */
+    private static IntAlphabet rankByBitmap(int[] T, int n, int min, int range) {
+        long[] bits = new long[(range + 63) >>> 6];
+        for (int i = 0; i < n; i++) {
+            int v = (int) ((long) T[i] - min);
+            bits[v >>> 6] |= 1L << v;
+        }
+        // ranks[w] is the number of values below word w
+        int[] ranks = new int[bits.length];
+        int sigma = 0;
+        for (int w = 0; w < bits.length; w++) {
+            ranks[w] = sigma;
+            sigma += Long.bitCount(bits[w]);
+        }
+        int[] text = new int[n];
+        for (int i = 0; i < n; i++) {
+            int v = (int) ((long) T[i] - min);
+            text[i] = ranks[v >>> 6] + Long.bitCount(bits[v >>> 6] & ((1L << v) - 1));
+        }
+        return new IntAlphabet(text, sigma - 1);
+    }
+
+    /**
+     * Rank values by binary search over the sorted distinct values, for alphabets which are sparse over a wide range.
+     */
+    private static IntAlphabet rankBySorting(int[] T, int n) {
+        int[] values = Arrays.copyOf(T, n);
+        Arrays.sort(values);
+        int sigma = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[sigma++] = values[i];
+            }
+        }
+        // values is reused for the ranks
+        int[] text = values;
+        int[] distinct = Arrays.copyOf(values, sigma);
+        for (int i = 0; i < n; i++) {
+            text[i] = Arrays.binarySearch(distinct, T[i]);
+        }
+        return new IntAlphabet(text, sigma - 1);
+    }
+}
@@ -0,0 +1,325 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Linear-time construction of LCP arrays.
+ * LCP[0] is 0 and LCP[i] is the length of the longest common prefix of suffixes SA[i - 1] and SA[i].
+ *
+ * Two algorithms are provided:
+ * Kasai et al. takes an inverse suffix array besides the result,
+ * and the Phi algorithm of Karkkainen, Manzini and Puglisi computes the permuted LCP array (PLCP) in text order.
+ * Both take 8n bytes to construct LCP, while PLCP alone takes only 4n bytes of its result.
+ */
+public final class LCP {
+    /** log2 of text positions per block of {@link #phi(int[], int[], int, BlockPLCP)}: 128K positions take 512 KB of Phi */
+    private static final int PHI_BLOCK_SHIFT = 17;
+    private static final int PHI_BLOCK = 1 << PHI_BLOCK_SHIFT;
+    /** entries by which each block of pairs starts later than the previous one, so that the blocks don't share cache sets */
+    private static final int PHI_BLOCK_STAGGER = 16 * 37;
+
+    /**
+     * Computes PLCP of a block of text positions from their Phi, in place.
+     */
+    private interface BlockPLCP {
+        /**
+         * @param phi Phi[from, from + length), replaced by PLCP[from, from + length)
+         * @param l lower bound of PLCP[from] minus 1, which is PLCP[from - 1] - 1 (or 0)
+         * @return the bound for the next block
+         */
+        int compute(int[] phi, int from, int length, int l);
+    }
+
+    private LCP() {
+    }
+
+    /**
+     * Construct LCP array by the algorithm of Kasai et al.
+     * @param T input text
+     * @param SA suffix array of T
+     * @return LCP array
+     */
+    public static int[] kasai(byte[] T, int[] SA) {
+        int n = T.length;
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[SA[i]] = i;
+        }
+        int[] LCP = new int[n];
+        int l = 0;
+        for (int i = 0; i < n; i++) {
+            int r = rank[i];
+            if (r == 0) {
+                l = 0;
+                continue;
+            }
+            int j = SA[r - 1];
+            while (i + l < n && j + l < n && T[i + l] == T[j + l]) {
+                l++;
+            }
+            LCP[r] = l;
+            if (l > 0) {
+                l--;
+            }
+        }
+        return LCP;
+    }
+
+    /**
+     * Construct LCP array by the algorithm of Kasai et al.
+     * @param T input text
+     * @param SA suffix array of T
+     * @return LCP array
+     */
+    public static int[] kasai(String T, int[] SA) {
+        int n = T.length();
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[SA[i]] = i;
+        }
+        int[] LCP = new int[n];
+        int l = 0;
+        for (int i = 0; i < n; i++) {
+            int r = rank[i];
+            if (r == 0) {
+                l = 0;
+                continue;
+            }
+            int j = SA[r - 1];
+            while (i + l < n && j + l < n && T.charAt(i + l) == T.charAt(j + l)) {
+                l++;
+            }
+            LCP[r] = l;
+            if (l > 0) {
+                l--;
+            }
+        }
+        return LCP;
+    }
+
+    /**
+     * Construct LCP array by the Phi algorithm.
+     * It is faster than {@link #kasai(byte[], int[])} with the same peak memory,
+     * since it works on blocks of text positions which fit in cache, and only T is accessed at random.
+     * @param T input text
+     * @param SA suffix array of T
+     * @return LCP array
+     */
+    public static int[] phi(byte[] T, int[] SA) {
+        int[] LCP = new int[T.length];
+        phi(T, SA, LCP, T.length);
+        return LCP;
+    }
+
+    /**
+     * Construct LCP array by the Phi algorithm.
+     * @param T input text
+     * @param SA suffix array of T
+     * @return LCP array
+     */
+    public static int[] phi(String T, int[] SA) {
+        int[] LCP = new int[T.length()];
+        phi(T, SA, LCP, T.length());
+        return LCP;
+    }
+
+    /**
+     * Construct LCP array by the Phi algorithm.
+     * @param T input text
+     * @param SA suffix array of T
+     * @return LCP array
+     */
+    public static int[] phi(int[] T, int[] SA) {
+        int n = T.length;
+        int[] LCP = new int[n];
+        phi(SA, LCP, n, (phi, from, length, l) -> plcp(T, phi, from, length, n, l));
+        return LCP;
+    }
+
+    /**
+     * Construct permuted LCP array by the Phi algorithm, which takes no memory besides the result.
+     * PLCP is in text order: PLCP[SA[i]] = LCP[i].
+     * @param T input text
+     * @param SA suffix array of T
+     * @return PLCP array
+     */
+    public static int[] plcp(byte[] T, int[] SA) {
+        int[] PLCP = new int[T.length];
+        setPhi(SA, PLCP, T.length);
+        plcp(T, PLCP, 0, T.length, T.length, 0);
+        return PLCP;
+    }
+
+    /**
+     * Construct permuted LCP array by the Phi algorithm, which takes no memory besides the result.
+     * PLCP is in text order: PLCP[SA[i]] = LCP[i].
+     * @param T input text
+     * @param SA suffix array of T
+     * @return PLCP array
+     */
+    public static int[] plcp(String T, int[] SA) {
+        int[] PLCP = new int[T.length()];
+        setPhi(SA, PLCP, T.length());
+        plcp(T, PLCP, 0, T.length(), T.length(), 0);
+        return PLCP;
+    }
+
+    /**
+     * Construct LCP array of T[0..n-1] into given buffer.
+     * @param LCP buffer of at least n entries
+     */
+    static void phi(byte[] T, int[] SA, int[] LCP, int n) {
+        phi(SA, LCP, n, (phi, from, length, l) -> plcp(T, phi, from, length, n, l));
+    }
+
+    /**
+     * Construct LCP array of T[0..n-1] into given buffer.
+     * @param LCP buffer of at least n entries
+     */
+    static void phi(String T, int[] SA, int[] LCP, int n) {
+        phi(SA, LCP, n, (phi, from, length, l) -> plcp(T, phi, from, length, n, l));
+    }
+
+    /**
+     * LCP[i] = PLCP[SA[i]], computed block by block of {@link #PHI_BLOCK} text positions.
+     * One pass over SA distributes the pairs (SA[i], SA[i - 1]) to the blocks of SA[i] in the order of i,
+     * with SA[i] in a buffer of n entries and SA[i - 1] at the same index of LCP.
+     * The pairs of a block start at a staggered offset and wrap around within the block.
+     * Each block then sets its Phi and PLCP in cache, and replaces SA[i] of its pairs by PLCP[SA[i]].
+     * A last pass over SA takes LCP[i] from the block of SA[i] in turn, so that no pass goes at random over n entries.
+     */
+    private static void phi(int[] SA, int[] LCP, int n, BlockPLCP text) {
+        if (n == 0) {
+            return;
+        }
+        int blocks = ((n - 1) >>> PHI_BLOCK_SHIFT) + 1;
+        int[] pointers = new int[blocks];
+        int[] ends = new int[blocks];
+        setPointers(pointers, ends, n);
+        int[] values = new int[n];
+        int prev = -1;
+        for (int i = 0; i < n; i++) {
+            int p = SA[i];
+            int b = p >>> PHI_BLOCK_SHIFT;
+            int q = pointers[b];
+            values[q] = p;
+            LCP[q] = prev;
+            pointers[b] = ++q == ends[b] ? b << PHI_BLOCK_SHIFT : q;
+            prev = p;
+        }
+
+        int[] phi = new int[Math.min(n, PHI_BLOCK)];
+        int l = 0;
+        for (int from = 0; from < n; from += PHI_BLOCK) {
+            int to = Math.min(n, from + PHI_BLOCK);
+            for (int q = from; q < to; q++) {
+                phi[values[q] - from] = LCP[q];
+            }
+            l = text.compute(phi, from, to - from, l);
+            for (int q = from; q < to; q++) {
+                values[q] = phi[values[q] - from];
+            }
+        }
+
+        setPointers(pointers, ends, n);
+        for (int i = 0; i < n; i++) {
+            int b = SA[i] >>> PHI_BLOCK_SHIFT;
+            int q = pointers[b];
+            LCP[i] = values[q];
+            pointers[b] = ++q == ends[b] ? b << PHI_BLOCK_SHIFT : q;
+        }
+    }
+
+    /**
+     * Set the first and end entries of the pairs of each block.
+     */
+    private static void setPointers(int[] pointers, int[] ends, int n) {
+        for (int b = 0; b < pointers.length; b++) {
+            int from = b << PHI_BLOCK_SHIFT;
+            int length = Math.min(PHI_BLOCK, n - from);
+            pointers[b] = from + (int) ((long) b * PHI_BLOCK_STAGGER % length);
+            ends[b] = from + length;
+        }
+    }
+
+    /**
+     * PLCP of T[from, from + length) from its Phi, in place.
+     * PLCP[i] >= PLCP[i - 1] - 1, so that the comparisons take O(n) in total.
+     * @param phi Phi[from, from + length), where Phi[i] is the suffix preceding i in SA, or -1
+     * @param l PLCP[from - 1] - 1, or 0
+     * @return PLCP[from + length - 1] - 1, or 0
+     */
+    private static int plcp(byte[] T, int[] phi, int from, int length, int n, int l) {
+        for (int k = 0; k < length; k++) {
+            int i = from + k;
+            int j = phi[k];
+            if (j < 0) {
+                phi[k] = l = 0;
+                continue;
+            }
+            while (i + l < n && j + l < n && T[i + l] == T[j + l]) {
+                l++;
+            }
+            phi[k] = l;
+            if (l > 0) {
+                l--;
+            }
+        }
+        return l;
+    }
+
+    /**
+     * PLCP of T[from, from + length) from its Phi, in place.
+     */
+    private static int plcp(String T, int[] phi, int from, int length, int n, int l) {
+        for (int k = 0; k < length; k++) {
+            int i = from + k;
+            int j = phi[k];
+            if (j < 0) {
+                phi[k] = l = 0;
+                continue;
+            }
+            while (i + l < n && j + l < n && T.charAt(i + l) == T.charAt(j + l)) {
+                l++;
+            }
+            phi[k] = l;
+            if (l > 0) {
+                l--;
+            }
+        }
+        return l;
+    }
+
+    /**
+     * PLCP of T[from, from + length) from its Phi, in place.
+     */
+    private static int plcp(int[] T, int[] phi, int from, int length, int n, int l) {
+        for (int k = 0; k < length; k++) {
+            int i = from + k;
+            int j = phi[k];
+            if (j < 0) {
+                phi[k] = l = 0;
+                continue;
+            }
+            while (i + l < n && j + l < n && T[i + l] == T[j + l]) {
+                l++;
+            }
+            phi[k] = l;
+            if (l > 0) {
+                l--;
+            }
+        }
+        return l;
+    }
+
+    /**
+     * Phi[SA[i]] = SA[i - 1], and -1 for the smallest suffix.
+     */
+    private static void setPhi(int[] SA, int[] phi, int n) {
+        if (n == 0) {
+            return;
+        }
+        phi[SA[0]] = -1;
+        for (int i = 1; i < n; i++) {
+            phi[SA[i]] = SA[i - 1];
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Search of byte patterns over {@link SuffixArray} with the LCP-LR tables of Manber and Myers,
+ * which bound a search to O(m + log n) character comparisons in the worst case (SuffixArray's own search,
+ * with the lcp of the interval ends only, takes O(m log n) at worst, e.g. on highly repetitive text).
+ *
+ * The binary search visits the same midpoints for every pattern, so the lcp of each midpoint with both ends
+ * of its interval is precomputed from the LCP array: the tables take 8n bytes besides SA.
+ * A comparison then starts from the larger of the lcps of the pattern with the interval ends,
+ * and never compares a character of the pattern which is known to match again.
+ * The tables are built once and only read, so a search can be shared by threads.
+ */
+public final class LCPLRSearch {
+    private final byte[] text;
+    private final int[] array;
+    /** Llcp[mid] is the lcp of SA[mid] with the low end of its interval (0 for the virtual end before SA) */
+    private final int[] Llcp;
+    /** Rlcp[mid] is the lcp of SA[mid] with the high end of its interval (0 for the virtual end after SA) */
+    private final int[] Rlcp;
+
+    /**
+     * @param SA suffix array built from byte[]
+     */
+    public LCPLRSearch(SuffixArray SA) {
+        this(SA.bytes(), SA.getArray(), SA.computeLCP());
+    }
+
+    /**
+     * @param LCP LCP array of SA; LCP[i] is the lcp of SA[i - 1] and SA[i]
+     */
+    LCPLRSearch(byte[] T, int[] SA, int[] LCP) {
+        int n = SA.length;
+        this.text = T;
+        this.array = SA;
+        this.Llcp = new int[n];
+        this.Rlcp = new int[n];
+        build(LCP, -1, n, n);
+    }
+
+    /**
+     * Fill the tables of the midpoints in (lo, hi).
+     * @return lcp of SA[lo] and SA[hi], or 0 if either is a virtual end
+     */
+    private int build(int[] LCP, int lo, int hi, int n) {
+        if (hi - lo == 1) {
+            return lo < 0 || hi == n ? 0 : LCP[hi];
+        }
+        int mid = (lo + hi) >>> 1;
+        int l = build(LCP, lo, mid, n);
+        int r = build(LCP, mid, hi, n);
+        Llcp[mid] = l;
+        Rlcp[mid] = r;
+        return lo < 0 || hi == n ? 0 : Math.min(l, r);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return index of the first suffix which starts with pattern or is greater than pattern
+     */
+    public int lowerBound(byte[] pattern) {
+        return Search.search(text, array, Llcp, Rlcp, pattern, false);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return index next to the last suffix which starts with pattern or is less than pattern
+     */
+    public int upperBound(byte[] pattern) {
+        return Search.search(text, array, Llcp, Rlcp, pattern, true);
+    }
+
+    /**
+     * Find the interval of suffixes which start with pattern.
+     * @param pattern pattern to search
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(byte[] pattern) {
+        return new Range(lowerBound(pattern), upperBound(pattern));
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern
+     */
+    public int count(byte[] pattern) {
+        return upperBound(pattern) - lowerBound(pattern);
+    }
+
+    /**
+     * @return heap size of the tables in bytes
+     */
+    public long sizeInBytes() {
+        return 8L * array.length;
+    }
+}
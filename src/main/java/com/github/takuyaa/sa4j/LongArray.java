@@ -0,0 +1,50 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Array of signed values indexed by long, for inputs larger than 2 GiB.
+ * Implementations differ in storage (long[][] chunks, 40-bit packed chunks, ...).
+ */
+abstract class LongArray {
+    /**
+     * @param i index
+     * @return value at index i
+     */
+    abstract long get(long i);
+
+    /**
+     * @param i index
+     * @param value value to set at index i
+     */
+    abstract void set(long i, long value);
+
+    /**
+     * @return number of entries
+     */
+    abstract long length();
+
+    /**
+     * Subarray which starts at given offset and shares storage with this array.
+     * @param offset start index of the view
+     * @return view of this array
+     */
+    abstract LongArray view(long offset);
+
+    /**
+     * Add value to the entry at index i.
+     * @return updated value
+     */
+    long update(long i, long value) {
+        long updated = get(i) + value;
+        set(i, updated);
+        return updated;
+    }
+
+    /**
+     * Fill entries [from, to) with value.
+     */
+    void fill(long from, long to, long value) {
+        for (long i = from; i < to; i++) {
+            set(i, value);
+        }
+    }
+}
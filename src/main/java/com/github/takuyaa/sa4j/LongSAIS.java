@@ -0,0 +1,363 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * In-place SA-IS with long indexes.
+ * This is a port of SA_IS in {@link sais} whose arrays are {@link LongArray}s,
+ * so that both the text and SA can exceed 2^31 entries.
+ * Buckets and reduced problems are kept in the free space of SA in the same way as sais.
+ */
+final class LongSAIS {
+    private LongSAIS() {
+    }
+
+    /**
+     * Construct suffix array of T[0..n-1] in {0..k-1}^n and set to SA.
+     * @param T input string
+     * @param SA suffix array to construct (at least n entries)
+     * @param n length of T
+     * @param k alphabet size
+     */
+    static void suffixsort(LongArray T, LongArray SA, long n, long k) {
+        if (n <= 1) {
+            if (n == 1) {
+                SA.set(0, 0);
+            }
+            return;
+        }
+        SA_IS(T, SA, 0, n, k);
+    }
+
+    /* find the start or end of each bucket */
+    private static void getCounts(LongArray T, LongArray C, long n, long k) {
+        C.fill(0, k, 0);
+        for (long i = 0; i < n; ++i) {
+            C.update(T.get(i), 1);
+        }
+    }
+
+    private static void getBuckets(LongArray C, LongArray B, long k, boolean end) {
+        long sum = 0;
+        if (end) {
+            for (long i = 0; i < k; ++i) {
+                sum += C.get(i);
+                B.set(i, sum);
+            }
+        } else {
+            for (long i = 0; i < k; ++i) {
+                long c = C.get(i);
+                sum += c;
+                B.set(i, sum - c);
+            }
+        }
+    }
+
+    /* sort all type LMS suffixes */
+    private static void LMSsort(LongArray T, LongArray SA, LongArray C, LongArray B, long n, long k) {
+        long b, i, j;
+        long c0, c1;
+        /* compute SAl */
+        if (C == B) {
+            getCounts(T, C, n, k);
+        }
+        getBuckets(C, B, k, false); /* find starts of buckets */
+        j = n - 1;
+        b = B.get(c1 = T.get(j));
+        --j;
+        SA.set(b++, (T.get(j) < c1) ? ~j : j);
+        for (i = 0; i < n; ++i) {
+            if (0 < (j = SA.get(i))) {
+                if ((c0 = T.get(j)) != c1) {
+                    B.set(c1, b);
+                    b = B.get(c1 = c0);
+                }
+                --j;
+                SA.set(b++, (T.get(j) < c1) ? ~j : j);
+                SA.set(i, 0);
+            } else if (j < 0) {
+                SA.set(i, ~j);
+            }
+        }
+        /* compute SAs */
+        if (C == B) {
+            getCounts(T, C, n, k);
+        }
+        getBuckets(C, B, k, true); /* find ends of buckets */
+        for (i = n - 1, b = B.get(c1 = 0); 0 <= i; --i) {
+            if (0 < (j = SA.get(i))) {
+                if ((c0 = T.get(j)) != c1) {
+                    B.set(c1, b);
+                    b = B.get(c1 = c0);
+                }
+                --j;
+                SA.set(--b, (T.get(j) > c1) ? ~(j + 1) : j);
+                SA.set(i, 0);
+            }
+        }
+    }
+
+    private static long LMSpostproc(LongArray T, LongArray SA, long n, long m) {
+        long i, j, p, q, plen, qlen, name;
+        long c0, c1;
+        boolean diff;
+
+        /* compact all the sorted substrings into the first m items of SA
+           2*m must be not larger than n (proveable) */
+        for (i = 0; (p = SA.get(i)) < 0; ++i) {
+            SA.set(i, ~p);
+        }
+        if (i < m) {
+            for (j = i, ++i; ; ++i) {
+                if ((p = SA.get(i)) < 0) {
+                    SA.set(j++, ~p);
+                    SA.set(i, 0);
+                    if (j == m) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        /* store the length of all substrings */
+        i = n - 1;
+        j = n - 1;
+        c0 = T.get(n - 1);
+        do {
+            c1 = c0;
+        } while ((0 <= --i) && ((c0 = T.get(i)) >= c1));
+        for (; 0 <= i; ) {
+            do {
+                c1 = c0;
+            } while ((0 <= --i) && ((c0 = T.get(i)) <= c1));
+            if (0 <= i) {
+                SA.set(m + ((i + 1) >> 1), j - i);
+                j = i + 1;
+                do {
+                    c1 = c0;
+                } while ((0 <= --i) && ((c0 = T.get(i)) >= c1));
+            }
+        }
+
+        /* find the lexicographic names of all substrings */
+        for (i = 0, name = 0, q = n, qlen = 0; i < m; ++i) {
+            p = SA.get(i);
+            plen = SA.get(m + (p >> 1));
+            diff = true;
+            if ((plen == qlen) && ((q + plen) < n)) {
+                for (j = 0; (j < plen) && (T.get(p + j) == T.get(q + j)); ++j) {
+                }
+                if (j == plen) {
+                    diff = false;
+                }
+            }
+            if (diff) {
+                ++name;
+                q = p;
+                qlen = plen;
+            }
+            SA.set(m + (p >> 1), name);
+        }
+
+        return name;
+    }
+
+    /* compute SA */
+    private static void induceSA(LongArray T, LongArray SA, LongArray C, LongArray B, long n, long k) {
+        long b, i, j;
+        long c0, c1;
+        /* compute SAl */
+        if (C == B) {
+            getCounts(T, C, n, k);
+        }
+        getBuckets(C, B, k, false); /* find starts of buckets */
+        j = n - 1;
+        b = B.get(c1 = T.get(j));
+        SA.set(b++, ((0 < j) && (T.get(j - 1) < c1)) ? ~j : j);
+        for (i = 0; i < n; ++i) {
+            j = SA.get(i);
+            SA.set(i, ~j);
+            if (0 < j) {
+                if ((c0 = T.get(--j)) != c1) {
+                    B.set(c1, b);
+                    b = B.get(c1 = c0);
+                }
+                SA.set(b++, ((0 < j) && (T.get(j - 1) < c1)) ? ~j : j);
+            }
+        }
+        /* compute SAs */
+        if (C == B) {
+            getCounts(T, C, n, k);
+        }
+        getBuckets(C, B, k, true); /* find ends of buckets */
+        for (i = n - 1, b = B.get(c1 = 0); 0 <= i; --i) {
+            if (0 < (j = SA.get(i))) {
+                if ((c0 = T.get(--j)) != c1) {
+                    B.set(c1, b);
+                    b = B.get(c1 = c0);
+                }
+                SA.set(--b, ((j == 0) || (T.get(j - 1) > c1)) ? ~j : j);
+            } else {
+                SA.set(i, ~j);
+            }
+        }
+    }
+
+    /* find the suffix array SA of T[0..n-1] in {0..k-1}^n
+       use a working space (excluding T and SA) of at most 2n+O(1) for a constant alphabet */
+    private static void SA_IS(LongArray T, LongArray SA, long fs, long n, long k) {
+        LongArray C, B, RA;
+        long i, j, b, m, p, q, name, newfs;
+        long c0, c1;
+        int flags;
+
+        if (k <= 256) {
+            C = new ChunkedLongArray(k);
+            if (k <= fs) {
+                B = SA.view(n + fs - k);
+                flags = 1;
+            } else {
+                B = new ChunkedLongArray(k);
+                flags = 3;
+            }
+        } else if (k <= fs) {
+            C = SA.view(n + fs - k);
+            if (k <= (fs - k)) {
+                B = SA.view(n + fs - k * 2);
+                flags = 0;
+            } else if (k <= 1024) {
+                B = new ChunkedLongArray(k);
+                flags = 2;
+            } else {
+                B = C;
+                flags = 8;
+            }
+        } else {
+            C = B = new ChunkedLongArray(k);
+            flags = 4 | 8;
+        }
+
+        /* stage 1: reduce the problem by at least 1/2
+           sort all the LMS-substrings */
+        getCounts(T, C, n, k);
+        getBuckets(C, B, k, true); /* find ends of buckets */
+        SA.fill(0, n, 0);
+        b = -1;
+        i = n - 1;
+        j = n;
+        m = 0;
+        c0 = T.get(n - 1);
+        do {
+            c1 = c0;
+        } while ((0 <= --i) && ((c0 = T.get(i)) >= c1));
+        for (; 0 <= i; ) {
+            do {
+                c1 = c0;
+            } while ((0 <= --i) && ((c0 = T.get(i)) <= c1));
+            if (0 <= i) {
+                if (0 <= b) {
+                    SA.set(b, j);
+                }
+                b = B.update(c1, -1);
+                j = i;
+                ++m;
+                do {
+                    c1 = c0;
+                } while ((0 <= --i) && ((c0 = T.get(i)) >= c1));
+            }
+        }
+        if (1 < m) {
+            LMSsort(T, SA, C, B, n, k);
+            name = LMSpostproc(T, SA, n, m);
+        } else if (m == 1) {
+            SA.set(b, j + 1);
+            name = 1;
+        } else {
+            name = 0;
+        }
+
+        /* stage 2: solve the reduced problem
+           recurse if names are not yet unique */
+        if (name < m) {
+            if ((flags & 4) != 0) {
+                C = null;
+                B = null;
+            }
+            if ((flags & 2) != 0) {
+                B = null;
+            }
+            newfs = (n + fs) - (m * 2);
+            if ((flags & (1 | 4 | 8)) == 0) {
+                if ((k + name) <= newfs) {
+                    newfs -= k;
+                } else {
+                    flags |= 8;
+                }
+            }
+            for (i = m + (n >> 1) - 1, j = m * 2 + newfs - 1; m <= i; --i) {
+                if (SA.get(i) != 0) {
+                    SA.set(j--, SA.get(i) - 1);
+                }
+            }
+            RA = SA.view(m + newfs);
+            SA_IS(RA, SA, newfs, m, name);
+            RA = null;
+
+            i = n - 1;
+            j = m * 2 - 1;
+            c0 = T.get(n - 1);
+            do {
+                c1 = c0;
+            } while ((0 <= --i) && ((c0 = T.get(i)) >= c1));
+            for (; 0 <= i; ) {
+                do {
+                    c1 = c0;
+                } while ((0 <= --i) && ((c0 = T.get(i)) <= c1));
+                if (0 <= i) {
+                    SA.set(j--, i + 1);
+                    do {
+                        c1 = c0;
+                    } while ((0 <= --i) && ((c0 = T.get(i)) >= c1));
+                }
+            }
+
+            for (i = 0; i < m; ++i) {
+                SA.set(i, SA.get(m + SA.get(i)));
+            }
+            if ((flags & 4) != 0) {
+                C = B = new ChunkedLongArray(k);
+            }
+            if ((flags & 2) != 0) {
+                B = new ChunkedLongArray(k);
+            }
+        }
+
+        /* stage 3: induce the result for the original problem */
+        if ((flags & 8) != 0) {
+            getCounts(T, C, n, k);
+        }
+        /* put all left-most S characters into their buckets */
+        if (1 < m) {
+            getBuckets(C, B, k, true); /* find ends of buckets */
+            i = m - 1;
+            j = n;
+            p = SA.get(m - 1);
+            c1 = T.get(p);
+            do {
+                q = B.get(c0 = c1);
+                while (q < j) {
+                    SA.set(--j, 0);
+                }
+                do {
+                    SA.set(--j, p);
+                    if (--i < 0) {
+                        break;
+                    }
+                    p = SA.get(i);
+                } while ((c1 = T.get(p)) == c0);
+            } while (0 <= i);
+            while (0 < j) {
+                SA.set(--j, 0);
+            }
+        }
+        induceSA(T, SA, C, B, n, k);
+    }
+}
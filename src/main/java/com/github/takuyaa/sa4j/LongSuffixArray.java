@@ -0,0 +1,71 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Suffix array with long indexes, for texts larger than 2 GiB.
+ * The text is given as byte[] chunks, and SA is built in place by a long-indexed port of the SA-IS of {@link sais}.
+ */
+public class LongSuffixArray {
+    /**
+     * Storage of SA entries.
+     */
+    public enum Layout {
+        /** long[][] chunks, 8 bytes per entry */
+        LONG,
+        /** 40-bit packed byte[][] chunks, 5 bytes per entry (texts up to 2^39 - 1 bytes) */
+        PACKED40
+    }
+
+    final LongArray array;
+
+    /**
+     * Construct suffix array of the concatenation of chunks with {@link Layout#LONG} storage.
+     * @param chunks input text; all chunks but the last must have the same length, which is a power of two
+     */
+    public LongSuffixArray(byte[][] chunks) {
+        this(chunks, Layout.LONG);
+    }
+
+    /**
+     * Construct suffix array of the concatenation of chunks.
+     * @param chunks input text; all chunks but the last must have the same length, which is a power of two
+     * @param layout storage of SA entries
+     */
+    public LongSuffixArray(byte[][] chunks, Layout layout) {
+        this(chunks, layout, layout == Layout.LONG ? ChunkedLongArray.DEFAULT_SHIFT : PackedLongArray.DEFAULT_SHIFT);
+    }
+
+    LongSuffixArray(byte[][] chunks, Layout layout, int shift) {
+        LongArray T = new ChunkedByteArray(chunks);
+        long n = T.length();
+
+        LongArray SA;
+        if (layout == Layout.LONG) {
+            SA = new ChunkedLongArray(n, shift);
+        } else {
+            if (n > PackedLongArray.MAX_VALUE) {
+                throw new IllegalArgumentException("text is too large for 40-bit entries: " + n + " bytes");
+            }
+            SA = new PackedLongArray(n, shift);
+        }
+        LongSAIS.suffixsort(T, SA, n, 256);
+        this.array = SA;
+    }
+
+    /**
+     * @return number of suffixes (length of the text)
+     */
+    public long length() {
+        return array.length();
+    }
+
+    /**
+     * @param i rank of suffix
+     * @return start position of the i-th smallest suffix
+     */
+    public long get(long i) {
+        if (i < 0 || i >= array.length()) {
+            throw new IndexOutOfBoundsException("index: " + i + ", length: " + array.length());
+        }
+        return array.get(i);
+    }
+}
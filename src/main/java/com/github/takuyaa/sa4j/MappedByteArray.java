@@ -0,0 +1,59 @@
+package com.github.takuyaa.sa4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only LongArray over text in a memory-mapped file (characters are unsigned, 0 to 255).
+ * Files larger than 2 GiB are mapped in segments of 2^shift bytes.
+ */
+final class MappedByteArray extends LongArray {
+    /** 2^30 bytes (1 GiB) per segment */
+    static final int DEFAULT_SHIFT = 30;
+
+    private final ByteBuffer[] segments;
+    private final int shift;
+    private final long mask;
+    private final long length;
+
+    MappedByteArray(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_SHIFT);
+    }
+
+    MappedByteArray(FileChannel channel, int shift) throws IOException {
+        long length = channel.size();
+        long segmentLength = 1L << shift;
+        this.segments = new ByteBuffer[(int) ((length + segmentLength - 1) >>> shift)];
+        for (int s = 0; s < segments.length; s++) {
+            long position = (long) s << shift;
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentLength, length - position));
+        }
+        this.shift = shift;
+        this.mask = segmentLength - 1;
+        this.length = length;
+    }
+
+    MappedByteArray(ByteBuffer buffer) {
+        this.segments = new ByteBuffer[]{buffer.slice()};
+        this.shift = 31;
+        this.mask = (1L << shift) - 1;
+        this.length = segments[0].remaining();
+    }
+
+    long get(long i) {
+        return segments[(int) (i >>> shift)].get((int) (i & mask)) & 0xff;
+    }
+
+    void set(long i, long value) {
+        throw new UnsupportedOperationException();
+    }
+
+    long length() {
+        return length;
+    }
+
+    LongArray view(long offset) {
+        throw new UnsupportedOperationException();
+    }
+}
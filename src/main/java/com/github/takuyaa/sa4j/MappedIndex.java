@@ -0,0 +1,354 @@
+package com.github.takuyaa.sa4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Index file written by {@link IndexWriter}, served from a read-only memory mapping.
+ * Opened with its text (a file or a buffer, which is mapped as well), it answers searches directly from the mappings.
+ * Opening only reads the header, so it takes the same time for any size of corpus;
+ * entries are read from the mapping on demand and never copied onto the heap, including the prefix table,
+ * which bounds the interval of SA searched for each pattern when the index has one.
+ */
+public class MappedIndex {
+    private final long n;
+    private final int alphabetSize;
+    private final long textChecksum;
+    final LongArray SA;
+    final LongArray LCP;
+    private final ByteBuffer BWT;
+    private final long primaryIndex;
+    private final PrefixTable prefixTable;
+    /** null if the index was opened without text */
+    private final LongArray text;
+
+    /**
+     * Open index file without text; searches are not available.
+     * @param file index file
+     * @throws IOException if the file can't be read or is not an index of a supported version
+     */
+    public MappedIndex(File file) throws IOException {
+        this(file, (LongArray) null);
+    }
+
+    /**
+     * Open index file with its text file, both memory-mapped.
+     * Only the length of the text is checked, so that opening doesn't read the whole text;
+     * use {@link #verify(ByteBuffer)} to check its checksum.
+     * @param file index file
+     * @param text text file of the index
+     * @throws IOException if a file can't be read, the index is not of a supported version, or the length of the text differs
+     */
+    public MappedIndex(File file, File text) throws IOException {
+        this(file, mapText(text));
+    }
+
+    /**
+     * Open index file with its text.
+     * @param file index file
+     * @param text remaining bytes are the text of the index, e.g. a MappedByteBuffer; its position is not changed
+     * @throws IOException if the file can't be read, the index is not of a supported version, or the length of the text differs
+     */
+    public MappedIndex(File file, ByteBuffer text) throws IOException {
+        this(file, new MappedByteArray(text));
+    }
+
+    private static LongArray mapText(File text) throws IOException {
+        RandomAccessFile f = new RandomAccessFile(text, "r");
+        try {
+            // mappings stay valid after the channel is closed
+            return new MappedByteArray(f.getChannel());
+        } finally {
+            f.close();
+        }
+    }
+
+    private MappedIndex(File file, LongArray text) throws IOException {
+        RandomAccessFile f = new RandomAccessFile(file, "r");
+        try {
+            // mappings stay valid after the channel is closed
+            FileChannel channel = f.getChannel();
+            long size = channel.size();
+            if (size < IndexFormat.HEADER_SIZE) {
+                throw new IOException(file + " is not a sa4j index");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, IndexFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != IndexFormat.MAGIC) {
+                throw new IOException(file + " is not a sa4j index");
+            }
+            int version = header.getInt(4);
+            if (version != IndexFormat.VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            this.n = header.getLong(8);
+            if (text != null && text.length() != n) {
+                throw new IOException(file + " is an index of " + n + " bytes, but the text has " + text.length() + " bytes");
+            }
+            this.text = text;
+            this.alphabetSize = header.getInt(16);
+            int sectionCount = header.getInt(20);
+            this.textChecksum = header.getLong(24);
+            if (n < 0 || sectionCount < 0
+                    || sectionCount > (size - IndexFormat.HEADER_SIZE) / IndexFormat.SECTION_ENTRY_SIZE) {
+                throw new IOException(file + " is corrupt");
+            }
+
+            ByteBuffer sections = channel.map(FileChannel.MapMode.READ_ONLY, IndexFormat.HEADER_SIZE,
+                    (long) sectionCount * IndexFormat.SECTION_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            LongArray SA = null;
+            LongArray LCP = null;
+            ByteBuffer BWT = null;
+            long primaryIndex = -1;
+            PrefixTable prefixTable = null;
+            for (int s = 0; s < sectionCount; s++) {
+                int p = s * IndexFormat.SECTION_ENTRY_SIZE;
+                int type = sections.getInt(p);
+                int width = sections.getInt(p + 4);
+                long offset = sections.getLong(p + 8);
+                long length = sections.getLong(p + 16);
+                if (width <= 0 || offset < 0 || offset > size || length < 0 || length > (size - offset) / width
+                        || type == IndexFormat.SECTION_BWT && length < 8) {
+                    throw new IOException(file + " is corrupt");
+                }
+                switch (type) {
+                    case IndexFormat.SECTION_SA:
+                        SA = new MappedLongArray(channel, FileChannel.MapMode.READ_ONLY, offset, length, width, MappedLongArray.DEFAULT_SHIFT);
+                        break;
+                    case IndexFormat.SECTION_LCP:
+                        LCP = new MappedLongArray(channel, FileChannel.MapMode.READ_ONLY, offset, length, width, MappedLongArray.DEFAULT_SHIFT);
+                        break;
+                    case IndexFormat.SECTION_BWT:
+                        primaryIndex = channel.map(FileChannel.MapMode.READ_ONLY, offset, 8).order(ByteOrder.LITTLE_ENDIAN).getLong(0);
+                        BWT = channel.map(FileChannel.MapMode.READ_ONLY, offset + 8, length - 8);
+                        break;
+                    case IndexFormat.SECTION_PREFIX:
+                        int k = PrefixTable.prefixLength(length);
+                        if (width != 4 || k < 0) {
+                            throw new IOException(file + " has a prefix table of " + length + " entries of " + width + " bytes");
+                        }
+                        prefixTable = new PrefixTable(k, channel.map(FileChannel.MapMode.READ_ONLY, offset, 4 * length)
+                                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+                        if (prefixTable.length() != n) {
+                            throw new IOException(file + " has a prefix table of " + prefixTable.length() + " suffixes");
+                        }
+                        break;
+                    default:
+                        // unknown sections are skipped, so that minor additions stay readable
+                        break;
+                }
+            }
+            if (SA == null) {
+                throw new IOException(file + " has no SA section");
+            }
+            this.SA = SA;
+            this.LCP = LCP;
+            this.BWT = BWT;
+            this.primaryIndex = primaryIndex;
+            this.prefixTable = prefixTable;
+        } finally {
+            f.close();
+        }
+    }
+
+    /**
+     * @return length of the text (number of suffixes)
+     */
+    public long length() {
+        return n;
+    }
+
+    /**
+     * @return alphabet size of the text (256 for byte text)
+     */
+    public int alphabetSize() {
+        return alphabetSize;
+    }
+
+    /**
+     * @return CRC32 of the text
+     */
+    public long textChecksum() {
+        return textChecksum;
+    }
+
+    /**
+     * Check that text is the text of this index.
+     * @param text text to check
+     * @return true if length and checksum match
+     */
+    public boolean verify(byte[] text) {
+        return text.length == n && IndexWriter.checksum(text) == textChecksum;
+    }
+
+    /**
+     * Check that the remaining bytes of text are the text of this index.
+     * @param text text to check (e.g. a MappedByteBuffer); its position is not changed
+     * @return true if length and checksum match
+     */
+    public boolean verify(ByteBuffer text) {
+        if (text.remaining() != n) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        ByteBuffer src = text.duplicate();
+        while (src.hasRemaining()) {
+            int length = Math.min(buffer.length, src.remaining());
+            src.get(buffer, 0, length);
+            crc.update(buffer, 0, length);
+        }
+        return crc.getValue() == textChecksum;
+    }
+
+    /**
+     * @param i rank of suffix
+     * @return start position of the i-th smallest suffix
+     */
+    public long getSA(long i) {
+        checkIndex(i);
+        return SA.get(i);
+    }
+
+    /**
+     * @return true if the index was opened with its text, so that it can be searched
+     */
+    public boolean hasText() {
+        return text != null;
+    }
+
+    private LongArray text() {
+        if (text == null) {
+            throw new IllegalStateException("index was opened without text");
+        }
+        return text;
+    }
+
+    /**
+     * @return first rank of SA to search for pattern
+     */
+    private long start(byte[] pattern) {
+        return prefixTable == null ? 0 : prefixTable.start(pattern);
+    }
+
+    /**
+     * @return rank next to the last one to search for pattern
+     */
+    private long end(byte[] pattern) {
+        return prefixTable == null ? n : prefixTable.end(pattern);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return rank of the first suffix which starts with pattern or is greater than pattern
+     */
+    public long lowerBound(byte[] pattern) {
+        return Search.lowerBound(text(), SA, start(pattern), end(pattern), pattern);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return rank next to the last suffix which starts with pattern or is less than pattern
+     */
+    public long upperBound(byte[] pattern) {
+        return Search.upperBound(text(), SA, start(pattern), end(pattern), pattern);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern
+     */
+    public long count(byte[] pattern) {
+        long start = lowerBound(pattern);
+        return Search.upperBound(text, SA, start, end(pattern), pattern) - start;
+    }
+
+    /**
+     * Copy the start positions of occurrences of pattern, in the order of suffixes, into a buffer of the caller.
+     * @param pattern pattern to search
+     * @param positions buffer which receives the first positions.length occurrences
+     * @return number of occurrences of pattern, which may exceed positions.length
+     */
+    public long locate(byte[] pattern, long[] positions) {
+        long start = lowerBound(pattern);
+        long count = Search.upperBound(text, SA, start, end(pattern), pattern) - start;
+        for (int i = 0; i < count && i < positions.length; i++) {
+            positions[i] = SA.get(start + i);
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the index has LCP section
+     */
+    public boolean hasLCP() {
+        return LCP != null;
+    }
+
+    /**
+     * @param i rank of suffix
+     * @return length of the longest common prefix of the (i - 1)-th and i-th suffixes (0 for i = 0)
+     */
+    public long getLCP(long i) {
+        if (LCP == null) {
+            throw new IllegalStateException("index has no LCP section");
+        }
+        checkIndex(i);
+        return LCP.get(i);
+    }
+
+    /**
+     * @return true if the index has BWT section
+     */
+    public boolean hasBWT() {
+        return BWT != null;
+    }
+
+    /**
+     * @return read-only view of BWT (n bytes)
+     */
+    public ByteBuffer getBWT() {
+        if (BWT == null) {
+            throw new IllegalStateException("index has no BWT section");
+        }
+        return BWT.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return primary index of BWT
+     */
+    public long primaryIndex() {
+        if (BWT == null) {
+            throw new IllegalStateException("index has no BWT section");
+        }
+        return primaryIndex;
+    }
+
+    /**
+     * @return true if the index has PREFIX section
+     */
+    public boolean hasPrefixTable() {
+        return prefixTable != null;
+    }
+
+    /**
+     * The interval of a pattern in the table bounds the ranks of {@link #getSA(long)} to search for it.
+     * @return prefix table, read from the mapping
+     */
+    public PrefixTable getPrefixTable() {
+        if (prefixTable == null) {
+            throw new IllegalStateException("index has no PREFIX section");
+        }
+        return prefixTable;
+    }
+
+    private void checkIndex(long i) {
+        if (i < 0 || i >= n) {
+            throw new IndexOutOfBoundsException("index: " + i + ", length: " + n);
+        }
+    }
+}
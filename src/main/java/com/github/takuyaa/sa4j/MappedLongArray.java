@@ -0,0 +1,112 @@
+package com.github.takuyaa.sa4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * LongArray over a memory-mapped file of signed little-endian entries of 4, 5 or 8 bytes.
+ * The file is mapped in segments of 2^shift entries, so it can be larger than 2 GiB.
+ */
+final class MappedLongArray extends LongArray {
+    /** 2^27 entries (at most 1 GiB) per segment */
+    static final int DEFAULT_SHIFT = 27;
+
+    private final ByteBuffer[] segments;
+    private final int width;
+    private final int shift;
+    private final long mask;
+    private final long offset;
+    private final long length;
+
+    /**
+     * Map length entries of given width from the start of channel, which must be readable (and writable for READ_WRITE).
+     */
+    MappedLongArray(FileChannel channel, FileChannel.MapMode mode, long length, int width) throws IOException {
+        this(channel, mode, 0, length, width, DEFAULT_SHIFT);
+    }
+
+    MappedLongArray(FileChannel channel, FileChannel.MapMode mode, long position, long length, int width, int shift) throws IOException {
+        if (width != 4 && width != 5 && width != 8) {
+            throw new IllegalArgumentException("unsupported width: " + width);
+        }
+        long segmentLength = 1L << shift;
+        this.segments = new ByteBuffer[(int) ((length + segmentLength - 1) >>> shift)];
+        for (int s = 0; s < segments.length; s++) {
+            long start = (long) s << shift;
+            long size = Math.min(segmentLength, length - start) * width;
+            segments[s] = channel.map(mode, position + start * width, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.width = width;
+        this.shift = shift;
+        this.mask = segmentLength - 1;
+        this.offset = 0;
+        this.length = length;
+    }
+
+    private MappedLongArray(MappedLongArray base, long offset) {
+        this.segments = base.segments;
+        this.width = base.width;
+        this.shift = base.shift;
+        this.mask = base.mask;
+        this.offset = base.offset + offset;
+        this.length = base.length - offset;
+    }
+
+    long get(long i) {
+        long j = offset + i;
+        ByteBuffer segment = segments[(int) (j >>> shift)];
+        int p = (int) (j & mask) * width;
+        switch (width) {
+            case 4:
+                return segment.getInt(p);
+            case 8:
+                return segment.getLong(p);
+            default:
+                return (segment.getInt(p) & 0xffffffffL) | (long) segment.get(p + 4) << 32; // sign-extended
+        }
+    }
+
+    void set(long i, long value) {
+        long j = offset + i;
+        ByteBuffer segment = segments[(int) (j >>> shift)];
+        int p = (int) (j & mask) * width;
+        switch (width) {
+            case 4:
+                segment.putInt(p, (int) value);
+                break;
+            case 8:
+                segment.putLong(p, value);
+                break;
+            default:
+                segment.putInt(p, (int) value);
+                segment.put(p + 4, (byte) (value >>> 32));
+                break;
+        }
+    }
+
+    long length() {
+        return length;
+    }
+
+    LongArray view(long offset) {
+        return new MappedLongArray(this, offset);
+    }
+
+    int width() {
+        return width;
+    }
+
+    /**
+     * Write changes of all segments to the storage device.
+     */
+    void force() {
+        for (ByteBuffer segment : segments) {
+            if (segment instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.takuyaa.sa4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Suffix array built directly into a memory-mapped output file.
+ * The text is read through a memory mapping as well, so neither the text nor SA has to fit in the heap.
+ * SA is built in place by the long-indexed SA-IS; the heap only holds buckets of O(k) entries,
+ * and one bucket array of at most n / 2 entries in the rare case that a reduced alphabet doesn't fit in SA.
+ *
+ * The output file holds n little-endian signed entries of {@link #width()} bytes:
+ * 4 bytes for texts up to 2^31 - 1 bytes, 5 bytes up to 2^39 - 1 bytes and 8 bytes beyond.
+ */
+public class MappedSuffixArray {
+    final MappedLongArray array;
+
+    /**
+     * Construct suffix array of text in a file.
+     * @param text channel of the text, opened for reading
+     * @param output channel of the output file, opened for reading and writing (it is truncated to the size of SA)
+     */
+    public MappedSuffixArray(FileChannel text, FileChannel output) throws IOException {
+        this(new MappedByteArray(text), output, MappedLongArray.DEFAULT_SHIFT);
+    }
+
+    /**
+     * Construct suffix array of the remaining bytes of a buffer, e.g. a MappedByteBuffer.
+     * @param text buffer of the text
+     * @param output channel of the output file, opened for reading and writing (it is truncated to the size of SA)
+     */
+    public MappedSuffixArray(ByteBuffer text, FileChannel output) throws IOException {
+        this(new MappedByteArray(text), output, MappedLongArray.DEFAULT_SHIFT);
+    }
+
+    MappedSuffixArray(LongArray T, FileChannel output, int shift) throws IOException {
+        long n = T.length();
+        int width = width(n);
+
+        output.truncate(n * width);
+        MappedLongArray SA = new MappedLongArray(output, FileChannel.MapMode.READ_WRITE, 0, n, width, shift);
+        LongSAIS.suffixsort(T, SA, n, 256);
+        SA.force();
+        this.array = SA;
+    }
+
+    /**
+     * @return number of suffixes (length of the text)
+     */
+    public long length() {
+        return array.length();
+    }
+
+    /**
+     * @param i rank of suffix
+     * @return start position of the i-th smallest suffix
+     */
+    public long get(long i) {
+        if (i < 0 || i >= array.length()) {
+            throw new IndexOutOfBoundsException("index: " + i + ", length: " + array.length());
+        }
+        return array.get(i);
+    }
+
+    /**
+     * @return bytes per entry in the output file
+     */
+    public int width() {
+        return array.width();
+    }
+
+    /**
+     * Bytes per SA entry of a text of length n.
+     * Entries have to hold negative marks (~j) during construction, so they are signed.
+     */
+    static int width(long n) {
+        if (n <= Integer.MAX_VALUE) {
+            return 4;
+        } else if (n <= PackedLongArray.MAX_VALUE) {
+            return 5;
+        } else {
+            return 8;
+        }
+    }
+}
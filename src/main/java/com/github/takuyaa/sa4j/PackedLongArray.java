@@ -0,0 +1,75 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * LongArray which packs each entry into 40 bits (5 bytes) of byte[][] chunks.
+ * Values are signed, so they have to be in [-2^39, 2^39).
+ */
+final class PackedLongArray extends LongArray {
+    /** bytes per entry */
+    static final int WIDTH = 5;
+    /** max value which can be stored */
+    static final long MAX_VALUE = (1L << 39) - 1;
+    /** 2^24 entries (80 MiB) per chunk */
+    static final int DEFAULT_SHIFT = 24;
+
+    private final byte[][] chunks;
+    private final int shift;
+    private final long mask;
+    private final long offset;
+    private final long length;
+
+    PackedLongArray(long length) {
+        this(length, DEFAULT_SHIFT);
+    }
+
+    PackedLongArray(long length, int shift) {
+        long chunkLength = 1L << shift;
+        int numChunks = (int) ((length + chunkLength - 1) >>> shift);
+        this.chunks = new byte[numChunks][];
+        for (int c = 0; c < numChunks; c++) {
+            chunks[c] = new byte[(int) Math.min(chunkLength, length - ((long) c << shift)) * WIDTH];
+        }
+        this.shift = shift;
+        this.mask = chunkLength - 1;
+        this.offset = 0;
+        this.length = length;
+    }
+
+    private PackedLongArray(PackedLongArray base, long offset) {
+        this.chunks = base.chunks;
+        this.shift = base.shift;
+        this.mask = base.mask;
+        this.offset = base.offset + offset;
+        this.length = base.length - offset;
+    }
+
+    long get(long i) {
+        long j = offset + i;
+        byte[] chunk = chunks[(int) (j >>> shift)];
+        int p = (int) (j & mask) * WIDTH;
+        return (chunk[p] & 0xffL)
+                | (chunk[p + 1] & 0xffL) << 8
+                | (chunk[p + 2] & 0xffL) << 16
+                | (chunk[p + 3] & 0xffL) << 24
+                | (long) chunk[p + 4] << 32; // sign-extended
+    }
+
+    void set(long i, long value) {
+        long j = offset + i;
+        byte[] chunk = chunks[(int) (j >>> shift)];
+        int p = (int) (j & mask) * WIDTH;
+        chunk[p] = (byte) value;
+        chunk[p + 1] = (byte) (value >>> 8);
+        chunk[p + 2] = (byte) (value >>> 16);
+        chunk[p + 3] = (byte) (value >>> 24);
+        chunk[p + 4] = (byte) (value >>> 32);
+    }
+
+    long length() {
+        return length;
+    }
+
+    LongArray view(long offset) {
+        return new PackedLongArray(this, offset);
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Block-parallel stages of {@link SuffixArray#SAIS(SAISKernel, int[], int, int, ForkJoinPool)}.
+ * The input is split into a few blocks per thread of the pool; each stage runs the sequential kernel on every block
+ * and then fixes up the values which depend on other blocks.
+ * Induced sorting, whose scans depend on their own output, is blocked instead:
+ * the threads find the buckets and entries induced by a block of SA, which are the random accesses to the text,
+ * and then one thread writes them to the buckets in order.
+ * The bucket writes stay sequential, so that the speedup is bounded by their share of the construction time
+ * (Amdahl's law), whatever the number of threads.
+ */
+final class ParallelSAIS {
+    /** levels shorter than this are processed sequentially */
+    static final int MIN_PARALLEL_LENGTH = 1 << 16;
+
+    /** blocks per thread, so that an uneven block doesn't stall the others */
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    /** entries of SA per thread in a block of induced sorting, whose buffers stay in cache */
+    private static final int INDUCTION_BLOCK_PER_THREAD = 1 << 14;
+
+    private ParallelSAIS() {
+    }
+
+    interface BlockAction {
+        void run(int block, int from, int to);
+    }
+
+    /**
+     * @return whether a level of length n should run in parallel
+     */
+    static boolean isParallel(ForkJoinPool pool, int n) {
+        return pool != null && n >= MIN_PARALLEL_LENGTH;
+    }
+
+    /**
+     * @return whether induced sorting of a level of length n should be blocked,
+     * which is 12 to 15% slower than the sequential scans when only one thread shares the preparation
+     */
+    static boolean isParallelInduction(ForkJoinPool pool, int n) {
+        return isParallel(pool, n) && pool.getParallelism() > 1;
+    }
+
+    /**
+     * @return whether types and counts of a level can be computed in parallel (each block has its own count array)
+     */
+    static boolean isParallelCount(ForkJoinPool pool, int n, int k) {
+        return isParallel(pool, n) && (long) (k + 1) * blocks(pool) <= n / 8;
+    }
+
+    /**
+     * Parallel version of {@link SAISKernel#countAndSetTypes(int[], long[], int)}.
+     * @param count empty array for storing count
+     * @return bits of S-Type
+     */
+    static long[] countAndSetTypes(SAISKernel S, int[] count, int n, ForkJoinPool pool) {
+        int blockSize = blockSize(pool, n, 64);
+        int blocks = (n + blockSize - 1) / blockSize;
+
+        // the type of the first character of each block is found from its run of equal characters,
+        // and the types of the runs which extend over the whole block are resolved from right to left
+        int[] runTypes = new int[blocks];
+        forEachBlock(pool, n, blockSize, (b, from, to) -> runTypes[b] = S.typeOfRun(from, to, n));
+        boolean[] typeSAtTo = new boolean[blocks];
+        boolean typeS = false;
+        for (int b = blocks - 1; b >= 0; b--) {
+            typeSAtTo[b] = typeS;
+            if (runTypes[b] >= 0) {
+                typeS = runTypes[b] == 1;
+            }
+        }
+
+        long[] isTypeS = new long[(n + 63) >>> 6];
+        int[][] counts = new int[blocks][];
+        forEachBlock(pool, n, blockSize, (b, from, to) -> {
+            int[] c = new int[count.length];
+            S.setTypes(isTypeS, c, from, to, n, typeSAtTo[b]);
+            counts[b] = c;
+        });
+        for (int[] c : counts) {
+            for (int ch = 0; ch < count.length; ch++) {
+                count[ch] += c[ch];
+            }
+        }
+        return isTypeS;
+    }
+
+    /**
+     * @param isTypeS bits of S-Type
+     * @return number of LMS-Type characters
+     */
+    static int countLMS(long[] isTypeS) {
+        int n1 = 0;
+        for (int w = 0; w < isTypeS.length; w++) {
+            n1 += Long.bitCount(SAISKernel.typeLMSWord(isTypeS, w));
+        }
+        return n1;
+    }
+
+    /**
+     * Parallel version of {@link SAISKernel#nameLMSSubstrings(int[], int[], long[], int, int, int)} for all LMSSubstrings.
+     * @return max name
+     */
+    static int nameLMSSubstrings(SAISKernel S, int[] LMS, int[] names, long[] isTypeS, int n, int n1, ForkJoinPool pool) {
+        int blockSize = blockSize(pool, n1, 1);
+        int blocks = (n1 + blockSize - 1) / blockSize;
+        int[] offsets = new int[blocks + 1];
+        forEachBlock(pool, n1, blockSize, (b, from, to) -> offsets[b + 1] = S.nameLMSSubstrings(LMS, names, isTypeS, n, from, to));
+        for (int b = 0; b < blocks; b++) {
+            offsets[b + 1] += offsets[b];
+        }
+        // names of each block are counted from the max name of the preceding blocks
+        forEachBlock(pool, n1, blockSize, (b, from, to) -> {
+            int offset = offsets[b];
+            if (offset != 0) {
+                for (int i = from; i < to; i++) {
+                    names[LMS[i] / 2] += offset;
+                }
+            }
+        });
+        return offsets[blocks];
+    }
+
+    /**
+     * LMS[i] = P1[SA1[i]] for i in [0, n1).
+     */
+    static void mapLMS(int[] LMS, int[] P1, int[] SA1, int n1, ForkJoinPool pool) {
+        forEachBlock(pool, n1, blockSize(pool, n1, 1), (b, from, to) -> {
+            for (int i = from; i < to; i++) {
+                LMS[i] = P1[SA1[i]];
+            }
+        });
+    }
+
+    /**
+     * Parallel version of {@link SAISKernel#sortTypeL(int[], int[], int)}, block by block from left to right.
+     * Entries of a block which are set before the block is reached are prepared in parallel;
+     * the others are induced from the block itself, and are found while it is scanned.
+     */
+    static void sortTypeL(SAISKernel S, int[] SA, int[] pointers, int n, ForkJoinPool pool) {
+        int blockSize = pool.getParallelism() * INDUCTION_BLOCK_PER_THREAD;
+        int[] buckets = new int[Math.min(n, blockSize)];
+        int[] values = new int[buckets.length];
+        for (int from = 0; from < n; from += blockSize) {
+            int offset = from;
+            int to = (int) Math.min((long) from + blockSize, n);
+            forEachBlock(pool, to - from, INDUCTION_BLOCK_PER_THREAD,
+                    (b, f, t) -> S.prepareTypeL(SA, buckets, values, offset, offset + f, offset + t));
+            S.sortTypeL(SA, pointers, n, from, to, buckets, values);
+        }
+    }
+
+    /**
+     * Parallel version of {@link SAISKernel#sortTypeS(int[], int[], int)}, block by block from right to left.
+     */
+    static void sortTypeS(SAISKernel S, int[] SA, int[] pointers, int n, ForkJoinPool pool) {
+        int blockSize = pool.getParallelism() * INDUCTION_BLOCK_PER_THREAD;
+        int[] buckets = new int[Math.min(n, blockSize)];
+        int[] values = new int[buckets.length];
+        for (int to = n; to > 0; to -= blockSize) {
+            int offset = Math.max(0, to - blockSize);
+            forEachBlock(pool, to - offset, INDUCTION_BLOCK_PER_THREAD,
+                    (b, f, t) -> S.prepareTypeS(SA, buckets, values, offset, offset + f, offset + t));
+            S.sortTypeS(SA, pointers, offset, to, buckets, values);
+        }
+    }
+
+    /**
+     * Fill SA[0..n-1] with 0.
+     */
+    static void clear(int[] SA, int n, ForkJoinPool pool) {
+        forEachBlock(pool, n, blockSize(pool, n, 1), (b, from, to) -> Arrays.fill(SA, from, to, 0));
+    }
+
+    private static int blocks(ForkJoinPool pool) {
+        return pool.getParallelism() * BLOCKS_PER_THREAD;
+    }
+
+    /**
+     * @return size of blocks to split [0, n), a multiple of align
+     */
+    private static int blockSize(ForkJoinPool pool, int n, int align) {
+        int size = (int) (((long) n + blocks(pool) - 1) / blocks(pool));
+        return Math.max(align, (size + align - 1) / align * align);
+    }
+
+    /**
+     * Run action for each block [from, to) of [0, n) in the pool, and wait for all of them.
+     */
+    static void forEachBlock(ForkJoinPool pool, int n, int blockSize, BlockAction action) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int b = 0; (long) b * blockSize < n; b++) {
+            int block = b;
+            int from = b * blockSize;
+            int to = (int) Math.min((long) from + blockSize, n);
+            tasks.add(ForkJoinTask.adapt(() -> action.run(block, from, to)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.takuyaa.sa4j;
+
+import java.nio.IntBuffer;
+
+/**
+ * Table of the SA intervals of all k-byte prefixes (k-mers) of byte text, which lets a search skip the first
+ * binary search steps: a pattern is searched only in the interval of its first k bytes.
+ * For k = 1 these are the bucket boundaries of SA-IS.
+ *
+ * A suffix shorter than k counts as padded with 0, which keeps the intervals in the order of SA
+ * (the short suffix sorts first within its interval). Patterns shorter than k span the intervals of all
+ * prefixes they pad to. The table takes 4 * (256^k + 1) bytes: 1 KB for k = 1, 256 KB for k = 2 and 64 MB for k = 3.
+ * It is saved with an index by {@link IndexWriter#setPrefixTable(PrefixTable)}, and {@link MappedIndex} reads it
+ * from the mapping of the index file, so that a search only touches the page of its own prefix.
+ */
+public final class PrefixTable {
+    /** max prefix length */
+    public static final int MAX_PREFIX_LENGTH = 3;
+
+    private final int k;
+    /**
+     * starts[c] is the number of suffixes whose k-byte prefix code is less than c; starts[256^k] is n.
+     * Read by absolute gets only, so that searches can share it; an array on the heap, or a mapping of an index file.
+     */
+    private final IntBuffer starts;
+
+    /**
+     * Count the k-byte prefixes of text by a sequential scan, without SA.
+     * @param T input text
+     * @param k prefix length, from 1 to {@link #MAX_PREFIX_LENGTH}
+     */
+    public PrefixTable(byte[] T, int k) {
+        this(k, IntBuffer.wrap(count(T, checkPrefixLength(k))));
+    }
+
+    /**
+     * @param starts table read from an index file, from position 0 to the capacity
+     */
+    PrefixTable(int k, IntBuffer starts) {
+        if (starts.capacity() != (1 << 8 * checkPrefixLength(k)) + 1) {
+            throw new IllegalArgumentException("prefix table of k = " + k + " has " + starts.capacity() + " entries");
+        }
+        this.k = k;
+        this.starts = starts;
+    }
+
+    /**
+     * @return table of the k-byte prefixes of T
+     */
+    private static int[] count(byte[] T, int k) {
+        int[] starts = new int[(1 << 8 * k) + 1];
+        int n = T.length;
+        int mask = (1 << 8 * k) - 1;
+        int code = 0;
+        for (int j = 0; j < k; j++) {
+            code = code << 8 | (j < n ? T[j] & 0xff : 0);
+        }
+        for (int i = 0; i < n; i++) {
+            starts[code + 1]++;
+            code = (code << 8 | (i + k < n ? T[i + k] & 0xff : 0)) & mask;
+        }
+        for (int c = 0; c + 1 < starts.length; c++) {
+            starts[c + 1] += starts[c];
+        }
+        return starts;
+    }
+
+    private static int checkPrefixLength(int k) {
+        if (k < 1 || k > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("prefix length must be from 1 to " + MAX_PREFIX_LENGTH + ": " + k);
+        }
+        return k;
+    }
+
+    /**
+     * @param entries number of entries of a table
+     * @return prefix length of the table, or -1 if no table has that many entries
+     */
+    static int prefixLength(long entries) {
+        for (int k = 1; k <= MAX_PREFIX_LENGTH; k++) {
+            if (entries == (1L << 8 * k) + 1) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return prefix length k
+     */
+    public int prefixLength() {
+        return k;
+    }
+
+    /**
+     * @return number of suffixes
+     */
+    public int length() {
+        return starts.get(starts.capacity() - 1);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return first index of SA whose suffix may start with pattern
+     */
+    public int start(byte[] pattern) {
+        int code = 0;
+        for (int j = 0; j < k; j++) {
+            code = code << 8 | (j < pattern.length ? pattern[j] & 0xff : 0);
+        }
+        return starts.get(code);
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return index of SA next to the last suffix which may start with pattern
+     */
+    public int end(byte[] pattern) {
+        int code = 0;
+        for (int j = 0; j < k; j++) {
+            code = code << 8 | (j < pattern.length ? pattern[j] & 0xff : 0xff);
+        }
+        return starts.get(code + 1);
+    }
+
+    /**
+     * @return table of 256^k + 1 entries (not a copy), from position 0
+     */
+    IntBuffer starts() {
+        return starts.duplicate();
+    }
+
+    /**
+     * @return heap size of the table in bytes, or 0 if it is read from a mapping
+     */
+    public long sizeInBytes() {
+        return starts.isDirect() ? 0 : 4L * starts.capacity();
+    }
+}
@@ -0,0 +1,376 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of search results in front of {@link SuffixArray} or {@link ImmutableIndex}, for skewed query logs
+ * where a few hot patterns make up most of the lookups.
+ * It maps pattern bytes to their interval of SA, within a budget of bytes of the cached entries
+ * (pattern bytes plus {@link #ENTRY_OVERHEAD} each).
+ *
+ * Entries are evicted in LRU order, and admitted in the way of TinyLFU:
+ * when the cache is full, a missed pattern replaces the least recently used entries
+ * only if it has been queried more often recently than each of them, by a count-min sketch of 4-bit counters
+ * which are halved periodically. So one-off patterns don't flush the hot ones.
+ *
+ * A hit returns the cached {@link Range} without searching or allocating, except for the lookup key.
+ * The cache is thread-safe. Patterns are split by hash into up to {@link #MAX_SEGMENTS} segments,
+ * each with its own lock, LRU order, sketch and share of the budget, so that queries of different segments
+ * don't contend; searches of misses run outside the locks.
+ * A segment holds at least {@link #MIN_SEGMENT_ENTRIES} entries of 8 bytes, so small caches have fewer segments.
+ */
+public class QueryCache {
+    /** approximate heap bytes of an entry besides the pattern: key, pattern array header, range and map entry */
+    public static final int ENTRY_OVERHEAD = 112;
+
+    /** max number of segments; a power of two */
+    public static final int MAX_SEGMENTS = 16;
+
+    /** min entries of 8-byte patterns per segment */
+    public static final int MIN_SEGMENT_ENTRIES = 64;
+
+    private final Function<byte[], Range> search;
+    private final long budget;
+    private final Segment[] segments;
+
+    private static final class Key {
+        final byte[] pattern;
+        final int hash;
+
+        Key(byte[] pattern) {
+            this.pattern = pattern;
+            this.hash = Arrays.hashCode(pattern);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && hash == ((Key) o).hash && Arrays.equals(pattern, ((Key) o).pattern);
+        }
+    }
+
+    /**
+     * Part of the cache, guarded by its own lock.
+     */
+    private static final class Segment {
+        private final long budget;
+        private final LinkedHashMap<Key, Range> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private long size;
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long rejections;
+
+        Segment(long budget) {
+            this.budget = budget;
+            // a counter per entry of a full segment (at least 1024, so that small caches don't estimate by collisions),
+            // which takes 2 bytes per entry besides the budget
+            this.sketch = new FrequencySketch((int) Math.min(1 << 24, Math.max(1024, budget / ENTRY_OVERHEAD)));
+        }
+
+        /**
+         * @return cached range of key, or null if missed
+         */
+        synchronized Range get(Key key) {
+            sketch.increment(key.hash);
+            Range range = entries.get(key);
+            if (range != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return range;
+        }
+
+        /**
+         * Insert a missed entry if it fits, or if it is more frequent than every LRU entry which makes room for it.
+         */
+        synchronized void admit(Key key, Range range) {
+            long cost = cost(key.pattern);
+            if (cost > budget || entries.containsKey(key)) {
+                // too large, or inserted by another thread meanwhile
+                return;
+            }
+            int frequency = sketch.frequency(key.hash);
+            long freed = 0;
+            int victims = 0;
+            for (Iterator<Key> lru = entries.keySet().iterator(); size - freed + cost > budget; victims++) {
+                Key victim = lru.next();
+                if (frequency <= sketch.frequency(victim.hash)) {
+                    rejections++;
+                    return;
+                }
+                freed += cost(victim.pattern);
+            }
+            Iterator<Key> lru = entries.keySet().iterator();
+            for (int v = 0; v < victims; v++) {
+                lru.next();
+                lru.remove();
+            }
+            evictions += victims;
+            entries.put(new Key(Arrays.copyOf(key.pattern, key.pattern.length)), range);
+            size += cost - freed;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * @param SA suffix array built from byte[]
+     * @param budget max bytes of cached entries
+     */
+    public QueryCache(SuffixArray SA, long budget) {
+        this(SA::range, budget);
+    }
+
+    /**
+     * @param index index to search
+     * @param budget max bytes of cached entries
+     */
+    public QueryCache(ImmutableIndex index, long budget) {
+        this(index::range, budget);
+    }
+
+    private QueryCache(Function<byte[], Range> search, long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget must not be negative: " + budget);
+        }
+        this.search = search;
+        this.budget = budget;
+        int count = MAX_SEGMENTS;
+        while (count > 1 && budget / count < MIN_SEGMENT_ENTRIES * (8L + ENTRY_OVERHEAD)) {
+            count >>>= 1;
+        }
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(budget / count);
+        }
+    }
+
+    private Segment segment(int hash) {
+        return segments[segmentIndex(hash, segments.length)];
+    }
+
+    /**
+     * The maps of segments index by the low bits of hash, and the rows of the sketches by the high bits of
+     * multiplicative hashes, so a segment is chosen by the high bits of a finalizer (of MurmurHash3) independent of both;
+     * otherwise the keys of a segment would share the bits of some row, and collide there.
+     * @param segments number of segments, a power of two
+     * @return segment of hash
+     */
+    static int segmentIndex(int hash, int segments) {
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return segments == 1 ? 0 : h >>> Integer.numberOfLeadingZeros(segments - 1);
+    }
+
+    /**
+     * @return number of segments
+     */
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Find the interval of suffixes which start with pattern, from the cache if possible.
+     * @param pattern pattern to search (not retained; a cached entry keeps a copy)
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(byte[] pattern) {
+        Key key = new Key(pattern);
+        Segment segment = segment(key.hash);
+        Range range = segment.get(key);
+        if (range == null) {
+            range = search.apply(pattern);
+            segment.admit(key, range);
+        }
+        return range;
+    }
+
+    /**
+     * @param pattern pattern to search
+     * @return number of occurrences of pattern
+     */
+    public int count(byte[] pattern) {
+        return range(pattern).size();
+    }
+
+    private static long cost(byte[] pattern) {
+        return pattern.length + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Remove all entries; statistics are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return number of cached patterns
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return approximate bytes of cached entries, at most the budget
+     */
+    public long sizeInBytes() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return number of queries answered from the cache
+     */
+    public long hitCount() {
+        long hits = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * @return number of queries which searched the index
+     */
+    public long missCount() {
+        long misses = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * @return number of entries evicted to make room for more frequent ones
+     */
+    public long evictionCount() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * @return number of missed patterns which were not cached since they were not more frequent than all the LRU entries
+     *         which would make room for them
+     */
+    public long rejectionCount() {
+        long rejections = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                rejections += segment.rejections;
+            }
+        }
+        return rejections;
+    }
+
+    /**
+     * @return hits / (hits + misses), or 0 if nothing has been queried
+     */
+    public double hitRate() {
+        long hits = hitCount();
+        long total = hits + missCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        long hits = hitCount();
+        long misses = missCount();
+        return String.format("%d entries, %d bytes of %d in %d segments, hit rate %.3f (%d hits, %d misses), %d evictions, %d rejections",
+                size(), sizeInBytes(), budget, segments.length, hits + misses == 0 ? 0 : (double) hits / (hits + misses),
+                hits, misses, evictionCount(), rejectionCount());
+    }
+
+    /**
+     * Count-min sketch of 4 rows of 4-bit counters, 16 per long.
+     * All counters are halved after 10 increments per counter of a row, so that old popularity fades out.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+        private final long[] table;
+        /** counters per row - 1 */
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(capacity - 1) << 1;
+            this.table = new long[SEEDS.length * width / 16];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        /**
+         * @return index of the counter of hash in row r, over all rows
+         */
+        int index(int hash, int r) {
+            long h = (hash + SEEDS[r]) * SEEDS[r];
+            return r * (mask + 1) + ((int) (h >>> 32) & mask);
+        }
+
+        void increment(int hash) {
+            for (int r = 0; r < SEEDS.length; r++) {
+                int i = index(hash, r);
+                int shift = (i & 15) << 2;
+                if (((table[i >>> 4] >>> shift) & 0xf) < 0xf) {
+                    table[i >>> 4] += 1L << shift;
+                }
+            }
+            if (++additions == sampleSize) {
+                for (int w = 0; w < table.length; w++) {
+                    table[w] = (table[w] >>> 1) & 0x7777777777777777L;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int min = 0xf;
+            for (int r = 0; r < SEEDS.length; r++) {
+                int i = index(hash, r);
+                min = Math.min(min, (int) (table[i >>> 4] >>> ((i & 15) << 2)) & 0xf);
+            }
+            return min;
+        }
+    }
+}
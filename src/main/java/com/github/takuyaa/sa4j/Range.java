@@ -0,0 +1,61 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Interval [start, end) of suffix array, e.g. the suffixes which start with a pattern.
+ */
+public final class Range {
+    private final int start;
+    private final int end;
+
+    public Range(int start, int end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("invalid range: [" + start + ", " + end + ")");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return first index of the interval
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return index next to the last index of the interval
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return number of suffixes in the interval
+     */
+    public int size() {
+        return end - start;
+    }
+
+    public boolean isEmpty() {
+        return start == end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Range)) {
+            return false;
+        }
+        Range other = (Range) o;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
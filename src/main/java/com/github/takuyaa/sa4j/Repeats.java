@@ -0,0 +1,162 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+
+/**
+ * Linear-time repeat analytics over a suffix array and its LCP array:
+ * longest repeated substrings, repeats of a minimum length with their occurrence counts,
+ * and longest common substrings of two texts.
+ *
+ * Results are streamed to primitive callbacks, and a repeat is reported once by its first occurrence in SA
+ * rather than by all of its occurrences, so that repetitive texts don't blow up the output.
+ * The methods over SA and LCP don't look at the text, so they work for byte, String and int texts alike.
+ */
+public final class Repeats {
+    private Repeats() {
+    }
+
+    /**
+     * Receiver of repeats.
+     */
+    public interface RepeatVisitor {
+        /**
+         * @param position start of an occurrence of the repeat in the text
+         * @param length length of the repeat
+         * @param count number of occurrences of the repeat
+         */
+        void visit(int position, int length, int count);
+    }
+
+    /**
+     * Receiver of common substrings of two texts.
+     */
+    public interface MatchVisitor {
+        /**
+         * @param position1 start of an occurrence of the substring in the first text
+         * @param position2 start of an occurrence of the substring in the second text
+         * @param length length of the substring
+         */
+        void visit(int position1, int position2, int length);
+    }
+
+    /**
+     * Report the longest repeated substrings, each once with its number of occurrences.
+     * @param SA suffix array
+     * @param LCP LCP array of SA
+     * @return length of the longest repeated substrings; 0 (and nothing is reported) if no substring repeats
+     */
+    public static int longestRepeatedSubstring(int[] SA, int[] LCP, RepeatVisitor visitor) {
+        int n = SA.length;
+        int max = 0;
+        for (int i = 1; i < n; i++) {
+            max = Math.max(max, LCP[i]);
+        }
+        if (max == 0) {
+            return 0;
+        }
+        // LCP values are at most max, so each run of max is one substring
+        for (int i = 1; i < n; i++) {
+            if (LCP[i] == max) {
+                int start = i - 1;
+                while (i + 1 < n && LCP[i + 1] == max) {
+                    i++;
+                }
+                visitor.visit(SA[start], max, i - start + 1);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Report the longest repeated substrings of T, each once with its number of occurrences.
+     * @param T input text
+     * @return length of the longest repeated substrings; 0 (and nothing is reported) if no substring repeats
+     */
+    public static int longestRepeatedSubstring(byte[] T, RepeatVisitor visitor) {
+        SuffixArray SA = new SuffixArray(T);
+        return longestRepeatedSubstring(SA.getArray(), SA.computeLCP(), visitor);
+    }
+
+    /**
+     * Report the right-maximal repeats of minLength or longer, i.e. the repeats which are followed by two or more
+     * different characters, with their numbers of occurrences.
+     * They are the lcp-intervals of SA, and are reported bottom-up (a repeat after its extensions to the right).
+     * Every other repeat of minLength or longer is a prefix of a reported one with the same count:
+     * that of the shortest reported repeat which it is a prefix of.
+     * @param SA suffix array
+     * @param LCP LCP array of SA
+     * @param minLength min length of repeats (at least 1)
+     */
+    public static void repeats(int[] SA, int[] LCP, int minLength, RepeatVisitor visitor) {
+        minLength = Math.max(minLength, 1);
+        int n = SA.length;
+        // stack of open intervals whose lcp is minLength or longer, above a sentinel of lcp 0
+        int[] lcps = new int[64];
+        int[] starts = new int[64];
+        int top = 0;
+        for (int i = 1; i <= n; i++) {
+            // the intervals of minLength or longer are the same if shorter LCP values are read as 0
+            int h = i < n && LCP[i] >= minLength ? LCP[i] : 0;
+            int start = i - 1;
+            while (h < lcps[top]) {
+                start = starts[top];
+                visitor.visit(SA[start], lcps[top], i - start);
+                top--;
+            }
+            if (h > lcps[top]) {
+                if (++top == lcps.length) {
+                    lcps = Arrays.copyOf(lcps, top * 2);
+                    starts = Arrays.copyOf(starts, top * 2);
+                }
+                lcps[top] = h;
+                starts[top] = start;
+            }
+        }
+    }
+
+    /**
+     * Report the longest common substrings of T1 and T2, each once with an occurrence in each text.
+     * T1 and T2 are sorted together as one int text with a unique separator, which takes 16 bytes per input byte.
+     * @return length of the longest common substrings; 0 (and nothing is reported) if the texts share no byte
+     */
+    public static int longestCommonSubstring(byte[] T1, byte[] T2, MatchVisitor visitor) {
+        int n1 = T1.length;
+        int n = n1 + 1 + T2.length;
+        if (n < 0) {
+            throw new IllegalArgumentException("texts are too large: " + n1 + " and " + T2.length + " bytes");
+        }
+        // bytes are shifted by 1 to make room for the separator 0, at which common prefixes stop
+        int[] T = new int[n];
+        for (int i = 0; i < n1; i++) {
+            T[i] = (T1[i] & 0xff) + 1;
+        }
+        for (int i = n1 + 1; i < n; i++) {
+            T[i] = (T2[i - n1 - 1] & 0xff) + 1;
+        }
+        int[] SA = new SuffixArray(T).getArray();
+        int[] lcp = LCP.phi(T, SA);
+
+        int max = 0;
+        for (int i = 1; i < n; i++) {
+            if (lcp[i] > max && (SA[i - 1] < n1) != (SA[i] < n1)) {
+                max = lcp[i];
+            }
+        }
+        if (max == 0) {
+            return 0;
+        }
+        // adjacent suffixes of different texts with lcp max share the substring until an LCP value below max
+        boolean reported = false;
+        for (int i = 1; i < n; i++) {
+            if (lcp[i] < max) {
+                reported = false;
+            } else if (!reported && lcp[i] == max && (SA[i - 1] < n1) != (SA[i] < n1)) {
+                int p = Math.min(SA[i - 1], SA[i]);
+                int q = Math.max(SA[i - 1], SA[i]);
+                visitor.visit(p, q - n1 - 1, max);
+                reported = true;
+            }
+        }
+        return max;
+    }
+}
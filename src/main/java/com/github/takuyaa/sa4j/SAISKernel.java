@@ -0,0 +1,137 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Text-dependent steps of SA-IS.
+ * Each subclass holds its input as a primitive array and has its own copy of the hot loops,
+ * so that every loop accesses a single concrete array type and can be inlined by the JIT.
+ * The driver of the algorithm is {@link SuffixArray#SAIS(SAISKernel, int[], int, int)}.
+ *
+ * Types are kept as bits of S-Type in a raw long[] (bit i of word i / 64 for S[i]), one bit per character.
+ * LMS-Type is not stored; it is an S-Type whose left neighbor is L-Type, which is derived from the same bits.
+ */
+abstract class SAISKernel {
+    /**
+     * @param isTypeS bits of S-Type
+     * @return whether S[i] is S-Type
+     */
+    static boolean isTypeS(long[] isTypeS, int i) {
+        return (isTypeS[i >>> 6] & 1L << i) != 0;
+    }
+
+    /**
+     * @param isTypeS bits of S-Type
+     * @return whether S[i] is LMS-Type
+     */
+    static boolean isTypeLMS(long[] isTypeS, int i) {
+        return i > 0 && isTypeS(isTypeS, i) && !isTypeS(isTypeS, i - 1);
+    }
+
+    /**
+     * @param isTypeS bits of S-Type
+     * @param w index of word
+     * @return bits of LMS-Type of word w
+     */
+    static long typeLMSWord(long[] isTypeS, int w) {
+        long word = isTypeS[w];
+        // position 0 has no left neighbor, which is regarded as S-Type
+        long carry = w == 0 ? 1 : isTypeS[w - 1] >>> 63;
+        return word & ~(word << 1 | carry);
+    }
+
+    /**
+     * Iterate string S from last index to first.
+     * This method have side-effects to return multiple arrays (count, isTypeS),
+     * but don't require additional memory.
+     * @param count empty array for storing count
+     * @param isTypeS array of at least (n + 63) / 64 words for storing bits of S-Type (need not be cleared)
+     * @param n length of S
+     * @return number of LMS-Type characters
+     */
+    abstract int countAndSetTypes(int[] count, long[] isTypeS, int n);
+
+    /**
+     * Find the type of S[from] from the run of equal characters starting at from, for block-parallel classification.
+     * @return 1 if S-Type, 0 if L-Type, or -1 if S[from..to] are all equal (same type as S[to])
+     */
+    abstract int typeOfRun(int from, int to, int n);
+
+    /**
+     * Set types of S[from..to-1] and count their characters, given the type of S[to].
+     * Only the words of isTypeS covering [from, to) are written, so that blocks aligned to 64 can run in parallel.
+     * @param isTypeS bits of S-Type
+     * @param count array for storing count
+     * @param typeSAtTo whether S[to] is S-Type (ignored if to == n)
+     */
+    abstract void setTypes(long[] isTypeS, int[] count, int from, int to, int n, boolean typeSAtTo);
+
+    /**
+     * Sort LMS-Type by first character, and construct P1
+     * @param pointers copy of bucket tail pointers, which is modified
+     */
+    abstract void sortLMSByFirstCharacter(int[] SA, int[] P1, long[] isTypeS, int[] pointers, int n, int n1);
+
+    /**
+     * Sort L-Type.
+     * Induced entries carry the type of their preceding character in the sign bit (~j if S[j-1] is S-Type),
+     * which is found from S[j-1] next to S[j] instead of a random access to the type bits.
+     * The reads of S are already independent of each other, so gathering them per block ahead of the bucket writes,
+     * as libsais does, doesn't pay off here: it was 8 to 10% slower on 112 MB inputs with blocks of 64 to 4096 entries.
+     * It is only done by {@link ParallelSAIS#sortTypeL(SAISKernel, int[], int[], int, java.util.concurrent.ForkJoinPool)},
+     * where the threads share the gathering.
+     * The entries of SA are complemented as they are scanned, so that {@link #sortTypeS(int[], int[], int)} must follow.
+     * @param SA 0 except for the seeds, which are positive
+     * @param pointers copy of bucket head pointers, which is modified
+     */
+    abstract void sortTypeL(int[] SA, int[] pointers, int n);
+
+    /**
+     * Sort S-Type, and set to SA.
+     * Entries left by {@link #sortTypeL(int[], int[], int)} are positive if S[j-1] is S-Type, otherwise complemented;
+     * all entries are non-negative again at the end.
+     * @param pointers copy of bucket tail pointers, which is modified
+     */
+    abstract void sortTypeS(int[] SA, int[] pointers, int n);
+
+    /**
+     * Find the buckets and the entries induced by SA[from..to-1] in {@link #sortTypeL(int[], int[], int)},
+     * for the entries which are already set, so that the random accesses to S of a block can run in parallel.
+     * @param buckets buckets[i - offset] = S[SA[i] - 1], or -1 if SA[i] is not positive
+     * @param values values[i - offset] = entry induced by SA[i]
+     */
+    abstract void prepareTypeL(int[] SA, int[] buckets, int[] values, int offset, int from, int to);
+
+    /**
+     * Scan a block SA[from..to-1] of {@link #sortTypeL(int[], int[], int)}, prepared with offset from.
+     * The entries set after the preparation are induced as in the sequential scan.
+     * The first block also puts the suffix in front of the virtual sentinel.
+     */
+    abstract void sortTypeL(int[] SA, int[] pointers, int n, int from, int to, int[] buckets, int[] values);
+
+    /**
+     * Find the buckets and the entries induced by SA[from..to-1] in {@link #sortTypeS(int[], int[], int)},
+     * for the entries which are already set.
+     * @param buckets buckets[i - offset] = S[SA[i] - 1], or -1 if SA[i] is not positive
+     * @param values values[i - offset] = entry induced by SA[i]
+     */
+    abstract void prepareTypeS(int[] SA, int[] buckets, int[] values, int offset, int from, int to);
+
+    /**
+     * Scan a block SA[from..to-1] of {@link #sortTypeS(int[], int[], int)} from right to left, prepared with offset from.
+     */
+    abstract void sortTypeS(int[] SA, int[] pointers, int from, int to, int[] buckets, int[] values);
+
+    /**
+     * Set LMS-Type to SA
+     * @param pointers copy of bucket tail pointers, which is modified
+     */
+    abstract void setTypeLMS(int[] SA, int[] lmsSubstrings, int[] pointers, int n1);
+
+    /**
+     * Name LMSSubstrings lmsSubstrings[from..to-1].
+     * Same LMSSubstrings would have same names, counted from 0 before lmsSubstrings[from]
+     * (so that names of a block are offset by the max names of the preceding blocks).
+     * This method have side-effects to an array names, but don't require additional memory.
+     * (return max name)
+     */
+    abstract int nameLMSSubstrings(int[] lmsSubstrings, int[] names, long[] isTypeS, int n, int from, int to);
+}
@@ -0,0 +1,83 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Working arrays of {@link SuffixArray#SAIS(SAISKernel, int[], int, int, java.util.concurrent.ForkJoinPool, SAISWorkspace, int)},
+ * one set per recursion level.
+ * Arrays only grow, so that building many suffix arrays with the same workspace stops allocating
+ * once it has seen the largest input.
+ * Arrays may be longer than requested and are not cleared; callers clear what they read before writing.
+ * A workspace must not be used by two threads at once.
+ */
+final class SAISWorkspace {
+    private final List<Level> levels = new ArrayList<>();
+    /** statistics to collect, or null */
+    ConstructionStats stats;
+
+    static final class Level {
+        int[] count;
+        int[] pointers;
+        int[] bucketHeadPointers;
+        int[] bucketTailPointers;
+        long[] isTypeS;
+        int[] P1;
+        int[] LMS;
+        int[] names;
+        int[] S1;
+        int[] SA1;
+        /** kernel over S1, recreated when S1 grows */
+        IntSAISKernel kernel;
+    }
+
+    /**
+     * @param depth recursion level (0 for the input)
+     * @return working arrays of the level
+     */
+    Level level(int depth) {
+        while (levels.size() <= depth) {
+            levels.add(new Level());
+        }
+        return levels.get(depth);
+    }
+
+    /**
+     * @return array if it has at least size entries, otherwise a new array
+     */
+    static int[] grow(int[] array, int size) {
+        if (array != null && array.length >= size) {
+            return array;
+        }
+        // grow by half at least, so that slowly increasing inputs don't allocate every time
+        return new int[array == null ? size : Math.max(size, array.length + (array.length >> 1))];
+    }
+
+    /**
+     * @return array if it has at least size entries, otherwise a new array
+     */
+    static long[] grow(long[] array, int size) {
+        if (array != null && array.length >= size) {
+            return array;
+        }
+        return new long[array == null ? size : Math.max(size, array.length + (array.length >> 1))];
+    }
+
+    /**
+     * @return approximate heap size of the arrays in bytes
+     */
+    long sizeInBytes() {
+        long size = 0;
+        for (Level level : levels) {
+            size += 4L * (length(level.count) + length(level.pointers) + length(level.bucketHeadPointers)
+                    + length(level.bucketTailPointers) + length(level.P1) + length(level.LMS) + length(level.names)
+                    + length(level.S1) + length(level.SA1));
+            size += 8L * (level.isTypeS == null ? 0 : level.isTypeS.length);
+        }
+        return size;
+    }
+
+    private static int length(int[] array) {
+        return array == null ? 0 : array.length;
+    }
+}
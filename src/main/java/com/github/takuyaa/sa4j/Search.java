@@ -0,0 +1,269 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Binary search of patterns over suffix arrays.
+ * Searches keep the longest common prefixes of the pattern with both ends of the current interval
+ * (the mlr accelerant of Manber and Myers), and skip the min of them when comparing the middle suffix.
+ * A step compares from the min of the two, so a search costs O(m + log n) character comparisons in the usual case
+ * but O(m log n) at worst, when the lcps of the ends differ at every step (e.g. on highly repetitive text).
+ * {@link LCPLRSearch} bounds the worst case to O(m + log n) with precomputed LCP-LR tables.
+ */
+final class Search {
+    private Search() {
+    }
+
+    /**
+     * Find the first suffix in SA[from, to) which is not less than pattern P.
+     * @return index of the first suffix starting with P or greater than P, or to if there is none
+     */
+    static int lowerBound(byte[] T, int[] SA, int from, int to, byte[] P) {
+        return search(T, SA, null, null, from, to, P, false);
+    }
+
+    /**
+     * Find the first suffix in SA[from, to) which is greater than pattern P and doesn't start with P.
+     * @return index of the first suffix greater than P, or to if there is none
+     */
+    static int upperBound(byte[] T, int[] SA, int from, int to, byte[] P) {
+        return search(T, SA, null, null, from, to, P, true);
+    }
+
+    /**
+     * Same as {@link #lowerBound(byte[], int[], int, int, byte[])} for a concatenation of documents,
+     * where each suffix ends at the end of its document.
+     * @param DA DA[i] is the document of suffix SA[i]
+     * @param starts starts[d] is the start position of document d in T, and starts[d + 1] is its end
+     */
+    static int lowerBound(byte[] T, int[] SA, int[] DA, int[] starts, int from, int to, byte[] P) {
+        return search(T, SA, DA, starts, from, to, P, false);
+    }
+
+    static int upperBound(byte[] T, int[] SA, int[] DA, int[] starts, int from, int to, byte[] P) {
+        return search(T, SA, DA, starts, from, to, P, true);
+    }
+
+    /**
+     * Same as {@link #lowerBound(byte[], int[], int, int, byte[])} for long-indexed text and SA,
+     * e.g. memory-mapped ones; characters of T are unsigned.
+     */
+    static long lowerBound(LongArray T, LongArray SA, long from, long to, byte[] P) {
+        return search(T, SA, from, to, P, false);
+    }
+
+    static long upperBound(LongArray T, LongArray SA, long from, long to, byte[] P) {
+        return search(T, SA, from, to, P, true);
+    }
+
+    static int lowerBound(String T, int[] SA, int from, int to, String P) {
+        return search(T, SA, from, to, P, false);
+    }
+
+    static int upperBound(String T, int[] SA, int from, int to, String P) {
+        return search(T, SA, from, to, P, true);
+    }
+
+    static int lowerBound(int[] T, int[] SA, int from, int to, int[] P) {
+        return search(T, SA, from, to, P, false);
+    }
+
+    static int upperBound(int[] T, int[] SA, int from, int to, int[] P) {
+        return search(T, SA, from, to, P, true);
+    }
+
+    /**
+     * @param DA document of each suffix, or null if T is a single text
+     * @param upper whether suffixes starting with P count as less than P (upper bound) or not (lower bound)
+     */
+    private static int search(byte[] T, int[] SA, int[] DA, int[] starts, int from, int to, byte[] P, boolean upper) {
+        int m = P.length;
+        int lo = from - 1; // suffix at lo is less than P (virtually if lo == from - 1)
+        int hi = to;       // suffix at hi is not less than P (virtually if hi == to)
+        int lcpLo = 0;
+        int lcpHi = 0;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            int pos = SA[mid];
+            int n = DA == null ? T.length : starts[DA[mid] + 1];
+            int l = Math.min(lcpLo, lcpHi);
+            while (l < m && pos + l < n && T[pos + l] == P[l]) {
+                l++;
+            }
+            boolean less;
+            if (l == m) {
+                less = upper;
+            } else if (pos + l == n) {
+                less = true; // suffix is a proper prefix of P
+            } else {
+                less = (T[pos + l] & 0xff) < (P[l] & 0xff);
+            }
+            if (less) {
+                lo = mid;
+                lcpLo = l;
+            } else {
+                hi = mid;
+                lcpHi = l;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * Search of the whole SA with the LCP-LR tables of {@link LCPLRSearch}.
+     * The interval ends, and so the midpoints, are the ones the tables were built for; a step starts from
+     * the larger lcp of the pattern with an end, and takes the midpoint's side from its lcp with that end
+     * unless both are equal.
+     */
+    static int search(byte[] T, int[] SA, int[] Llcp, int[] Rlcp, byte[] P, boolean upper) {
+        int m = P.length;
+        int n = T.length;
+        int lo = -1;
+        int hi = SA.length;
+        int lcpLo = 0;
+        int lcpHi = 0;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            int l;
+            if (lcpLo >= lcpHi) {
+                // mid agrees with lo beyond lcpLo (so it is less), or diverges above lo (so it is greater) before it
+                if (Llcp[mid] > lcpLo) {
+                    lo = mid;
+                    continue;
+                } else if (Llcp[mid] < lcpLo) {
+                    hi = mid;
+                    lcpHi = Llcp[mid];
+                    continue;
+                }
+                l = lcpLo;
+            } else {
+                if (Rlcp[mid] > lcpHi) {
+                    hi = mid;
+                    continue;
+                } else if (Rlcp[mid] < lcpHi) {
+                    lo = mid;
+                    lcpLo = Rlcp[mid];
+                    continue;
+                }
+                l = lcpHi;
+            }
+            int pos = SA[mid];
+            while (l < m && pos + l < n && T[pos + l] == P[l]) {
+                l++;
+            }
+            boolean less;
+            if (l == m) {
+                less = upper;
+            } else if (pos + l == n) {
+                less = true;
+            } else {
+                less = (T[pos + l] & 0xff) < (P[l] & 0xff);
+            }
+            if (less) {
+                lo = mid;
+                lcpLo = l;
+            } else {
+                hi = mid;
+                lcpHi = l;
+            }
+        }
+        return hi;
+    }
+
+    private static long search(LongArray T, LongArray SA, long from, long to, byte[] P, boolean upper) {
+        long n = T.length();
+        int m = P.length;
+        long lo = from - 1;
+        long hi = to;
+        int lcpLo = 0;
+        int lcpHi = 0;
+        while (hi - lo > 1) {
+            long mid = (lo + hi) >>> 1;
+            long pos = SA.get(mid);
+            int l = Math.min(lcpLo, lcpHi);
+            while (l < m && pos + l < n && T.get(pos + l) == (P[l] & 0xff)) {
+                l++;
+            }
+            boolean less;
+            if (l == m) {
+                less = upper;
+            } else if (pos + l == n) {
+                less = true;
+            } else {
+                less = T.get(pos + l) < (P[l] & 0xff);
+            }
+            if (less) {
+                lo = mid;
+                lcpLo = l;
+            } else {
+                hi = mid;
+                lcpHi = l;
+            }
+        }
+        return hi;
+    }
+
+    private static int search(String T, int[] SA, int from, int to, String P, boolean upper) {
+        int n = T.length();
+        int m = P.length();
+        int lo = from - 1;
+        int hi = to;
+        int lcpLo = 0;
+        int lcpHi = 0;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            int pos = SA[mid];
+            int l = Math.min(lcpLo, lcpHi);
+            while (l < m && pos + l < n && T.charAt(pos + l) == P.charAt(l)) {
+                l++;
+            }
+            boolean less;
+            if (l == m) {
+                less = upper;
+            } else if (pos + l == n) {
+                less = true;
+            } else {
+                less = T.charAt(pos + l) < P.charAt(l);
+            }
+            if (less) {
+                lo = mid;
+                lcpLo = l;
+            } else {
+                hi = mid;
+                lcpHi = l;
+            }
+        }
+        return hi;
+    }
+
+    private static int search(int[] T, int[] SA, int from, int to, int[] P, boolean upper) {
+        int n = T.length;
+        int m = P.length;
+        int lo = from - 1;
+        int hi = to;
+        int lcpLo = 0;
+        int lcpHi = 0;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            int pos = SA[mid];
+            int l = Math.min(lcpLo, lcpHi);
+            while (l < m && pos + l < n && T[pos + l] == P[l]) {
+                l++;
+            }
+            boolean less;
+            if (l == m) {
+                less = upper;
+            } else if (pos + l == n) {
+                less = true;
+            } else {
+                less = T[pos + l] < P[l];
+            }
+            if (less) {
+                lo = mid;
+                lcpLo = l;
+            } else {
+                hi = mid;
+                lcpHi = l;
+            }
+        }
+        return hi;
+    }
+}
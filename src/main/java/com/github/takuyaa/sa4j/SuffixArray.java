@@ -1,427 +1,557 @@
 package com.github.takuyaa.sa4j;
 
 import java.util.Arrays;
-import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
-interface BaseArray {
-    int get(int i);
-    void set(int i, int value);
-    void fill(int value);
-}
+public class SuffixArray {
+    /** max character value of byte input */
+    static final int BYTE_MAX_VALUE = 0xff;
 
-class StringArray implements BaseArray {
-    private String str;
+    /**
+     * Construction modes.
+     */
+    public enum Mode {
+        /**
+         * SA-IS of this class.
+         * Besides the 4n bytes of the result, it takes working space of about 12n bytes for the top level
+         * (P1, LMS, names and type bits) and the same again for the reduced problems.
+         */
+        FAST,
+        /**
+         * In-place SA-IS of {@link sais}, which keeps buckets and reduced problems in the free space of SA.
+         * Peak memory is n * 4 bytes for the result plus O(k) bytes of buckets (2 KB for byte input, 256 KB for String input).
+         * The only exception is a reduced problem whose alphabet doesn't fit into the free space of SA,
+         * which takes one more int array of at most n / 2 entries.
+         */
+        LOW_MEMORY
+    }
+
+    final int[] array;
+
+    /** input text for search (all but one of them are null) */
+    private final byte[] bytes;
+    private final String string;
+    private final int[] ints;
 
-    StringArray(String str) {
-        this.str = str;
+    public SuffixArray(String s) {
+        this(s, Mode.FAST);
     }
 
-    public int get(int i) {
-        return str.charAt(i);
+    public SuffixArray(String s, Mode mode) {
+        this(s, mode, null);
     }
 
-    public void set(int i, int value) {
-        throw new UnsupportedOperationException();
+    /**
+     * Construct suffix array by SA-IS of this class, collecting the time and allocation of each stage.
+     * @param s input text
+     * @param stats statistics to fill
+     */
+    public SuffixArray(String s, ConstructionStats stats) {
+        this(s, Mode.FAST, stats);
     }
 
-    public void fill(int value) {
-        throw new UnsupportedOperationException();
+    /**
+     * @param s input text
+     * @param mode construction mode
+     * @param stats statistics to fill, or null
+     */
+    public SuffixArray(String s, Mode mode, ConstructionStats stats) {
+        int n = s.length();
+
+        int[] SA = new int[n];
+        if (mode == Mode.LOW_MEMORY) {
+            sais.suffixsort(s, SA, n, stats);
+        } else {
+            SAIS(new CharSAISKernel(s.toCharArray()), SA, n, maxCharacter(s), null, workspace(stats), 0);
+        }
+        this.array = SA;
+        this.bytes = null;
+        this.string = s;
+        this.ints = null;
     }
-}
 
-class ByteArray implements BaseArray {
-    private byte[] array;
+    /**
+     * Construct suffix array by SA-IS of this class, running the block-parallel stages in pool.
+     * Induced sorting stays sequential, see {@link ParallelSAIS}.
+     * @param s input text
+     * @param pool thread pool for counting, classification and naming
+     */
+    public SuffixArray(String s, ForkJoinPool pool) {
+        this(s, pool, null);
+    }
 
-    ByteArray(byte[] array) {
-        this.array = array;
+    /**
+     * @param s input text
+     * @param pool thread pool for counting, classification and naming
+     * @param stats statistics to fill, or null
+     */
+    public SuffixArray(String s, ForkJoinPool pool, ConstructionStats stats) {
+        int n = s.length();
+
+        int[] SA = new int[n];
+        SAIS(new CharSAISKernel(s.toCharArray()), SA, n, maxCharacter(s), pool, workspace(stats), 0);
+        this.array = SA;
+        this.bytes = null;
+        this.string = s;
+        this.ints = null;
     }
 
-    public int get(int i) {
-        return array[i] & 0xff;
+    public SuffixArray(byte[] array) {
+        this(array, Mode.FAST);
     }
 
-    public void set(int i, int value) {
-        throw new UnsupportedOperationException();
+    public SuffixArray(byte[] array, Mode mode) {
+        this(array, mode, null);
     }
 
-    public void fill(int value) {
-        throw new UnsupportedOperationException();
+    /**
+     * Construct suffix array by SA-IS of this class, collecting the time and allocation of each stage.
+     * @param array input text
+     * @param stats statistics to fill
+     */
+    public SuffixArray(byte[] array, ConstructionStats stats) {
+        this(array, Mode.FAST, stats);
     }
-}
 
-class IntArray implements BaseArray {
-    int[] array;
+    /**
+     * @param array input text
+     * @param mode construction mode
+     * @param stats statistics to fill, or null
+     */
+    public SuffixArray(byte[] array, Mode mode, ConstructionStats stats) {
+        int n = array.length;
 
-    IntArray(int[] array) {
-        this.array = array;
+        int[] SA = new int[n];
+        if (mode == Mode.LOW_MEMORY) {
+            sais.suffixsort(array, SA, n, stats);
+        } else {
+            SAIS(new ByteSAISKernel(array), SA, n, BYTE_MAX_VALUE, null, workspace(stats), 0);
+        }
+        this.array = SA;
+        this.bytes = array;
+        this.string = null;
+        this.ints = null;
     }
 
-    public int[] getArray() {
-        return array;
+    /**
+     * Construct suffix array by SA-IS of this class, running the block-parallel stages in pool.
+     * Induced sorting stays sequential, see {@link ParallelSAIS}.
+     * @param array input text
+     * @param pool thread pool for counting, classification and naming
+     */
+    public SuffixArray(byte[] array, ForkJoinPool pool) {
+        this(array, pool, null);
     }
 
-    public int get(int i) {
-        return array[i];
+    /**
+     * @param array input text
+     * @param pool thread pool for counting, classification and naming
+     * @param stats statistics to fill, or null (allocation in the pool isn't counted)
+     */
+    public SuffixArray(byte[] array, ForkJoinPool pool, ConstructionStats stats) {
+        int n = array.length;
+
+        int[] SA = new int[n];
+        SAIS(new ByteSAISKernel(array), SA, n, BYTE_MAX_VALUE, pool, workspace(stats), 0);
+        this.array = SA;
+        this.bytes = array;
+        this.string = null;
+        this.ints = null;
     }
 
-    public void set(int i, int value) {
-        array[i] = value;
+    /**
+     * Construct suffix array of int text, such as token ids.
+     * Characters are compared as signed ints; sparse or large alphabets are renamed to dense ranks before sorting
+     * (see {@link SuffixArrayBuilder#build(int[], int, int[])}).
+     * @param array input text
+     */
+    public SuffixArray(int[] array) {
+        this(array, Mode.FAST);
     }
 
-    public void fill(int value) {
-        Arrays.fill(array, value);
+    public SuffixArray(int[] array, Mode mode) {
+        this(array, mode, null);
     }
 
-    public void fill(int to, int value) {
-        throw new UnsupportedOperationException();
+    /**
+     * Construct suffix array by SA-IS of this class, collecting the time and allocation of each stage.
+     * @param array input text
+     * @param stats statistics to fill
+     */
+    public SuffixArray(int[] array, ConstructionStats stats) {
+        this(array, Mode.FAST, stats);
     }
-}
 
-class IntArrayWithOffset extends IntArray {
-    private int offset;
+    /**
+     * @param array input text
+     * @param mode construction mode
+     * @param stats statistics to fill, or null (levels are of the ranks if the alphabet is renamed)
+     */
+    public SuffixArray(int[] array, Mode mode, ConstructionStats stats) {
+        int n = array.length;
+
+        int[] SA = new int[n];
+        build(array, n, SA, mode, workspace(stats));
+        this.array = SA;
+        this.bytes = null;
+        this.string = null;
+        this.ints = array;
+    }
 
-    IntArrayWithOffset(int[] array, int offset) {
-        super(array);
-        this.offset = offset;
+    /**
+     * @param stats statistics to fill, or null
+     * @return new workspace which collects stats
+     */
+    private static SAISWorkspace workspace(ConstructionStats stats) {
+        SAISWorkspace workspace = new SAISWorkspace();
+        workspace.stats = stats;
+        return workspace;
     }
 
-    public int get(int i) {
-        return array[offset + i];
+    /**
+     * Construct suffix array of int text T[0..n-1] into SA[0..n-1], which is filled with 0.
+     * @param workspace working arrays of FAST mode, and statistics to fill of either mode
+     */
+    static void build(int[] T, int n, int[] SA, Mode mode, SAISWorkspace workspace) {
+        IntAlphabet alphabet = IntAlphabet.of(T, n);
+        if (mode == Mode.LOW_MEMORY) {
+            sais.suffixsort(alphabet.text, SA, n, alphabet.k + 1, workspace.stats);
+        } else {
+            SAIS(new IntSAISKernel(alphabet.text), SA, n, alphabet.k, null, workspace, 0);
+        }
     }
 
-    public void set(int i, int value) {
-        array[offset + i] = value;
+    /**
+     * @return suffix array itself, not a copy; use {@link ImmutableIndex} to share an index with code which may modify it
+     */
+    public int[] getArray() {
+        return array;
     }
 
-    public void fill(int to, int value) {
-        Arrays.fill(array, offset, offset + to, value);
+    /**
+     * Find the interval of suffixes which start with pattern.
+     * @param pattern pattern to search (this suffix array must be built from byte[])
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(byte[] pattern) {
+        byte[] T = bytes();
+        int start = Search.lowerBound(T, array, 0, array.length, pattern);
+        int end = Search.upperBound(T, array, start, array.length, pattern);
+        return new Range(start, end);
     }
-}
 
-public class SuffixArray {
-    int[] array;
+    /**
+     * Find the interval of suffixes which start with pattern.
+     * @param pattern pattern to search (this suffix array must be built from String)
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(String pattern) {
+        String T = string();
+        int start = Search.lowerBound(T, array, 0, array.length, pattern);
+        int end = Search.upperBound(T, array, start, array.length, pattern);
+        return new Range(start, end);
+    }
 
-    public SuffixArray(String s) {
-        int n = s.length();
+    /**
+     * Find the interval of suffixes which start with pattern.
+     * @param pattern pattern to search (this suffix array must be built from int[])
+     * @return interval of SA; empty if pattern doesn't occur
+     */
+    public Range range(int[] pattern) {
+        int[] T = ints();
+        int start = Search.lowerBound(T, array, 0, array.length, pattern);
+        int end = Search.upperBound(T, array, start, array.length, pattern);
+        return new Range(start, end);
+    }
 
-        BaseArray S = new StringArray(s);
+    /**
+     * @param pattern pattern to search (this suffix array must be built from byte[])
+     * @return number of occurrences of pattern
+     */
+    public int count(byte[] pattern) {
+        return range(pattern).size();
+    }
 
-        int[] sa = new int[n];
-        Arrays.fill(sa, -1);
-        IntArray SA = new IntArray(sa);
+    /**
+     * @param pattern pattern to search (this suffix array must be built from String)
+     * @return number of occurrences of pattern
+     */
+    public int count(String pattern) {
+        return range(pattern).size();
+    }
 
-        SAIS(S, SA, n, Character.MAX_VALUE);
-        this.array = SA.getArray();
+    /**
+     * @param pattern pattern to search (this suffix array must be built from int[])
+     * @return number of occurrences of pattern
+     */
+    public int count(int[] pattern) {
+        return range(pattern).size();
     }
 
-    public SuffixArray(byte[] array) {
-        int n = array.length;
+    /**
+     * @param pattern pattern to search (this suffix array must be built from byte[])
+     * @return start positions of occurrences of pattern, in the order of suffixes
+     */
+    public IntStream locate(byte[] pattern) {
+        Range range = range(pattern);
+        return Arrays.stream(array, range.start(), range.end());
+    }
 
-        BaseArray S = new ByteArray(array);
+    /**
+     * @param pattern pattern to search (this suffix array must be built from String)
+     * @return start positions of occurrences of pattern, in the order of suffixes
+     */
+    public IntStream locate(String pattern) {
+        Range range = range(pattern);
+        return Arrays.stream(array, range.start(), range.end());
+    }
 
-        int[] sa = new int[n];
-        Arrays.fill(sa, -1);
-        IntArray SA = new IntArray(sa);
+    /**
+     * @param pattern pattern to search (this suffix array must be built from int[])
+     * @return start positions of occurrences of pattern, in the order of suffixes
+     */
+    public IntStream locate(int[] pattern) {
+        Range range = range(pattern);
+        return Arrays.stream(array, range.start(), range.end());
+    }
 
-        SAIS(S, SA, n, Character.MAX_VALUE);
-        this.array = SA.getArray();
+    /**
+     * Construct LCP array by {@link LCP#phi(byte[], int[])}.
+     * The result is not cached; use {@link LCP#plcp(byte[], int[])} to keep the LCP values in half the memory.
+     * @return LCP array; LCP[i] is the length of the longest common prefix of suffixes SA[i - 1] and SA[i]
+     */
+    public int[] computeLCP() {
+        if (ints != null) {
+            return LCP.phi(ints, array);
+        }
+        return bytes != null ? LCP.phi(bytes, array) : LCP.phi(string, array);
     }
 
-    public int[] getArray() {
-        return array;
+    byte[] bytes() {
+        if (bytes == null) {
+            throw new IllegalStateException("suffix array is built from " + inputType() + "; search it with " + inputType() + " patterns");
+        }
+        return bytes;
+    }
+
+    private String string() {
+        if (string == null) {
+            throw new IllegalStateException("suffix array is built from " + inputType() + "; search it with " + inputType() + " patterns");
+        }
+        return string;
+    }
+
+    private int[] ints() {
+        if (ints == null) {
+            throw new IllegalStateException("suffix array is built from " + inputType() + "; search it with " + inputType() + " patterns");
+        }
+        return ints;
+    }
+
+    private String inputType() {
+        return bytes != null ? "byte[]" : string != null ? "String" : "int[]";
+    }
+
+    /**
+     * Find max character value of s, so that alphabet-sized arrays don't have to cover all 65536 characters.
+     * @param s input string
+     * @return max character value (0 if s is empty)
+     */
+    static int maxCharacter(String s) {
+        int max = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch > max) {
+                max = ch;
+            }
+        }
+        return max;
     }
 
     /**
      * Construct suffix array of input S and set to given array SA.
      * This method would be called recursively.
      * @param S input string
-     * @param SA suffix array to construct (filled with minus values initially)
+     * @param SA suffix array to construct (filled with 0 initially)
      * @param n length of S
      * @param k max character value
      */
-    static void SAIS(BaseArray S, BaseArray SA, int n, int k) {
+    static void SAIS(SAISKernel S, int[] SA, int n, int k) {
+        SAIS(S, SA, n, k, null);
+    }
+
+    /**
+     * Construct suffix array of input S and set to given array SA.
+     * Levels of at least {@link ParallelSAIS#MIN_PARALLEL_LENGTH} characters run the stages of {@link ParallelSAIS} in pool.
+     * @param pool thread pool, or null to run sequentially
+     */
+    static void SAIS(SAISKernel S, int[] SA, int n, int k, ForkJoinPool pool) {
+        SAIS(S, SA, n, k, pool, new SAISWorkspace(), 0);
+    }
+
+    /**
+     * Construct suffix array of input S and set to given array SA, taking the working arrays from workspace.
+     * @param workspace working arrays, which are grown as needed
+     * @param depth recursion level (0 for the input)
+     */
+    static void SAIS(SAISKernel S, int[] SA, int n, int k, ForkJoinPool pool, SAISWorkspace workspace, int depth) {
         if (n == 0) {
+            if (workspace.stats != null) {
+                workspace.stats.clear();
+            }
             return;
         }
-
-        int[] count = new int[k + 1];     // takes 4 * k bytes of memory / call
-        int[] pointers = new int[k + 1];  // takes 4 * k bytes of memory / call
-        BitSet isTypeS = new BitSet(n);   // takes n bits of memory / call
-        BitSet isTypeLMS = new BitSet(n); // takes n bits of memory / call
-
-        int n1 = countAndSetTypes(S, count, isTypeS, isTypeLMS, n);
+        SAISWorkspace.Level level = workspace.level(depth);
+        ConstructionStats.Level stats = workspace.stats == null ? null : workspace.stats.start(depth, n, k);
+
+        int[] count = level.count = SAISWorkspace.grow(level.count, k + 1);       // takes 4 * k bytes of memory / call
+        int[] pointers = level.pointers = SAISWorkspace.grow(level.pointers, k + 1); // takes 4 * k bytes of memory / call
+        Arrays.fill(count, 0, k + 1, 0);
+        long[] isTypeS;                   // takes n bits of memory / call (LMS-Type is derived from it)
+        int n1;
+        if (ParallelSAIS.isParallelCount(pool, n, k)) {
+            isTypeS = ParallelSAIS.countAndSetTypes(S, count, n, pool);
+            n1 = ParallelSAIS.countLMS(isTypeS);
+        } else {
+            isTypeS = level.isTypeS = SAISWorkspace.grow(level.isTypeS, (n + 63) >>> 6);
+            n1 = S.countAndSetTypes(count, isTypeS, n);
+        }
 
         // stage 1
         // prepare buckets (2 buckets takes 8 * k bytes of memory / call)
-        int[] bucketHeadPointers = getbucketHeadPointers(count); // head index
-        int[] bucketTailPointers = getbucketTailPointers(count); // tail index
-
-        BaseArray P1 = new IntArray(new int[n1]); // takes at most 4 * n bytes of memory (total)
+        int[] bucketHeadPointers = level.bucketHeadPointers = SAISWorkspace.grow(level.bucketHeadPointers, k + 1);
+        int[] bucketTailPointers = level.bucketTailPointers = SAISWorkspace.grow(level.bucketTailPointers, k + 1);
+        setBucketHeadPointers(count, bucketHeadPointers, k);
+        setBucketTailPointers(count, bucketTailPointers, k);
+
+        int[] P1 = level.P1 = SAISWorkspace.grow(level.P1, n1); // takes at most 4 * n bytes of memory (total)
+
+        System.arraycopy(bucketTailPointers, 0, pointers, 0, k + 1);
+        S.sortLMSByFirstCharacter(SA, P1, isTypeS, pointers, n, n1);
+        System.arraycopy(bucketHeadPointers, 0, pointers, 0, k + 1);
+        if (ParallelSAIS.isParallelInduction(pool, n)) {
+            ParallelSAIS.sortTypeL(S, SA, pointers, n, pool);
+        } else {
+            S.sortTypeL(SA, pointers, n);
+        }
+        System.arraycopy(bucketTailPointers, 0, pointers, 0, k + 1);
+        if (ParallelSAIS.isParallelInduction(pool, n)) {
+            ParallelSAIS.sortTypeS(S, SA, pointers, n, pool);
+        } else {
+            S.sortTypeS(SA, pointers, n);
+        }
 
-        sortLMSByFirstCharacter(S, SA, P1, isTypeLMS, bucketTailPointers, pointers, n, n1);
-        sortTypeL(S, SA, isTypeS, bucketHeadPointers, pointers, n);
-        sortTypeS(S, SA, isTypeS, bucketTailPointers, pointers, n);
+        int[] LMS = level.LMS = SAISWorkspace.grow(level.LMS, n1); // takes at most 4 * n bytes of memory (total)
+        extractSortedLMS(SA, LMS, isTypeS, n);
 
-        int[] LMS = new int[n1]; // takes at most 4 * n bytes of memory (total)
-        extractSortedLMS(SA, LMS, isTypeLMS, n);
+        int[] names = level.names = SAISWorkspace.grow(level.names, (n + 1) / 2); // takes at most 4 * n bytes of memory (total)
+        Arrays.fill(names, 0, (n + 1) / 2, 0);
 
-        BaseArray names = new IntArray(new int[(n + 1) / 2]); // takes at most 4 * n bytes of memory (total)
+        int maxCh = ParallelSAIS.isParallel(pool, n1)
+                ? ParallelSAIS.nameLMSSubstrings(S, LMS, names, isTypeS, n, n1, pool)
+                : S.nameLMSSubstrings(LMS, names, isTypeS, n, 0, n1);
 
-        int maxCh = nameLMSSubstrings(S, LMS, names, isTypeLMS, n, n1);
+        if (stats != null) {
+            stats.reduced(n1, maxCh);
+            stats.finish(ConstructionStats.Stage.SORT_LMS_SUBSTRINGS);
+        }
 
         // stage 2
         // check last 'name' whether names are unique or duplicated
         if (maxCh < n1) {
             // not unique LMS-Substrings
 
-            BaseArray S1 = new IntArray(new int[n1]); // takes at most 4 * n bytes of memory (total)
+            int[] S1 = SAISWorkspace.grow(level.S1, n1); // takes at most 4 * n bytes of memory (total)
+            if (S1 != level.S1) {
+                level.S1 = S1;
+                level.kernel = new IntSAISKernel(S1);
+            }
             extractRenamedString(S1, names, n);
 
-            BaseArray SA1 = new IntArray(new int[n1]); // takes at most 4 * n bytes of memory (total)
-            SAIS(S1, SA1, n1, maxCh);
+            int[] SA1 = level.SA1 = SAISWorkspace.grow(level.SA1, n1); // takes at most 4 * n bytes of memory (total)
+            Arrays.fill(SA1, 0, n1, 0);
+            SAIS(level.kernel, SA1, n1, maxCh, pool, workspace, depth + 1);
 
-            for (int i = 0; i < n1; i++) {
-                // TODO P1 のかわりに isTypeLMS を使う
-                LMS[i] = P1.get(SA1.get(i)); // overwrite to reduce memory
+            if (ParallelSAIS.isParallel(pool, n1)) {
+                ParallelSAIS.mapLMS(LMS, P1, SA1, n1, pool);
+            } else {
+                for (int i = 0; i < n1; i++) {
+                    // TODO P1 のかわりに isTypeLMS を使う
+                    LMS[i] = P1[SA1[i]]; // overwrite to reduce memory
+                }
             }
         }
 
+        if (stats != null) {
+            stats.finish(ConstructionStats.Stage.SOLVE_REDUCED_PROBLEM);
+        }
+
         // stage 3
         // now, LMS is Type-LMS suffix array (LMSSA)
         // induce LMSSA to SA
-        SA.fill(0);
-        setTypeLMS(S, SA, LMS, bucketTailPointers, pointers, n1);
-        sortTypeL(S, SA, isTypeS, bucketHeadPointers, pointers, n);
-        sortTypeS(S, SA, isTypeS, bucketTailPointers, pointers, n);
-    }
-
-    /**
-     * Iterate string S from last index to first.
-     * This method have side-effects to return multiple arrays (count, isTypeS, isTypeLMS),
-     * but don't require additional memory.
-     * @param S input string
-     * @param count empty array for storing count
-     * @param isTypeS empty array for storing whether S-Type or not
-     * @param isTypeLMS empty array for storing whether leftmost S-Type or not
-     * @return number of LMS-Type characters
-     */
-    static int countAndSetTypes(BaseArray S, int[] count, BitSet isTypeS, BitSet isTypeLMS, int n) {
-        // process last index of S
-        int i = n - 1;
-        int ch = S.get(i);
-
-        count[ch]++;
-        isTypeS.set(i, false); // last character is always Type-L considering virtual sentinel
-
-        int countLMS = 0;
-        int ch2;
-        for (i = n - 2; i >= 0; i--) {
-            ch2 = ch;
-            ch = S.get(i);
-
-            count[ch]++;
-            isTypeS.set(i, ch < ch2 || (ch == ch2 && isTypeS.get(i + 1))); // ch < ch2 なら S-Type, 同じ文字なら次の文字と同じ Type
-
-            // this condition is true when:
-            //       [i] [i+1]
-            // Type:  L    S
-            if (!isTypeS.get(i) && isTypeS.get(i + 1)) {
-                isTypeLMS.set(i + 1, true);
-                countLMS++;
-            }
+        if (ParallelSAIS.isParallel(pool, n)) {
+            ParallelSAIS.clear(SA, n, pool);
+        } else {
+            Arrays.fill(SA, 0, n, 0);
+        }
+        System.arraycopy(bucketTailPointers, 0, pointers, 0, k + 1);
+        S.setTypeLMS(SA, LMS, pointers, n1);
+        System.arraycopy(bucketHeadPointers, 0, pointers, 0, k + 1);
+        if (ParallelSAIS.isParallelInduction(pool, n)) {
+            ParallelSAIS.sortTypeL(S, SA, pointers, n, pool);
+        } else {
+            S.sortTypeL(SA, pointers, n);
+        }
+        System.arraycopy(bucketTailPointers, 0, pointers, 0, k + 1);
+        if (ParallelSAIS.isParallelInduction(pool, n)) {
+            ParallelSAIS.sortTypeS(S, SA, pointers, n, pool);
+        } else {
+            S.sortTypeS(SA, pointers, n);
+        }
+        if (stats != null) {
+            stats.finish(ConstructionStats.Stage.INDUCE);
         }
-        return countLMS;
     }
 
     /**
      * Prepare head pointer bucket
      * @param count array of character count
-     * @return pointers which points head of each character's bucket
+     * @param bucket array to set pointers which point head of each character's bucket
+     * @param k max character value
      */
-    private static int[] getbucketHeadPointers(int[] count) {
+    private static void setBucketHeadPointers(int[] count, int[] bucket, int k) {
         int sum = 0;
-        int[] bucket = new int[count.length];
-        for (int i = 0; i < count.length; i++) {
+        for (int i = 0; i <= k; i++) {
             sum += count[i];
             bucket[i] = sum - count[i];
         }
-        return bucket;
     }
 
     /**
      * Prepare tail pointer bucket
      * @param count array of character count
-     * @return pointers which points tail of each character's bucket
+     * @param bucket array to set pointers which point tail of each character's bucket
+     * @param k max character value
      */
-    private static int[] getbucketTailPointers(int[] count) {
+    private static void setBucketTailPointers(int[] count, int[] bucket, int k) {
         int sum = -1;
-        int[] bucket = new int[count.length];
-        for (int i = 0; i < count.length; i++) {
+        for (int i = 0; i <= k; i++) {
             sum += count[i];
             bucket[i] = sum;
         }
-        return bucket;
-    }
-
-    /**
-     * Sort LMS-Type by first character, and construct P1
-     */
-    private static void sortLMSByFirstCharacter(BaseArray S, BaseArray SA, BaseArray P1, BitSet isTypeLMS, int[] bucketTailPointers, int[] pointers, int n, int n1) {
-        Arrays.fill(pointers, 0);
-        int p1 = n1 - 1;
-        for (int i = n - 1; i >= 0; i--) {
-            if (isTypeLMS.get(i)) {
-                int ch = S.get(i);
-                int pointer = bucketTailPointers[ch] - pointers[ch];
-                pointers[ch]++; assert SA.get(pointer) <= 0;
-                SA.set(pointer, i);
-
-                P1.set(p1--, i);
-            }
-        }
-    }
-
-    /**
-     * Sort L-Type
-     */
-    private static void sortTypeL(BaseArray S, BaseArray SA, BitSet isTypeS, int[] bucketHeadPointers, int[] pointers, int n) {
-        Arrays.fill(pointers, 0);
-
-        // consider virtual sentinel
-        // if sentinel exists, first we look at the character in front of sentinel
-        {
-            int ch = S.get(n - 1);
-            int pointer = bucketHeadPointers[ch] + pointers[ch];
-            pointers[ch]++;
-            assert SA.get(pointer) <= 0;
-            SA.set(pointer, n - 1);
-        }
-
-        for (int i = 0; i < n; i++) {
-            if (SA.get(i) <= 0) {
-                continue;
-            }
-            if (!isTypeS.get(SA.get(i) - 1)) {
-                // L-Type
-                int ch = S.get(SA.get(i) - 1);
-                int pointer = bucketHeadPointers[ch] + pointers[ch];
-                pointers[ch]++; assert SA.get(pointer) <= 0;
-                SA.set(pointer, SA.get(i) - 1);
-            }
-        }
-    }
-
-    /**
-     * Sort S-Type, and set to SA
-     */
-    private static void sortTypeS(BaseArray S, BaseArray SA, BitSet isTypeS, int[] bucketTailPointers, int[] pointers, int n) {
-        Arrays.fill(pointers, 0);
-        for (int i = n - 1; i >= 0; i--) {
-            if (SA.get(i) <= 0) {
-                continue;
-            }
-            if (isTypeS.get(SA.get(i) - 1)) {
-                // S-Type
-                int ch = S.get(SA.get(i) - 1);
-                int pointer = bucketTailPointers[ch] - pointers[ch];
-                pointers[ch]++;
-                SA.set(pointer, SA.get(i) - 1);
-            }
-        }
     }
 
     /**
      * Extract sorted LMS from SA
      */
-    private static void extractSortedLMS(BaseArray SA, int[] LMS, BitSet isTypeLMS, int n) {
+    private static void extractSortedLMS(int[] SA, int[] LMS, long[] isTypeS, int n) {
         int lmsPointer = 0; // LMSSubstrings index to set
         for (int i = 0; i < n; i++) {
-            if (isTypeLMS.get(SA.get(i))) {
-                LMS[lmsPointer++] = SA.get(i);
-            }
-        }
-    }
-
-    /**
-     * Set LMS-Type to SA
-     */
-    private static void setTypeLMS(BaseArray S, BaseArray SA, int[] lmsSubstrings, int[] bucketTailPointers, int[] pointers, int n1) {
-        Arrays.fill(pointers, 0);
-        for (int i = n1 - 1; i >= 0; i--) {
-            int lms = lmsSubstrings[i];
-            int ch = S.get(lms);
-            int pointer = bucketTailPointers[ch] - pointers[ch];
-            pointers[ch]++; // assert SA.get(pointer) <= 0;
-            SA.set(pointer, lms);
-        }
-    }
-
-    /**
-     * Name all LMSSubstrings.
-     * Same LMSSubstrings would have same names.
-     * This method have side-effects to an array names, but don't require additional memory.
-     * (return max name)
-     */
-    private static int nameLMSSubstrings(BaseArray S, int[] lmsSubstrings, BaseArray names, BitSet isTypeLMS, int n, int n1) {
-        if (n1 == 0) {
-            return 0;
-        }
-
-        int name = 1;
-        if (n1 == 1) {
-            names.set(0, name);
-            return name;
-        }
-
-        names.set(lmsSubstrings[0] / 2, name);
-
-        for (int i = 1; i < n1; i++) {
-            int p0 = lmsSubstrings[i - 1];
-            int p1 = lmsSubstrings[i];
-
-            // compare first character
-            int ch0 = S.get(p0);
-            int ch1 = S.get(p1);
-            if (ch0 != ch1) {
-                names.set(lmsSubstrings[i] / 2, ++name);
-                continue;
-            }
-            if (p0 == n - 1 ^ p1 == n - 1) {
-                names.set(lmsSubstrings[i] / 2, ++name);
-                continue;
-            } else if (p0 == n - 1 /* && p1 == n - 1 */) {
-                names.set(lmsSubstrings[i] / 2, name);
-                continue;
-            }
-            p0++;
-            p1++;
-
-            // compare after second character
-            while (true) {
-                ch0 = S.get(p0);
-                ch1 = S.get(p1);
-                if (ch0 != ch1) {
-                    name++;
-                    break;
-                }
-                if (p0 == n - 1 ^ p1 == n - 1) {
-                    name++;
-                    break;
-                } else if (p0 == n - 1 /* && p1 == n - 1 */) {
-                    break;
-                }
-                if (isTypeLMS.get(p0) ^ isTypeLMS.get(p1)) {
-                    name++;
-                    break;
-                } else if (isTypeLMS.get(p0) && isTypeLMS.get(p1)) {
-                    break;
-                }
-                p0++;
-                p1++;
+            if (SAISKernel.isTypeLMS(isTypeS, SA[i])) {
+                LMS[lmsPointer++] = SA[i];
             }
-            names.set(lmsSubstrings[i] / 2, name);
         }
-        return name;
     }
 
     /**
@@ -430,12 +560,12 @@ public class SuffixArray {
      * @param n input size
      * @param names sparse array
      */
-    private static void extractRenamedString(BaseArray S1, BaseArray names, int n) {
+    private static void extractRenamedString(int[] S1, int[] names, int n) {
         int j = 0;
         for (int i = 0; i < n / 2; i++) {
-            int name = names.get(i);
+            int name = names[i];
             if (name > 0) {
-                S1.set(j++, name);
+                S1[j++] = name;
             }
         }
     }
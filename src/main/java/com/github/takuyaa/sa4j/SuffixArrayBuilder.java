@@ -0,0 +1,190 @@
+package com.github.takuyaa.sa4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builder of many suffix arrays by SA-IS of {@link SuffixArray}, for collections of small documents.
+ * Each thread keeps its working arrays between builds and grows them to the largest input seen,
+ * so that building into caller-supplied arrays allocates nothing once the workspace is warm.
+ * A builder can be shared by threads.
+ */
+public class SuffixArrayBuilder {
+    private final ThreadLocal<SAISWorkspace> workspaces = ThreadLocal.withInitial(SAISWorkspace::new);
+
+    /**
+     * Construct suffix array of T[0..n-1] into SA[0..n-1].
+     * @param T input text
+     * @param n length of the text
+     * @param SA array of at least n entries to store the suffix array; its contents are overwritten
+     * @return SA
+     */
+    public int[] build(byte[] T, int n, int[] SA) {
+        return build(T, n, SA, null);
+    }
+
+    /**
+     * Construct suffix array of T[0..n-1] into SA[0..n-1], collecting the time and allocation of each stage.
+     * @param stats statistics to fill, or null
+     * @return SA
+     */
+    public int[] build(byte[] T, int n, int[] SA, ConstructionStats stats) {
+        checkLength(T.length, n, SA);
+        Arrays.fill(SA, 0, n, 0);
+        SAISWorkspace workspace = workspace(stats);
+        try {
+            SuffixArray.SAIS(new ByteSAISKernel(T), SA, n, SuffixArray.BYTE_MAX_VALUE, null, workspace, 0);
+        } finally {
+            workspace.stats = null;
+        }
+        return SA;
+    }
+
+    /**
+     * @param T input text
+     * @return suffix array of T
+     */
+    public int[] build(byte[] T) {
+        return build(T, T.length, new int[T.length]);
+    }
+
+    /**
+     * Construct suffix array of int text T[0..n-1] into SA[0..n-1], such as token ids of a large vocabulary.
+     * Characters are compared as signed ints. If the values are negative or larger than max(n / 4, 65535),
+     * they are renamed to dense ranks first, which takes 4n bytes besides the working arrays;
+     * otherwise T is sorted as it is, with buckets of max value + 1 entries.
+     * @param T input text
+     * @param n length of the text
+     * @param SA array of at least n entries to store the suffix array; its contents are overwritten
+     * @return SA
+     */
+    public int[] build(int[] T, int n, int[] SA) {
+        return build(T, n, SA, null);
+    }
+
+    /**
+     * Construct suffix array of int text T[0..n-1] into SA[0..n-1], collecting the time and allocation of each stage.
+     * @param stats statistics to fill, or null
+     * @return SA
+     */
+    public int[] build(int[] T, int n, int[] SA, ConstructionStats stats) {
+        checkLength(T.length, n, SA);
+        Arrays.fill(SA, 0, n, 0);
+        SAISWorkspace workspace = workspace(stats);
+        try {
+            SuffixArray.build(T, n, SA, SuffixArray.Mode.FAST, workspace);
+        } finally {
+            workspace.stats = null;
+        }
+        return SA;
+    }
+
+    /**
+     * @param T input text
+     * @return suffix array of T
+     */
+    public int[] build(int[] T) {
+        return build(T, T.length, new int[T.length]);
+    }
+
+    /**
+     * Construct suffix array of s into SA[0..s.length()-1].
+     * @param s input text
+     * @param SA array of at least s.length() entries to store the suffix array; its contents are overwritten
+     * @return SA
+     */
+    public int[] build(String s, int[] SA) {
+        return build(s, SA, null);
+    }
+
+    /**
+     * Construct suffix array of s into SA[0..s.length()-1], collecting the time and allocation of each stage.
+     * @param stats statistics to fill, or null
+     * @return SA
+     */
+    public int[] build(String s, int[] SA, ConstructionStats stats) {
+        int n = s.length();
+        checkLength(n, n, SA);
+        Arrays.fill(SA, 0, n, 0);
+        SAISWorkspace workspace = workspace(stats);
+        try {
+            SuffixArray.SAIS(new CharSAISKernel(s.toCharArray()), SA, n, SuffixArray.maxCharacter(s), null, workspace, 0);
+        } finally {
+            workspace.stats = null;
+        }
+        return SA;
+    }
+
+    /**
+     * @param s input text
+     * @return suffix array of s
+     */
+    public int[] build(String s) {
+        return build(s, new int[s.length()]);
+    }
+
+    /**
+     * Construct suffix arrays of documents in pool, each of them by a single thread.
+     * @param documents input texts
+     * @param SAs SAs[i] is an array of at least documents.get(i).length entries to store the suffix array of document i,
+     *            or null to allocate a new one
+     * @param pool thread pool to spread documents over
+     * @return SAs
+     */
+    public int[][] buildAll(List<byte[]> documents, int[][] SAs, ForkJoinPool pool) {
+        if (SAs.length != documents.size()) {
+            throw new IllegalArgumentException(SAs.length + " arrays for " + documents.size() + " documents");
+        }
+        int size = documents.size();
+        if (size == 0) {
+            return SAs;
+        }
+        // a few documents per task, so that scheduling doesn't dominate tiny documents
+        int blockSize = Math.max(1, size / (pool.getParallelism() * 16));
+        ParallelSAIS.forEachBlock(pool, size, blockSize, (b, from, to) -> {
+            for (int i = from; i < to; i++) {
+                byte[] T = documents.get(i);
+                if (SAs[i] == null) {
+                    SAs[i] = new int[T.length];
+                }
+                build(T, T.length, SAs[i]);
+            }
+        });
+        return SAs;
+    }
+
+    /**
+     * @param documents input texts
+     * @param pool thread pool to spread documents over
+     * @return suffix arrays of documents
+     */
+    public int[][] buildAll(List<byte[]> documents, ForkJoinPool pool) {
+        return buildAll(documents, new int[documents.size()][], pool);
+    }
+
+    /**
+     * @return workspace of the calling thread, which collects stats until it is reset to null
+     */
+    private SAISWorkspace workspace(ConstructionStats stats) {
+        SAISWorkspace workspace = workspaces.get();
+        workspace.stats = stats;
+        return workspace;
+    }
+
+    /**
+     * @return approximate heap size of the working arrays of the calling thread in bytes
+     */
+    public long workspaceSizeInBytes() {
+        return workspaces.get().sizeInBytes();
+    }
+
+    private static void checkLength(int length, int n, int[] SA) {
+        if (n < 0 || n > length) {
+            throw new IndexOutOfBoundsException("length: " + n + ", text length: " + length);
+        }
+        if (SA.length < n) {
+            throw new IllegalArgumentException("SA has " + SA.length + " entries for text of " + n + " characters");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.takuyaa.sa4j;
+
+/**
+ * Wavelet matrix over a sequence of small integers (at most 8 bits),
+ * which supports access and rank in time proportional to the number of bits.
+ * Level l holds bit (bits - 1 - l) of each value, after the values are stably sorted by the upper bits in reverse.
+ */
+final class WaveletMatrix {
+    private final BitVector[] levels;
+    /** zeros[l] is the number of 0s in level l */
+    private final int[] zeros;
+    /** begin[c] is the first position of c in the order after the last level */
+    private final int[] begin;
+    private final int bits;
+
+    /**
+     * @param values sequence of values in [0, 2^bits) (taken unsigned); overwritten
+     * @param n length of values
+     * @param bits bits per value, 0 to 8
+     */
+    WaveletMatrix(byte[] values, int n, int bits) {
+        this.bits = bits;
+        this.levels = new BitVector[bits];
+        this.zeros = new int[bits];
+
+        byte[] current = values;
+        byte[] next = new byte[n];
+        for (int l = 0; l < bits; l++) {
+            int shift = bits - 1 - l;
+            long[] words = new long[BitVector.words(n)];
+            int z = 0;
+            for (int i = 0; i < n; i++) {
+                if (((current[i] & 0xff) >>> shift & 1) != 0) {
+                    words[i >>> 6] |= 1L << i;
+                } else {
+                    z++;
+                }
+            }
+            // stable partition: 0s first, then 1s
+            for (int i = 0, p0 = 0, p1 = z; i < n; i++) {
+                byte v = current[i];
+                if (((v & 0xff) >>> shift & 1) != 0) {
+                    next[p1++] = v;
+                } else {
+                    next[p0++] = v;
+                }
+            }
+            levels[l] = new BitVector(words, n);
+            zeros[l] = z;
+            byte[] tmp = current;
+            current = next;
+            next = tmp;
+        }
+
+        this.begin = new int[1 << bits];
+        for (int c = 0; c < begin.length; c++) {
+            begin[c] = descend(c, 0);
+        }
+    }
+
+    /**
+     * Map position i to the order after the last level, following the bits of c.
+     */
+    private int descend(int c, int i) {
+        for (int l = 0; l < bits; l++) {
+            BitVector level = levels[l];
+            if ((c >>> (bits - 1 - l) & 1) != 0) {
+                i = zeros[l] + level.rank1(i);
+            } else {
+                i = level.rank0(i);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @return value at position i
+     */
+    int access(int i) {
+        int c = 0;
+        for (int l = 0; l < bits; l++) {
+            BitVector level = levels[l];
+            if (level.get(i)) {
+                c = c << 1 | 1;
+                i = zeros[l] + level.rank1(i);
+            } else {
+                c <<= 1;
+                i = level.rank0(i);
+            }
+        }
+        return c;
+    }
+
+    /**
+     * @return number of occurrences of c in [0, i)
+     */
+    int rank(int c, int i) {
+        return descend(c, i) - begin[c];
+    }
+
+    /**
+     * Access and rank in a single pass.
+     * @return value c at position i in the lower 32 bits, and rank(c, i) in the upper 32 bits
+     */
+    long accessAndRank(int i) {
+        int c = 0;
+        for (int l = 0; l < bits; l++) {
+            BitVector level = levels[l];
+            if (level.get(i)) {
+                c = c << 1 | 1;
+                i = zeros[l] + level.rank1(i);
+            } else {
+                c <<= 1;
+                i = level.rank0(i);
+            }
+        }
+        return (long) (i - begin[c]) << 32 | c;
+    }
+
+    /**
+     * @return approximate heap size in bytes
+     */
+    long sizeInBytes() {
+        long size = (zeros.length + begin.length) * 4L;
+        for (BitVector level : levels) {
+            size += level.sizeInBytes();
+        }
+        return size;
+    }
+}
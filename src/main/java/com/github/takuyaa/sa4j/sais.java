@@ -239,7 +239,8 @@ public class sais {
      use a working space (excluding T and SA) of at most 2n+O(1) for a constant alphabet */
   private static
   int
-  SA_IS(BaseArray T, int[] SA, int fs, int n, int k) {
+  SA_IS(BaseArray T, int[] SA, int fs, int n, int k, boolean isbwt, ConstructionStats stats, int depth) {
+    ConstructionStats.Level level = (stats != null) ? stats.start(depth, n, k - 1) : null;
     BaseArray C, B, RA;
     int i, j, b, c, m, p, q, name, pidx = 0, newfs;
     int c0, c1;
@@ -281,6 +282,7 @@ public class sais {
     } else {
       name = 0;
     }
+    if(level != null) { level.reduced(m, name); level.finish(ConstructionStats.Stage.SORT_LMS_SUBSTRINGS); }
 
     /* stage 2: solve the reduced problem
        recurse if names are not yet unique */
@@ -296,7 +298,7 @@ public class sais {
         if(SA[i] != 0) { SA[j--] = SA[i] - 1; }
       }
       RA = new IntArray(SA, m + newfs);
-      SA_IS(RA, SA, newfs, m, name);
+      SA_IS(RA, SA, newfs, m, name, false, stats, depth + 1);
       RA = null;
 
       i = n - 1; j = m * 2 - 1; c0 = T.get(n - 1);
@@ -313,6 +315,7 @@ public class sais {
       if((flags & 4) != 0) { C = B = new IntArray(new int[k], 0); }
       if((flags & 2) != 0) { B = new IntArray(new int[k], 0); }
     }
+    if(level != null) { level.finish(ConstructionStats.Stage.SOLVE_REDUCED_PROBLEM); }
 
     /* stage 3: induce the result for the original problem */
     if((flags & 8) != 0) { getCounts(T, C, n, k); }
@@ -331,54 +334,210 @@ public class sais {
       } while(0 <= i);
       while(0 < j) { SA[--j] = 0; }
     }
-      induceSA(T, SA, C, B, n, k);
+    if(isbwt == false) { induceSA(T, SA, C, B, n, k); }
+    else { pidx = computeBWT(T, SA, C, B, n, k); }
+    if(level != null) { level.finish(ConstructionStats.Stage.INDUCE); }
     return pidx;
   }
 
+  /* inputs of less than 2 characters aren't sorted by SA_IS, and leave no levels */
+  private static
+  int
+  trivial(int[] SA, int n, ConstructionStats stats) {
+    if(stats != null) { stats.clear(); }
+    if(n == 1) { SA[0] = 0; }
+    return 0;
+  }
+
   /** Suffixsorting **/
   /* byte */
   public static
   int
   suffixsort(byte[] T, int[] SA, int n) {
+    return suffixsort(T, SA, n, null);
+  }
+  /* byte with the statistics of each stage and recursion level, or null */
+  public static
+  int
+  suffixsort(byte[] T, int[] SA, int n, ConstructionStats stats) {
     if((T == null) || (SA == null) || (T.length < n) || (SA.length < n)) { return -1; }
-    if(n <= 1) { if(n == 1) { SA[0] = 0; } return 0; }
-    return SA_IS(new ByteArray(T, 0), SA, 0, n, 256);
+    if(n <= 1) { return trivial(SA, n, stats); }
+    return SA_IS(new ByteArray(T, 0), SA, 0, n, 256, false, stats, 0);
   }
   /* char */
   public static
   int
   suffixsort(char[] T, int[] SA, int n) {
+    return suffixsort(T, SA, n, null);
+  }
+  /* char with the statistics of each stage and recursion level, or null */
+  public static
+  int
+  suffixsort(char[] T, int[] SA, int n, ConstructionStats stats) {
     if((T == null) || (SA == null) || (T.length < n) || (SA.length < n)) { return -1; }
-    if(n <= 1) { if(n == 1) { SA[0] = 0; } return 0; }
-    return SA_IS(new CharArray(T, 0), SA, 0, n, 65536);
+    if(n <= 1) { return trivial(SA, n, stats); }
+    return SA_IS(new CharArray(T, 0), SA, 0, n, 65536, false, stats, 0);
   }
   /* short */
   public static
   int
   suffixsort(short[] T, int[] SA, int n, int k) {
+    return suffixsort(T, SA, n, k, null);
+  }
+  /* short with the statistics of each stage and recursion level, or null */
+  public static
+  int
+  suffixsort(short[] T, int[] SA, int n, int k, ConstructionStats stats) {
     if((T == null) || (SA == null) ||
        (T.length < n) || (SA.length < n) ||
        (k <= 0) || (65536 < k)) { return -1; }
-    if(n <= 1) { if(n == 1) { SA[0] = 0; } return 0; }
-    return SA_IS(new ShortArray(T, 0), SA, 0, n, k);
+    if(n <= 1) { return trivial(SA, n, stats); }
+    return SA_IS(new ShortArray(T, 0), SA, 0, n, k, false, stats, 0);
   }
   /* int */
   public static
   int
   suffixsort(int[] T, int[] SA, int n, int k) {
+    return suffixsort(T, SA, n, k, null);
+  }
+  /* int with the statistics of each stage and recursion level, or null */
+  public static
+  int
+  suffixsort(int[] T, int[] SA, int n, int k, ConstructionStats stats) {
     if((T == null) || (SA == null) ||
        (T.length < n) || (SA.length < n) ||
        (k <= 0)) { return -1; }
-    if(n <= 1) { if(n == 1) { SA[0] = 0; } return 0; }
-    return SA_IS(new IntArray(T, 0), SA, 0, n, k);
+    if(n <= 1) { return trivial(SA, n, stats); }
+    return SA_IS(new IntArray(T, 0), SA, 0, n, k, false, stats, 0);
   }
   /* String */
   public static
   int
   suffixsort(String T, int[] SA, int n) {
+    return suffixsort(T, SA, n, null);
+  }
+  /* String with the statistics of each stage and recursion level, or null */
+  public static
+  int
+  suffixsort(String T, int[] SA, int n, ConstructionStats stats) {
     if((T == null) || (SA == null) ||
        (T.length() < n) || (SA.length < n)) { return -1; }
-    if(n <= 1) { if(n == 1) { SA[0] = 0; } return 0; }
-    return SA_IS(new StringArray(T, 0), SA, 0, n, 65536);
+    if(n <= 1) { return trivial(SA, n, stats); }
+    return SA_IS(new StringArray(T, 0), SA, 0, n, 65536, false, stats, 0);
+  }
+
+  /** Suffixsorting with LCP array **/
+  /* byte */
+  public static
+  int
+  suffixsort(byte[] T, int[] SA, int[] lcp, int n) {
+    if((lcp == null) || (lcp.length < n)) { return -1; }
+    int err = suffixsort(T, SA, n);
+    if(err == 0) { LCP.phi(T, SA, lcp, n); }
+    return err;
+  }
+  /* String */
+  public static
+  int
+  suffixsort(String T, int[] SA, int[] lcp, int n) {
+    if((lcp == null) || (lcp.length < n)) { return -1; }
+    int err = suffixsort(T, SA, n);
+    if(err == 0) { LCP.phi(T, SA, lcp, n); }
+    return err;
+  }
+
+  /** Burrows-Wheeler Transform **/
+  /* byte */
+  public static
+  int
+  bwt(byte[] T, byte[] U, int[] A, int n) {
+    int i, pidx;
+    if((T == null) || (U == null) || (A == null) ||
+       (T.length < n) || (U.length < n) || (A.length < n)) { return -1; }
+    if(n <= 1) { if(n == 1) { U[0] = T[0]; } return n; }
+    pidx = SA_IS(new ByteArray(T, 0), A, 0, n, 256, true, null, 0);
+    U[0] = T[n - 1];
+    for(i = 0; i < pidx; ++i) { U[i + 1] = (byte)(A[i] & 0xff); }
+    for(i += 1; i < n; ++i) { U[i] = (byte)(A[i] & 0xff); }
+    return pidx + 1;
+  }
+  /* char */
+  public static
+  int
+  bwt(char[] T, char[] U, int[] A, int n) {
+    int i, pidx;
+    if((T == null) || (U == null) || (A == null) ||
+       (T.length < n) || (U.length < n) || (A.length < n)) { return -1; }
+    if(n <= 1) { if(n == 1) { U[0] = T[0]; } return n; }
+    pidx = SA_IS(new CharArray(T, 0), A, 0, n, 65536, true, null, 0);
+    U[0] = T[n - 1];
+    for(i = 0; i < pidx; ++i) { U[i + 1] = (char)(A[i] & 0xffff); }
+    for(i += 1; i < n; ++i) { U[i] = (char)(A[i] & 0xffff); }
+    return pidx + 1;
+  }
+  /* int */
+  public static
+  int
+  bwt(int[] T, int[] U, int[] A, int n, int k) {
+    int i, pidx;
+    if((T == null) || (U == null) || (A == null) ||
+       (T.length < n) || (U.length < n) || (A.length < n) ||
+       (k <= 0)) { return -1; }
+    if(n <= 1) { if(n == 1) { U[0] = T[0]; } return n; }
+    pidx = SA_IS(new IntArray(T, 0), A, 0, n, k, true, null, 0);
+    U[0] = T[n - 1];
+    for(i = 0; i < pidx; ++i) { U[i + 1] = A[i]; }
+    for(i += 1; i < n; ++i) { U[i] = A[i]; }
+    return pidx + 1;
+  }
+
+  /** Inverse Burrows-Wheeler Transform **/
+  /* T is the output of bwt and pidx is its return value, the position of the virtual sentinel.
+     A[r - 1] becomes the position (counting the sentinel) of the character of the r-th smallest suffix */
+  private static
+  void
+  unbwt(BaseArray T, BaseArray U, int[] A, int n, int k, int pidx) {
+    BaseArray C = new IntArray(new int[k], 0);
+    int i, j;
+    getCounts(T, C, n, k); getBuckets(C, C, k, false); /* find starts of buckets */
+    for(i = 0; i < pidx; ++i) { A[C.update(T.get(i), 1) - 1] = i; }
+    for(; i < n; ++i) { A[C.update(T.get(i), 1) - 1] = i + 1; }
+    for(i = 0, j = pidx; i < n; ++i) {
+      j = A[j - 1];
+      U.set(i, T.get((j < pidx) ? j : j - 1));
+    }
+  }
+  /* byte */
+  public static
+  int
+  unbwt(byte[] T, byte[] U, int[] A, int n, int pidx) {
+    if((T == null) || (U == null) || (A == null) || (T == U) ||
+       (T.length < n) || (U.length < n) || (A.length < n) ||
+       (pidx < 0) || (n < pidx) || ((0 < n) && (pidx == 0))) { return -1; }
+    if(n <= 1) { if(n == 1) { U[0] = T[0]; } return 0; }
+    unbwt(new ByteArray(T, 0), new ByteArray(U, 0), A, n, 256, pidx);
+    return 0;
+  }
+  /* char */
+  public static
+  int
+  unbwt(char[] T, char[] U, int[] A, int n, int pidx) {
+    if((T == null) || (U == null) || (A == null) || (T == U) ||
+       (T.length < n) || (U.length < n) || (A.length < n) ||
+       (pidx < 0) || (n < pidx) || ((0 < n) && (pidx == 0))) { return -1; }
+    if(n <= 1) { if(n == 1) { U[0] = T[0]; } return 0; }
+    unbwt(new CharArray(T, 0), new CharArray(U, 0), A, n, 65536, pidx);
+    return 0;
+  }
+  /* int */
+  public static
+  int
+  unbwt(int[] T, int[] U, int[] A, int n, int k, int pidx) {
+    if((T == null) || (U == null) || (A == null) || (T == U) ||
+       (T.length < n) || (U.length < n) || (A.length < n) || (k <= 0) ||
+       (pidx < 0) || (n < pidx) || ((0 < n) && (pidx == 0))) { return -1; }
+    if(n <= 1) { if(n == 1) { U[0] = T[0]; } return 0; }
+    unbwt(new IntArray(T, 0), new IntArray(U, 0), A, n, k, pidx);
+    return 0;
   }
 }
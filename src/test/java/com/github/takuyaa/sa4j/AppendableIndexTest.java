@@ -0,0 +1,94 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class AppendableIndexTest {
+    @Test
+    public void testSearch() throws Exception {
+        AppendableIndex index = new AppendableIndex(2, AppendableIndex.DEFAULT_MAX_RUN_LENGTH);
+        index.append("abra".getBytes("US-ASCII"));
+        index.append("cad".getBytes("US-ASCII"));
+        index.append("abra".getBytes("US-ASCII"));
+        assertEquals(11, index.length());
+        assertEquals(5, index.count("a".getBytes("US-ASCII")));
+        assertEquals(1, index.count("abracadabra".getBytes("US-ASCII")));
+        assertEquals(1, index.count("racad".getBytes("US-ASCII")));
+        assertEquals(11, index.count(new byte[0]));
+        assertArrayEquals(new long[]{0, 3, 5, 7, 10}, index.locate("a".getBytes("US-ASCII")));
+        assertArrayEquals(new long[]{2}, index.locate("racadab".getBytes("US-ASCII")));
+        assertArrayEquals(new long[0], index.locate("abraa".getBytes("US-ASCII")));
+    }
+
+    @Test
+    public void testRandomAppends() {
+        Random random = new Random(0);
+        for (int fanIn : new int[]{2, 3, 8}) {
+            AppendableIndex index = new AppendableIndex(fanIn, fanIn == 3 ? 200 : AppendableIndex.DEFAULT_MAX_RUN_LENGTH);
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            for (int chunk = 0; chunk < 200; chunk++) {
+                byte[] bytes = new byte[random.nextInt(chunk % 10 == 0 ? 300 : 5)];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = (byte) ('a' + random.nextInt(3));
+                }
+                index.append(bytes);
+                text.write(bytes, 0, bytes.length);
+                byte[] T = text.toByteArray();
+                assertEquals(T.length, index.length());
+
+                for (int k = 0; k < 5 && T.length > 0; k++) {
+                    int from = random.nextInt(T.length);
+                    byte[] P = Arrays.copyOfRange(T, from, Math.min(T.length, from + 1 + random.nextInt(8)));
+                    long[] expected = occurrences(T, P);
+                    assertArrayEquals(expected, index.locate(P));
+                    assertEquals(expected.length, index.count(P));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRunsAndIngestCost() {
+        AppendableIndex index = new AppendableIndex(4, AppendableIndex.DEFAULT_MAX_RUN_LENGTH);
+        byte[] chunk = new byte[100];
+        for (int i = 0; i < 4096; i++) {
+            index.append(chunk);
+            // at most 3 runs per level
+            assertTrue(index.runCount() <= 3 * (1 + 32 - Integer.numberOfLeadingZeros(i + 1) / 2));
+        }
+        // 4096 chunks = 4^6: all merged into one run, and each byte sorted once per level
+        assertEquals(1, index.runCount());
+        assertEquals(7 * index.length(), index.bytesSorted());
+    }
+
+    @Test
+    public void testMaxRunLength() {
+        AppendableIndex index = new AppendableIndex(4, 1000);
+        byte[] chunk = new byte[100];
+        for (int i = 0; i < 1000; i++) {
+            index.append(chunk);
+        }
+        // runs of 400 bytes are not merged any more, so each byte is sorted at most twice
+        assertEquals(2 * index.length(), index.bytesSorted());
+        assertEquals(250, index.runCount());
+        assertEquals(index.length() - 9, index.count(new byte[10]));
+    }
+
+    private static long[] occurrences(byte[] T, byte[] P) {
+        long[] positions = new long[T.length];
+        int size = 0;
+        for (int i = 0; i + P.length <= T.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(T, i, i + P.length), P)) {
+                positions[size++] = i;
+            }
+        }
+        return Arrays.copyOf(positions, size);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Random;
+
+public class BWTTest {
+    @Test
+    public void testBWT() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        byte[] U = new byte[T.length];
+        int[] A = new int[T.length];
+        // rows: $, a$, abra$, abracadabra$, ... ; the virtual sentinel precedes abracadabra$
+        assertEquals(3, sais.bwt(T, U, A, T.length));
+        assertEquals("ardrcaaaabb", new String(U, "US-ASCII"));
+
+        byte[] V = new byte[T.length];
+        assertEquals(0, sais.unbwt(U, V, A, T.length, 3));
+        assertArrayEquals(T, V);
+    }
+
+    @Test
+    public void testRandomTexts() throws Exception {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 200; trial++) {
+            int n = random.nextInt(300);
+            byte[] T = new byte[n];
+            int sigma = 1 + random.nextInt(4);
+            for (int i = 0; i < n; i++) {
+                T[i] = (byte) (0xfe + random.nextInt(sigma));
+            }
+            byte[] U = new byte[n];
+            int[] A = new int[n];
+            int pidx = sais.bwt(T, U, A, n);
+            byte[] expected = new byte[n];
+            assertEquals(naiveBWT(T, expected), pidx);
+            assertArrayEquals(expected, U);
+
+            byte[] V = new byte[n];
+            assertEquals(0, sais.unbwt(U, V, A, n, pidx));
+            assertArrayEquals(T, V);
+        }
+    }
+
+    @Test
+    public void testCharAndIntBWT() throws Exception {
+        char[] T = "ああいあいうあいええあいうあい".toCharArray();
+        int n = T.length;
+        char[] U = new char[n];
+        char[] V = new char[n];
+        int[] A = new int[n];
+        int pidx = sais.bwt(T, U, A, n);
+        assertEquals(0, sais.unbwt(U, V, A, n, pidx));
+        assertArrayEquals(T, V);
+
+        int[] S = {3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5, 9};
+        n = S.length;
+        int[] W = new int[n];
+        int[] X = new int[n];
+        A = new int[n];
+        pidx = sais.bwt(S, W, A, n, 10);
+        assertEquals(0, sais.unbwt(W, X, A, n, 10, pidx));
+        assertArrayEquals(S, X);
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        assertEquals(-1, sais.bwt(T, new byte[5], new int[11], 11));
+        assertEquals(-1, sais.unbwt(T, new byte[11], new int[11], 11, 0));
+        assertEquals(-1, sais.unbwt(T, new byte[11], new int[11], 11, 12));
+        assertEquals(-1, sais.unbwt(T, T, new int[11], 11, 4));
+        assertEquals(0, sais.bwt(new byte[0], new byte[0], new int[0], 0));
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        String[] names = {"abac", "paper5x80"};
+        for (String name : names) {
+            byte[] T = readText("corpus/gauntlet/" + name);
+            int n = T.length;
+            byte[] U = new byte[n];
+            int[] A = new int[n];
+            int pidx = sais.bwt(T, U, A, n);
+            byte[] expected = new byte[n];
+            assertEquals(name, naiveBWT(T, expected), pidx);
+            assertArrayEquals(name, expected, U);
+
+            byte[] V = new byte[n];
+            assertEquals(0, sais.unbwt(U, V, A, n, pidx));
+            assertArrayEquals(name, T, V);
+        }
+    }
+
+    /**
+     * BWT from the suffix array, without the virtual sentinel.
+     * @return position of the sentinel
+     */
+    private static int naiveBWT(byte[] T, byte[] U) {
+        int n = T.length;
+        if (n == 0) {
+            return 0;
+        }
+        int[] SA = new SuffixArray(T).getArray();
+        U[0] = T[n - 1];
+        int pidx = 0;
+        for (int i = 0, j = 1; i < n; i++) {
+            if (SA[i] == 0) {
+                pidx = i + 1;
+            } else {
+                U[j++] = T[SA[i] - 1];
+            }
+        }
+        return pidx;
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class EnhancedSuffixArrayTest {
+    @Test
+    public void testSearch() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        EnhancedSuffixArray esa = new EnhancedSuffixArray(T);
+        assertEquals(11, esa.length());
+        assertEquals(5, esa.count("a".getBytes("US-ASCII")));
+        assertEquals(2, esa.count("abra".getBytes("US-ASCII")));
+        assertEquals(1, esa.count("abracadabra".getBytes("US-ASCII")));
+        assertEquals(0, esa.count("abracadabraa".getBytes("US-ASCII")));
+        assertEquals(0, esa.count("z".getBytes("US-ASCII")));
+        assertEquals(0, esa.count("rab".getBytes("US-ASCII")));
+        assertEquals(11, esa.count(new byte[0]));
+        assertEquals(new Range(1, 3), esa.range("abra".getBytes("US-ASCII")));
+        assertEquals(new Range(0, 5), esa.range("a".getBytes("US-ASCII")));
+    }
+
+    @Test
+    public void testRepeats() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        EnhancedSuffixArray esa = new EnhancedSuffixArray(T);
+        // "a" and "abra" are maximal, and only "abra" is supermaximal
+        assertEquals(new HashSet<>(Arrays.asList("a", "abra")), repeats(esa, T, false, 1));
+        assertEquals(new HashSet<>(Arrays.asList("abra")), repeats(esa, T, false, 2));
+        assertEquals(new HashSet<>(Arrays.asList("abra")), repeats(esa, T, true, 1));
+    }
+
+    @Test
+    public void testEmptyAndUnaryText() throws Exception {
+        EnhancedSuffixArray empty = new EnhancedSuffixArray(new byte[0]);
+        assertEquals(0, empty.count(new byte[]{1}));
+        assertEquals(0, empty.count(new byte[0]));
+        assertEquals(0, intervals(empty).size());
+
+        byte[] T = new byte[100];
+        Arrays.fill(T, (byte) 0xff);
+        EnhancedSuffixArray unary = new EnhancedSuffixArray(T);
+        assertEquals(91, unary.count(Arrays.copyOf(T, 10)));
+        assertEquals(0, unary.count(new byte[10]));
+        // a chain of 99 intervals, whose root has lcp 1
+        List<int[]> intervals = intervals(unary);
+        assertEquals(99, intervals.size());
+        assertEquals(Arrays.toString(new int[]{1, 0, 100}), Arrays.toString(intervals.get(98)));
+        assertEquals(1, unary.lcp(0, 100));
+        // every run but the whole text is a maximal repeat, and the longest one is the only supermaximal one
+        assertEquals(99, repeats(unary, T, false, 1).size());
+        assertEquals(1, repeats(unary, T, true, 1).size());
+    }
+
+    @Test
+    public void testRandomTexts() throws Exception {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 300; trial++) {
+            byte[] T = new byte[1 + random.nextInt(trial < 200 ? 40 : 400)];
+            int sigma = 1 + random.nextInt(random.nextBoolean() ? 3 : 256);
+            for (int i = 0; i < T.length; i++) {
+                T[i] = (byte) (0x80 + random.nextInt(sigma));
+            }
+            SuffixArray SA = new SuffixArray(T);
+            EnhancedSuffixArray esa = new EnhancedSuffixArray(T, SA.getArray());
+
+            // lcp-intervals by definition, bottom-up and by top-down traversal from the root
+            List<String> expected = naiveIntervals(SA.getArray(), esa.getLCP());
+            List<String> actual = new ArrayList<>();
+            for (int[] interval : intervals(esa)) {
+                actual.add(Arrays.toString(interval));
+            }
+            assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+            assertEquals(expected.size(), actual.size());
+            List<String> topDown = new ArrayList<>();
+            if (T.length > 1) {
+                topDown(esa, 0, T.length, topDown);
+            }
+            assertEquals(new HashSet<>(expected), new HashSet<>(topDown));
+
+            for (int k = 0; k < 20; k++) {
+                int from = random.nextInt(T.length);
+                int to = Math.min(T.length, from + random.nextInt(8));
+                byte[] P = Arrays.copyOfRange(T, from, to);
+                if (random.nextInt(4) == 0 && P.length > 0) {
+                    P[random.nextInt(P.length)] ^= 1;
+                }
+                Range range = SA.range(P);
+                assertEquals(range.size(), esa.count(P));
+                if (!range.isEmpty()) {
+                    assertEquals(range, esa.range(P));
+                }
+            }
+
+            if (T.length <= 40) {
+                int minLength = 1 + random.nextInt(3);
+                assertEquals(naiveRepeats(T, false, minLength), repeats(esa, T, false, minLength));
+                assertEquals(naiveRepeats(T, true, minLength), repeats(esa, T, true, minLength));
+            }
+        }
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        byte[] T = readText("corpus/gauntlet/paper5x80");
+        SuffixArray SA = new SuffixArray(T);
+        EnhancedSuffixArray esa = new EnhancedSuffixArray(T, SA.getArray());
+        assertTrue(esa.sizeInBytes() <= 12L * T.length + 8);
+        Random random = new Random(1);
+        for (int k = 0; k < 200; k++) {
+            int from = random.nextInt(T.length - 16);
+            byte[] P = Arrays.copyOfRange(T, from, from + 1 + random.nextInt(16));
+            assertEquals(SA.range(P), esa.range(P));
+        }
+
+        // each maximal repeat occurs as often as its interval says, and can't be extended to either side
+        esa.maximalRepeats(8, (lcp, start, end) -> {
+            int p = SA.getArray()[start];
+            byte[] repeat = Arrays.copyOfRange(T, p, p + lcp);
+            assertEquals(end - start, SA.count(repeat));
+            assertTrue(start == 0 || esa.getLCP()[start] < lcp);
+            assertTrue(end == T.length || esa.getLCP()[end] < lcp);
+            Set<Byte> left = new HashSet<>();
+            for (int i = start; i < end; i++) {
+                left.add(SA.getArray()[i] == 0 ? null : T[SA.getArray()[i] - 1]);
+            }
+            assertTrue(left.size() > 1);
+        });
+    }
+
+    /**
+     * @return lcp-intervals as {lcp, start, end}, in the order of the bottom-up traversal
+     */
+    private static List<int[]> intervals(EnhancedSuffixArray esa) {
+        List<int[]> intervals = new ArrayList<>();
+        esa.bottomUp((lcp, start, end) -> intervals.add(new int[]{lcp, start, end}));
+        return intervals;
+    }
+
+    private static void topDown(EnhancedSuffixArray esa, int start, int end, List<String> intervals) {
+        int lcp = esa.lcp(start, end);
+        intervals.add(Arrays.toString(new int[]{lcp, start, end}));
+        int[] size = {0};
+        esa.children(start, end, (childLcp, childStart, childEnd) -> {
+            // a suffix which is the prefix of the others has the lcp of its parent
+            assertTrue(childLcp > lcp || childLcp == lcp && childEnd - childStart == 1);
+            assertEquals(start + size[0], childStart);
+            size[0] += childEnd - childStart;
+            if (childEnd - childStart > 1) {
+                topDown(esa, childStart, childEnd, intervals);
+            }
+        });
+        assertEquals(end - start, size[0]);
+    }
+
+    private static List<String> naiveIntervals(int[] SA, int[] LCP) {
+        int n = SA.length;
+        List<String> intervals = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int min = Integer.MAX_VALUE;
+            for (int j = i + 1; j < n; j++) {
+                min = Math.min(min, LCP[j]);
+                if ((i == 0 || LCP[i] < min) && (j == n - 1 || LCP[j + 1] < min)) {
+                    intervals.add(Arrays.toString(new int[]{min, i, j + 1}));
+                }
+            }
+        }
+        return intervals;
+    }
+
+    private static Set<String> repeats(EnhancedSuffixArray esa, byte[] T, boolean supermaximal, int minLength) {
+        Set<String> repeats = new HashSet<>();
+        EnhancedSuffixArray.IntervalVisitor visitor = (lcp, start, end) -> {
+            int p = esa.getArray()[start];
+            assertTrue(repeats.add(new String(T, p, lcp, java.nio.charset.StandardCharsets.ISO_8859_1)));
+        };
+        if (supermaximal) {
+            esa.supermaximalRepeats(minLength, visitor);
+        } else {
+            esa.maximalRepeats(minLength, visitor);
+        }
+        return repeats;
+    }
+
+    /**
+     * @return maximal (or supermaximal) repeats by enumerating substrings and their occurrences
+     */
+    private static Set<String> naiveRepeats(byte[] T, boolean supermaximal, int minLength) {
+        String s = new String(T, java.nio.charset.StandardCharsets.ISO_8859_1);
+        Map<String, List<Integer>> occurrences = new HashMap<>();
+        for (int i = 0; i < s.length(); i++) {
+            for (int j = i + 1; j <= s.length(); j++) {
+                occurrences.computeIfAbsent(s.substring(i, j), x -> new ArrayList<>()).add(i);
+            }
+        }
+        Set<String> maximal = new HashSet<>();
+        for (Map.Entry<String, List<Integer>> e : occurrences.entrySet()) {
+            String r = e.getKey();
+            List<Integer> positions = e.getValue();
+            if (positions.size() < 2) {
+                continue;
+            }
+            Set<Integer> left = new HashSet<>();
+            Set<Integer> right = new HashSet<>();
+            for (int p : positions) {
+                // start and end of the text are different from any character and from each other
+                left.add(p == 0 ? -1 : (int) s.charAt(p - 1));
+                right.add(p + r.length() == s.length() ? -2 : (int) s.charAt(p + r.length()));
+            }
+            if (left.size() > 1 && right.size() > 1) {
+                maximal.add(r);
+            }
+        }
+        Set<String> repeats = new HashSet<>();
+        for (String r : maximal) {
+            boolean contained = false;
+            for (String other : maximal) {
+                contained |= supermaximal && other.length() > r.length() && other.contains(r);
+            }
+            if (!contained && r.length() >= minLength) {
+                repeats.add(r);
+            }
+        }
+        return repeats;
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
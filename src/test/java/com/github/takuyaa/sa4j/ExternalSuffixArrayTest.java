@@ -0,0 +1,127 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+public class ExternalSuffixArrayTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCorpus() throws Exception {
+        for (String name : new String[]{"abac", "fss9", "houston", "paper5x80", "test1", "test2", "test3"}) {
+            byte[] T = readText("corpus/gauntlet/" + name);
+            int[] expected = new SuffixArray(T).getArray();
+            // the text is streamed once per block, so a few blocks per file
+            for (int blocks : new int[]{1, 4}) {
+                int blockLength = (T.length / blocks + 64) / 64 * 64;
+                assertArrayEquals(name + " " + blockLength, expected, build(T, blockLength));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomTexts() throws Exception {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 200; trial++) {
+            byte[] T = new byte[random.nextInt(1000)];
+            int sigma = 1 + random.nextInt(random.nextBoolean() ? 3 : 256);
+            for (int i = 0; i < T.length; i++) {
+                T[i] = (byte) (0x80 + random.nextInt(sigma));
+            }
+            if (trial % 4 == 0) {
+                // periodic text, whose suffixes match over block boundaries
+                int period = 1 + random.nextInt(70);
+                for (int i = period; i < T.length; i++) {
+                    T[i] = T[i - period];
+                }
+            }
+            assertArrayEquals(new SuffixArray(T).getArray(), build(T, 64 * (1 + random.nextInt(3))));
+        }
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        byte[] T = readText("corpus/gauntlet/paper5x80");
+        File output = folder.newFile();
+        RandomAccessFile f = new RandomAccessFile(output, "rw");
+        try {
+            ExternalSuffixArray SA = new ExternalSuffixArray(new ByteArrayInputStream(T), f.getChannel(),
+                    folder.getRoot(), ExternalSuffixArray.BYTES_PER_BLOCK_BYTE * 8192L);
+            assertEquals(T.length, SA.length());
+            assertEquals(8192, SA.blockLength());
+            assertEquals((T.length + 8191) / 8192, SA.blocks());
+            assertEquals(4, SA.width());
+            // spooled text, the output and everything in between
+            assertEquals(true, SA.bytesWritten() > 5L * T.length);
+            assertEquals(true, SA.bytesRead() > 4L * T.length);
+            // the text is streamed once per block, but the suffix arrays are merged in one pass
+            assertEquals(true, SA.bytesRead() + SA.bytesWritten() < (5L * SA.blocks() / 8 + 3 * 4 + 12) * T.length);
+        } finally {
+            f.close();
+        }
+        assertArrayEquals(new SuffixArray(T).getArray(), readEntries(output));
+        // only the output is left
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testMatchLengths() {
+        byte[] X = "abaabab".getBytes();
+        // block "abaab", lookahead "ab"
+        assertArrayEquals(new int[]{2, 0, 1, 2, 0}, ExternalSuffixArray.matchLengths(X, 5, 2));
+        assertArrayEquals(new int[5], ExternalSuffixArray.matchLengths(X, 5, 0));
+    }
+
+    private int[] build(byte[] T, int blockLength) throws Exception {
+        File text = folder.newFile();
+        FileOutputStream out = new FileOutputStream(text);
+        out.write(T);
+        out.close();
+        File output = folder.newFile();
+        RandomAccessFile t = new RandomAccessFile(text, "r");
+        RandomAccessFile o = new RandomAccessFile(output, "rw");
+        try {
+            new ExternalSuffixArray(t.getChannel(), o.getChannel(), folder.getRoot(), blockLength);
+        } finally {
+            t.close();
+            o.close();
+        }
+        int[] SA = readEntries(output);
+        text.delete();
+        output.delete();
+        return SA;
+    }
+
+    private int[] readEntries(File file) throws Exception {
+        byte[] bytes = readText(file.getPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int[] SA = new int[bytes.length / 4];
+        buffer.asIntBuffer().get(SA);
+        return SA;
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class FMIndexTest {
+    @Test
+    public void testSearch() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        FMIndex index = new FMIndex(T, 2);
+        assertEquals(11, index.length());
+        assertEquals(5, index.count("a".getBytes("US-ASCII")));
+        assertEquals(2, index.count("abra".getBytes("US-ASCII")));
+        assertEquals(1, index.count("abracadabra".getBytes("US-ASCII")));
+        assertEquals(0, index.count("abracadabraa".getBytes("US-ASCII")));
+        assertEquals(0, index.count("z".getBytes("US-ASCII")));
+        assertEquals(0, index.count("rab".getBytes("US-ASCII")));
+        assertEquals(11, index.count(new byte[0]));
+        assertEquals(new Range(1, 3), index.range("abra".getBytes("US-ASCII")));
+        assertArrayEquals(new int[]{0, 7}, index.locate("abra".getBytes("US-ASCII")).sorted().toArray());
+        assertArrayEquals(T, index.extract(0, 11));
+        assertArrayEquals("cad".getBytes("US-ASCII"), index.extract(4, 7));
+        assertArrayEquals(new byte[0], index.extract(5, 5));
+    }
+
+    @Test
+    public void testEmptyAndUnaryText() throws Exception {
+        FMIndex empty = new FMIndex(new byte[0]);
+        assertEquals(0, empty.count(new byte[]{1}));
+        assertEquals(0, empty.count(new byte[0]));
+        assertArrayEquals(new byte[0], empty.extract(0, 0));
+
+        byte[] T = new byte[100];
+        Arrays.fill(T, (byte) 0xff);
+        FMIndex unary = new FMIndex(T, 7);
+        assertEquals(91, unary.count(new byte[10]) + unary.count(Arrays.copyOf(T, 10)));
+        assertArrayEquals(new SuffixArray(T).getArray(), unary.locate(new byte[]{(byte) 0xff}).toArray());
+        assertArrayEquals(T, unary.extract(0, 100));
+    }
+
+    @Test
+    public void testRandomTexts() throws Exception {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 100; trial++) {
+            byte[] T = new byte[1 + random.nextInt(2000)];
+            int sigma = 1 + random.nextInt(random.nextBoolean() ? 4 : 256);
+            for (int i = 0; i < T.length; i++) {
+                T[i] = (byte) (0x80 + random.nextInt(sigma));
+            }
+            SuffixArray SA = new SuffixArray(T);
+            FMIndex index = new FMIndex(T, SA.getArray(), 1 + random.nextInt(40));
+            for (int k = 0; k < 20; k++) {
+                int from = random.nextInt(T.length);
+                int to = Math.min(T.length, from + random.nextInt(8));
+                byte[] P = Arrays.copyOfRange(T, from, to);
+                if (random.nextInt(4) == 0 && P.length > 0) {
+                    P[random.nextInt(P.length)] ^= 1;
+                }
+                Range range = SA.range(P);
+                assertEquals(range.size(), index.count(P));
+                if (!range.isEmpty()) {
+                    assertEquals(range, index.range(P));
+                }
+                assertArrayEquals(SA.locate(P).toArray(), index.locate(P).toArray());
+                assertArrayEquals(Arrays.copyOfRange(T, from, to), index.extract(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        byte[] T = readText("corpus/gauntlet/paper5x80");
+        SuffixArray SA = new SuffixArray(T);
+        FMIndex index = new FMIndex(T, SA.getArray(), 16);
+        // much smaller than the text and SA
+        assertTrue(index.sizeInBytes() < T.length * 2L);
+        Random random = new Random(1);
+        for (int k = 0; k < 200; k++) {
+            int from = random.nextInt(T.length - 16);
+            byte[] P = Arrays.copyOfRange(T, from, from + 1 + random.nextInt(16));
+            assertArrayEquals(SA.locate(P).toArray(), index.locate(P).toArray());
+            assertArrayEquals(P, index.extract(from, from + P.length));
+        }
+        assertArrayEquals(T, index.extract(0, T.length));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testExtractOutOfBounds() throws Exception {
+        new FMIndex("abc".getBytes("US-ASCII")).extract(1, 4);
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
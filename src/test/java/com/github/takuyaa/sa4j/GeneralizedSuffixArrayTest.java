@@ -0,0 +1,123 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class GeneralizedSuffixArrayTest {
+    @Test
+    public void testSearch() throws Exception {
+        List<byte[]> documents = Arrays.asList(
+                "banana".getBytes("US-ASCII"),
+                "".getBytes("US-ASCII"),
+                "ananas".getBytes("US-ASCII"),
+                "nab".getBytes("US-ASCII"));
+        GeneralizedSuffixArray GSA = new GeneralizedSuffixArray(documents);
+        assertEquals(4, GSA.documentCount());
+        assertEquals(15, GSA.length());
+        assertEquals(4, GSA.count("ana".getBytes("US-ASCII")));
+        assertEquals(0, GSA.count("aban".getBytes("US-ASCII"))); // "nab" + "banana" would match across documents
+        assertEquals(0, GSA.count("sn".getBytes("US-ASCII")));
+        assertArrayEquals(new int[]{0, 2}, GSA.documents("ana".getBytes("US-ASCII")).toArray());
+        assertArrayEquals(new int[]{0, 2, 3}, GSA.documents("na".getBytes("US-ASCII")).toArray());
+        assertArrayEquals(new int[]{0, 2, 3}, GSA.documents(new byte[0]).toArray());
+
+        // suffix "a" of banana ends at the end of its document, so it is less than "ab" of nab
+        assertEquals(new Range(0, 7), GSA.range("a".getBytes("US-ASCII")));
+        assertEquals(0, GSA.document(0));
+        assertEquals(5, GSA.offset(0));
+        assertEquals(3, GSA.document(1));
+        assertEquals(1, GSA.offset(1));
+        assertEquals(0, GSA.document(2));
+        assertEquals(3, GSA.offset(2));
+    }
+
+    @Test
+    public void testEmptyCollection() {
+        GeneralizedSuffixArray GSA = new GeneralizedSuffixArray(Collections.<byte[]>emptyList());
+        assertEquals(0, GSA.length());
+        assertEquals(0, GSA.count(new byte[]{1}));
+        assertEquals(0, GSA.documents(new byte[0]).count());
+    }
+
+    @Test
+    public void testRandomCollections() {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 50; trial++) {
+            List<byte[]> documents = new ArrayList<>();
+            int N = 1 + random.nextInt(trial < 25 ? 10 : 300);
+            int sigma = 1 + random.nextInt(random.nextBoolean() ? 3 : 256);
+            for (int d = 0; d < N; d++) {
+                byte[] T = new byte[random.nextInt(40)];
+                for (int i = 0; i < T.length; i++) {
+                    T[i] = (byte) (0x80 + random.nextInt(sigma));
+                }
+                documents.add(T);
+            }
+            GeneralizedSuffixArray GSA = new GeneralizedSuffixArray(documents);
+
+            // (document, offset) of all suffixes, sorted naively
+            List<int[]> suffixes = new ArrayList<>();
+            for (int d = 0; d < N; d++) {
+                for (int i = 0; i < documents.get(d).length; i++) {
+                    suffixes.add(new int[]{d, i});
+                }
+            }
+            suffixes.sort((a, b) -> {
+                byte[] x = documents.get(a[0]);
+                byte[] y = documents.get(b[0]);
+                int i = a[1];
+                int j = b[1];
+                for (; i < x.length && j < y.length; i++, j++) {
+                    if (x[i] != y[j]) {
+                        return (x[i] & 0xff) - (y[j] & 0xff);
+                    }
+                }
+                int c = Integer.compare(x.length - i, y.length - j);
+                return c != 0 ? c : Integer.compare(a[0], b[0]);
+            });
+            assertEquals(suffixes.size(), GSA.length());
+            for (int i = 0; i < suffixes.size(); i++) {
+                assertEquals(suffixes.get(i)[0], GSA.document(i));
+                assertEquals(suffixes.get(i)[1], GSA.offset(i));
+            }
+
+            for (int k = 0; k < 20; k++) {
+                byte[] T = documents.get(random.nextInt(N));
+                if (T.length == 0) {
+                    continue;
+                }
+                int from = random.nextInt(T.length);
+                byte[] P = Arrays.copyOfRange(T, from, Math.min(T.length, from + 1 + random.nextInt(4)));
+                int count = 0;
+                List<Integer> expected = new ArrayList<>();
+                for (int d = 0; d < N; d++) {
+                    int occ = occurrences(documents.get(d), P);
+                    count += occ;
+                    if (occ > 0) {
+                        expected.add(d);
+                    }
+                }
+                assertEquals(count, GSA.count(P));
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), GSA.documents(P).toArray());
+            }
+        }
+    }
+
+    private static int occurrences(byte[] T, byte[] P) {
+        int count = 0;
+        for (int i = 0; i + P.length <= T.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(T, i, i + P.length), P)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ImmutableIndexTest {
+    @Test
+    public void testSearch() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        ImmutableIndex index = new ImmutableIndex(T);
+        // the index keeps its own copy of the text
+        Arrays.fill(T, (byte) 'a');
+        assertEquals(11, index.length());
+        assertEquals(2, index.count("abra".getBytes("US-ASCII")));
+        assertEquals(0, index.count("aaa".getBytes("US-ASCII")));
+        assertEquals(11, index.count(new byte[0]));
+        assertEquals(new Range(1, 3), index.range("abra".getBytes("US-ASCII")));
+        assertEquals(1, index.lowerBound("abra".getBytes("US-ASCII")));
+        assertEquals(3, index.upperBound("abra".getBytes("US-ASCII")));
+
+        int[] positions = new int[1];
+        assertEquals(5, index.locate("a".getBytes("US-ASCII"), positions));
+        assertArrayEquals(new int[]{10}, positions);
+        positions = new int[8];
+        assertEquals(2, index.locate("abra".getBytes("US-ASCII"), positions));
+        assertArrayEquals(new int[]{7, 0}, Arrays.copyOf(positions, 2));
+
+        // SA can't be modified through a copy
+        int[] SA = index.copyArray();
+        SA[0] = 0;
+        assertEquals(10, index.position(0));
+        assertEquals('c', index.byteAt(4));
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        Random random = new Random(0);
+        byte[] T = new byte[100000];
+        for (int i = 0; i < T.length; i++) {
+            T[i] = (byte) random.nextInt(4);
+        }
+        SuffixArray SA = new SuffixArray(T);
+        byte[][] patterns = new byte[1000][];
+        int[] expected = new int[patterns.length];
+        for (int k = 0; k < patterns.length; k++) {
+            int from = random.nextInt(T.length - 12);
+            patterns[k] = Arrays.copyOfRange(T, from, from + 1 + random.nextInt(12));
+            expected[k] = SA.count(patterns[k]);
+        }
+
+        ImmutableIndex index = new ImmutableIndex(T);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    int[] counts = new int[patterns.length];
+                    for (int k = 0; k < patterns.length; k++) {
+                        counts[k] = index.count(patterns[k]);
+                    }
+                    return counts;
+                }));
+            }
+            for (Future<int[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Random;
+
+public class LCPTest {
+    @Test
+    public void testLCP() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        int[] SA = new SuffixArray(T).getArray();
+        // a, abra, abracadabra, acadabra, adabra, bra, bracadabra, cadabra, dabra, ra, racadabra
+        int[] expected = {0, 1, 4, 1, 1, 0, 3, 0, 0, 0, 2};
+        assertArrayEquals(expected, LCP.kasai(T, SA));
+        assertArrayEquals(expected, LCP.phi(T, SA));
+    }
+
+    @Test
+    public void testStringLCP() throws Exception {
+        String T = "ああいあいうあいええあいうあい";
+        SuffixArray SA = new SuffixArray(T);
+        int[] expected = naiveLCP(T.getBytes("UTF-16BE"), SA.getArray(), 2);
+        assertArrayEquals(expected, LCP.kasai(T, SA.getArray()));
+        assertArrayEquals(expected, LCP.phi(T, SA.getArray()));
+        assertArrayEquals(expected, SA.computeLCP());
+    }
+
+    @Test
+    public void testEmptyAndSingleCharacter() throws Exception {
+        assertArrayEquals(new int[0], LCP.phi(new byte[0], new int[0]));
+        assertArrayEquals(new int[]{0}, LCP.phi(new byte[]{42}, new int[]{0}));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, new SuffixArray("aaaa").computeLCP());
+    }
+
+    @Test
+    public void testRandomTexts() throws Exception {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 200; trial++) {
+            byte[] T = new byte[1 + random.nextInt(300)];
+            int sigma = 1 + random.nextInt(4);
+            for (int i = 0; i < T.length; i++) {
+                T[i] = (byte) (0xfe + random.nextInt(sigma));
+            }
+            int[] SA = new SuffixArray(T).getArray();
+            int[] expected = naiveLCP(T, SA, 1);
+            assertArrayEquals(expected, LCP.kasai(T, SA));
+            assertArrayEquals(expected, LCP.phi(T, SA));
+            int[] PLCP = LCP.plcp(T, SA);
+            for (int i = 0; i < SA.length; i++) {
+                assertEquals(expected[i], PLCP[SA[i]]);
+            }
+        }
+    }
+
+    @Test
+    public void testBlocks() throws Exception {
+        // texts of several blocks of Phi, whose last block is short and whose LCPs run over block boundaries
+        Random random = new Random(1);
+        for (int n : new int[]{131072, 131073, 262143, 400000, 524289}) {
+            byte[] T = new byte[n];
+            int[] I = new int[n];
+            for (int i = 0; i < n; i++) {
+                T[i] = i >= 5000 && random.nextInt(8) > 0 ? T[i - 5000] : (byte) ('a' + random.nextInt(3));
+                I[i] = T[i] & 0xff;
+            }
+            int[] SA = new SuffixArray(T).getArray();
+            int[] expected = LCP.kasai(T, SA);
+            assertArrayEquals(expected, LCP.phi(T, SA));
+            assertArrayEquals(expected, LCP.phi(I, SA));
+            assertArrayEquals(expected, LCP.phi(new String(T, "ISO-8859-1"), SA));
+        }
+    }
+
+    @Test
+    public void testSuffixsortWithLCP() throws Exception {
+        byte[] T = readText("corpus/gauntlet/paper5x80");
+        int n = T.length;
+        int[] SA = new int[n];
+        int[] lcp = new int[n];
+        assertEquals(0, sais.suffixsort(T, SA, lcp, n));
+        assertArrayEquals(new SuffixArray(T).getArray(), SA);
+        assertArrayEquals(LCP.kasai(T, SA), lcp);
+
+        String S = new String(T, "ISO-8859-1");
+        assertEquals(0, sais.suffixsort(S, SA, lcp, n));
+        assertArrayEquals(LCP.kasai(T, SA), lcp);
+
+        assertEquals(-1, sais.suffixsort(T, SA, new int[n - 1], n));
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        String[] names = {"abac", "fss9", "houston"};
+        for (String name : names) {
+            byte[] T = readText("corpus/gauntlet/" + name);
+            SuffixArray SA = new SuffixArray(T);
+            assertArrayEquals(name, LCP.kasai(T, SA.getArray()), SA.computeLCP());
+        }
+    }
+
+    /**
+     * LCP by direct comparison of adjacent suffixes, in units of width bytes.
+     */
+    private static int[] naiveLCP(byte[] T, int[] SA, int width) {
+        int n = SA.length;
+        int[] LCP = new int[n];
+        for (int i = 1; i < n; i++) {
+            int p = SA[i - 1] * width;
+            int q = SA[i] * width;
+            int l = 0;
+            while (p + l < T.length && q + l < T.length && T[p + l] == T[q + l]) {
+                l++;
+            }
+            LCP[i] = l / width;
+        }
+        return LCP;
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class LongSuffixArrayTest {
+    @Test
+    public void testSmallCorpusWithLongLayout() throws Exception {
+        byte[] T = readText("corpus/gauntlet/abac");
+        assertSameSA(T, new LongSuffixArray(chunk(T, 12), LongSuffixArray.Layout.LONG, 10));
+    }
+
+    @Test
+    public void testSmallCorpusWithPacked40Layout() throws Exception {
+        byte[] T = readText("corpus/gauntlet/abac");
+        assertSameSA(T, new LongSuffixArray(chunk(T, 12), LongSuffixArray.Layout.PACKED40, 10));
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        for (String name : new String[]{"paper5x80", "test3"}) {
+            byte[] T = readText("corpus/gauntlet/" + name);
+            assertSameSA(T, new LongSuffixArray(chunk(T, 16)));
+            assertSameSA(T, new LongSuffixArray(chunk(T, 16), LongSuffixArray.Layout.PACKED40));
+        }
+    }
+
+    @Test
+    public void testRandomBytes() throws Exception {
+        Random random = new Random(0);
+        for (int n : new int[]{2, 3, 17, 1000, 65537}) {
+            byte[] T = new byte[n];
+            random.nextBytes(T);
+            assertSameSA(T, new LongSuffixArray(chunk(T, 4), LongSuffixArray.Layout.LONG, 3));
+            assertSameSA(T, new LongSuffixArray(chunk(T, 4), LongSuffixArray.Layout.PACKED40, 3));
+        }
+    }
+
+    @Test
+    public void testEmptyAndOneCharacter() throws Exception {
+        assertEquals(0, new LongSuffixArray(new byte[][]{}).length());
+        assertEquals(0, new LongSuffixArray(new byte[][]{new byte[0]}).length());
+
+        LongSuffixArray SA = new LongSuffixArray(new byte[][]{{'a'}}, LongSuffixArray.Layout.PACKED40);
+        assertEquals(1, SA.length());
+        assertEquals(0, SA.get(0));
+    }
+
+    @Test
+    public void testPackedLongArrayKeepsSign() throws Exception {
+        PackedLongArray array = new PackedLongArray(4, 1);
+        long[] values = {PackedLongArray.MAX_VALUE, -PackedLongArray.MAX_VALUE - 1, ~5L, 1L << 32};
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array.get(i));
+        }
+        assertEquals(values[3], array.view(2).get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunksMustHaveSameLength() throws Exception {
+        new LongSuffixArray(new byte[][]{new byte[4], new byte[2], new byte[4]});
+    }
+
+    private static void assertSameSA(byte[] T, LongSuffixArray SA) {
+        int[] expected = new SuffixArray(T).getArray();
+        assertEquals(expected.length, SA.length());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], SA.get(i));
+        }
+    }
+
+    private static byte[][] chunk(byte[] T, int shift) {
+        int chunkLength = 1 << shift;
+        byte[][] chunks = new byte[(T.length + chunkLength - 1) / chunkLength][];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = Arrays.copyOfRange(T, c * chunkLength, Math.min(T.length, (c + 1) * chunkLength));
+        }
+        return chunks;
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
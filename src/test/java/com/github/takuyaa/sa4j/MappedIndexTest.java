@@ -0,0 +1,232 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MappedIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        byte[] T = Arrays.copyOf(readText("corpus/gauntlet/abac"), 5000);
+        int[] SA = new SuffixArray(T).getArray();
+        int[] LCP = naiveLCP(T, SA);
+        byte[] BWT = new byte[T.length];
+        for (int i = 0; i < T.length; i++) {
+            BWT[i] = T[SA[i] > 0 ? SA[i] - 1 : T.length - 1];
+        }
+
+        File file = folder.newFile("abac.idx");
+        PrefixTable prefixTable = new PrefixTable(T, 2);
+        new IndexWriter(T, SA).setLCP(LCP).setBWT(BWT, 42).setPrefixTable(prefixTable).write(file);
+
+        MappedIndex index = new MappedIndex(file);
+        assertEquals(T.length, index.length());
+        assertEquals(256, index.alphabetSize());
+        assertTrue(index.verify(T));
+        assertTrue(index.verify(ByteBuffer.wrap(T)));
+        for (int i = 0; i < T.length; i++) {
+            assertEquals(SA[i], index.getSA(i));
+            assertEquals(LCP[i], index.getLCP(i));
+        }
+        assertTrue(index.hasBWT());
+        assertEquals(42, index.primaryIndex());
+        ByteBuffer bwt = index.getBWT();
+        assertEquals(T.length, bwt.remaining());
+        for (int i = 0; i < T.length; i++) {
+            assertEquals(BWT[i], bwt.get(i));
+        }
+        assertTrue(index.hasPrefixTable());
+        assertEquals(2, index.getPrefixTable().prefixLength());
+        // read from the mapping, not copied
+        assertEquals(prefixTable.starts(), index.getPrefixTable().starts());
+        assertEquals(0, index.getPrefixTable().sizeInBytes());
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        byte[] T = readText("corpus/gauntlet/paper5x80");
+        SuffixArray SA = new SuffixArray(T);
+        File file = folder.newFile("paper5x80.idx");
+        new IndexWriter(T, SA.getArray()).write(file);
+        File textFile = folder.newFile("paper5x80");
+        FileOutputStream out = new FileOutputStream(textFile);
+        out.write(T);
+        out.close();
+
+        // searches bounded by the prefix tables of the index files
+        File file1 = folder.newFile("paper5x80.1.idx");
+        new IndexWriter(T, SA.getArray()).setPrefixTable(new PrefixTable(T, 1)).write(file1);
+        File file2 = folder.newFile("paper5x80.2.idx");
+        new IndexWriter(T, SA.getArray()).setPrefixTable(new PrefixTable(T, 2)).write(file2);
+
+        MappedIndex[] indexes = {new MappedIndex(file, textFile), new MappedIndex(file, ByteBuffer.wrap(T)),
+                new MappedIndex(file1, textFile), new MappedIndex(file2, ByteBuffer.wrap(T))};
+        Random random = new Random(0);
+        long[] positions = new long[4];
+        for (int k = 0; k < 200; k++) {
+            int from = random.nextInt(T.length - 8);
+            byte[] P = Arrays.copyOfRange(T, from, from + 1 + random.nextInt(8));
+            if (k % 4 == 0) {
+                P[P.length - 1] ^= 0x80;
+            }
+            Range range = SA.range(P);
+            for (MappedIndex index : indexes) {
+                assertTrue(index.hasText());
+                assertEquals(range.start(), index.lowerBound(P));
+                assertEquals(range.end(), index.upperBound(P));
+                assertEquals(range.size(), index.count(P));
+                assertEquals(range.size(), index.locate(P, positions));
+                for (int i = 0; i < Math.min(range.size(), positions.length); i++) {
+                    assertEquals(SA.getArray()[range.start() + i], positions[i]);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTextOfOtherLength() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        File file = folder.newFile("abracadabra.idx");
+        new IndexWriter(T, new SuffixArray(T).getArray()).write(file);
+        new MappedIndex(file, ByteBuffer.wrap(T, 0, 10));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSearchWithoutText() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        File file = folder.newFile("abracadabra.idx");
+        new IndexWriter(T, new SuffixArray(T).getArray()).write(file);
+        new MappedIndex(file).count(T);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteAfterOtherData() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        RandomAccessFile f = new RandomAccessFile(folder.newFile("concat"), "rw");
+        try {
+            f.write(T);
+            new IndexWriter(T, new SuffixArray(T).getArray()).write(f.getChannel());
+        } finally {
+            f.close();
+        }
+    }
+
+    @Test
+    public void testOptionalSections() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        File file = folder.newFile("abracadabra.idx");
+        new IndexWriter(T, new SuffixArray(T).getArray()).write(file);
+
+        MappedIndex index = new MappedIndex(file);
+        assertFalse(index.hasLCP());
+        assertFalse(index.hasBWT());
+        assertFalse(index.hasPrefixTable());
+        assertEquals(10, index.getSA(0));
+        assertFalse(index.verify("abracadabrx".getBytes("US-ASCII")));
+    }
+
+    @Test
+    public void testEmptyText() throws Exception {
+        File file = folder.newFile("empty.idx");
+        new IndexWriter(new byte[0], new int[0]).setLCP(new int[0]).write(file);
+        MappedIndex index = new MappedIndex(file);
+        assertEquals(0, index.length());
+        assertTrue(index.verify(new byte[0]));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnIndex() throws Exception {
+        File file = folder.newFile("text");
+        RandomAccessFile f = new RandomAccessFile(file, "rw");
+        f.write(new byte[64]);
+        f.close();
+        new MappedIndex(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws Exception {
+        File file = folder.newFile("future.idx");
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        new IndexWriter(T, new SuffixArray(T).getArray()).write(file);
+        RandomAccessFile f = new RandomAccessFile(file, "rw");
+        f.seek(4);
+        f.write(99);
+        f.close();
+        new MappedIndex(file);
+    }
+
+    @Test
+    public void testCorruptHeader() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        int[] SA = new SuffixArray(T).getArray();
+        byte[] BWT = new byte[T.length];
+        int sa = IndexFormat.HEADER_SIZE;
+        int bwt = IndexFormat.HEADER_SIZE + IndexFormat.SECTION_ENTRY_SIZE;
+        // position in the file, and a value (int at the section count, long elsewhere) which breaks the header
+        long[][] corruptions = {
+                {20, -1}, {20, Integer.MAX_VALUE},
+                {sa + 8, -8}, {sa + 8, Long.MAX_VALUE - 7},
+                {sa + 16, -1}, {sa + 16, Long.MAX_VALUE / 2}, {sa + 16, T.length + 1000},
+                {bwt + 16, 4},
+        };
+        for (long[] corruption : corruptions) {
+            File file = folder.newFile();
+            new IndexWriter(T, SA).setBWT(BWT, 0).write(file);
+            RandomAccessFile f = new RandomAccessFile(file, "rw");
+            ByteBuffer value = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            if (corruption[0] == 20) {
+                value.putInt((int) corruption[1]).flip();
+            } else {
+                value.putLong(corruption[1]).flip();
+            }
+            f.getChannel().write(value, corruption[0]);
+            f.close();
+            try {
+                new MappedIndex(file);
+                fail("opened with " + Arrays.toString(corruption));
+            } catch (IOException e) {
+                assertTrue(e.getMessage().endsWith("is corrupt"));
+            }
+        }
+    }
+
+    private static int[] naiveLCP(byte[] T, int[] SA) {
+        int[] LCP = new int[SA.length];
+        for (int i = 1; i < SA.length; i++) {
+            int l = 0;
+            while (SA[i - 1] + l < T.length && SA[i] + l < T.length && T[SA[i - 1] + l] == T[SA[i] + l]) {
+                l++;
+            }
+            LCP[i] = l;
+        }
+        return LCP;
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
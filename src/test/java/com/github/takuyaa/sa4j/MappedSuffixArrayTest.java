@@ -0,0 +1,114 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+public class MappedSuffixArrayTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCorpus() throws Exception {
+        for (String name : new String[]{"abac", "paper5x80"}) {
+            File text = new File("corpus/gauntlet/" + name);
+            RandomAccessFile in = new RandomAccessFile(text, "r");
+            RandomAccessFile out = new RandomAccessFile(folder.newFile(name + ".sa"), "rw");
+            try {
+                MappedSuffixArray SA = new MappedSuffixArray(in.getChannel(), out.getChannel());
+                assertEquals(4, SA.width());
+                assertEquals(4L * text.length(), out.length());
+                assertSameSA(readText(in), SA);
+            } finally {
+                in.close();
+                out.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSegments() throws Exception {
+        byte[] T = new byte[5000];
+        new Random(0).nextBytes(T);
+        File text = folder.newFile("random");
+        RandomAccessFile in = new RandomAccessFile(text, "rw");
+        RandomAccessFile out = new RandomAccessFile(folder.newFile("random.sa"), "rw");
+        try {
+            in.write(T);
+            // segments of 2^6 bytes of text and 2^5 entries of SA
+            MappedSuffixArray SA = new MappedSuffixArray(new MappedByteArray(in.getChannel(), 6), out.getChannel(), 5);
+            assertSameSA(T, SA);
+
+            // output file is little-endian int entries
+            ByteBuffer entries = out.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, out.length()).order(ByteOrder.LITTLE_ENDIAN);
+            int[] expected = new SuffixArray(T).getArray();
+            for (int i = 0; i < T.length; i++) {
+                assertEquals(expected[i], entries.getInt(i * 4));
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+    }
+
+    @Test
+    public void testByteBufferText() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        RandomAccessFile out = new RandomAccessFile(folder.newFile("abracadabra.sa"), "rw");
+        try {
+            assertSameSA(T, new MappedSuffixArray(ByteBuffer.wrap(T), out.getChannel()));
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testMappedLongArrayWidths() throws Exception {
+        RandomAccessFile file = new RandomAccessFile(folder.newFile("entries"), "rw");
+        try {
+            for (int width : new int[]{4, 5, 8}) {
+                MappedLongArray array = new MappedLongArray(file.getChannel(), FileChannel.MapMode.READ_WRITE, 0, 10, width, 2);
+                for (int i = 0; i < 10; i++) {
+                    array.set(i, i % 2 == 0 ? i : ~i);
+                }
+                for (int i = 0; i < 10; i++) {
+                    assertEquals(i % 2 == 0 ? i : ~i, array.get(i));
+                }
+                assertEquals(~7, array.view(3).get(4));
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void testWidth() throws Exception {
+        assertEquals(4, MappedSuffixArray.width(Integer.MAX_VALUE));
+        assertEquals(5, MappedSuffixArray.width(Integer.MAX_VALUE + 1L));
+        assertEquals(8, MappedSuffixArray.width(1L << 39));
+    }
+
+    private static void assertSameSA(byte[] T, MappedSuffixArray SA) {
+        int[] expected = new SuffixArray(T).getArray();
+        assertEquals(expected.length, SA.length());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], SA.get(i));
+        }
+    }
+
+    private static byte[] readText(RandomAccessFile file) throws Exception {
+        byte[] T = new byte[(int) file.length()];
+        file.seek(0);
+        file.readFully(T);
+        return T;
+    }
+}
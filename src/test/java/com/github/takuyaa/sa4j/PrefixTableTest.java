@@ -0,0 +1,69 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class PrefixTableTest {
+    @Test
+    public void testIntervals() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        int[] SA = new SuffixArray(T).getArray();
+        for (int k = 1; k <= PrefixTable.MAX_PREFIX_LENGTH; k++) {
+            PrefixTable table = new PrefixTable(T, k);
+            assertEquals(k, table.prefixLength());
+            assertEquals(T.length, table.length());
+            // "a" (shorter than k) and all suffixes starting with "ab"
+            assertEquals(0, table.start("a".getBytes("US-ASCII")));
+            assertEquals(5, table.end("a".getBytes("US-ASCII")));
+            assertEquals(0, table.start(new byte[0]));
+            assertEquals(T.length, table.end(new byte[0]));
+            for (int i = 0; i < SA.length; i++) {
+                byte[] P = Arrays.copyOfRange(T, SA[i], Math.min(T.length, SA[i] + k));
+                assertTrue(table.start(P) <= i && i < table.end(P));
+            }
+        }
+        assertEquals(new Range(1, 3), new ImmutableIndex(T, SuffixArray.Mode.FAST, 2).range("ab".getBytes("US-ASCII")));
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        Random random = new Random(0);
+        byte[] T = new byte[20000];
+        for (int i = 0; i < T.length; i++) {
+            T[i] = (byte) (random.nextInt(4) * 85);
+        }
+        SuffixArray SA = new SuffixArray(T);
+        ImmutableIndex[] indexes = new ImmutableIndex[PrefixTable.MAX_PREFIX_LENGTH + 1];
+        for (int k = 0; k < indexes.length; k++) {
+            indexes[k] = new ImmutableIndex(T, SuffixArray.Mode.FAST, k);
+        }
+        for (int r = 0; r < 2000; r++) {
+            int m = random.nextInt(6);
+            byte[] P;
+            if (r % 2 == 0) {
+                // occurs, possibly at the end of the text
+                int from = random.nextInt(T.length - m + 1);
+                P = Arrays.copyOfRange(T, from, from + m);
+            } else {
+                P = new byte[m];
+                for (int j = 0; j < m; j++) {
+                    P[j] = (byte) random.nextInt(256);
+                }
+            }
+            for (ImmutableIndex index : indexes) {
+                assertEquals(SA.range(P), index.range(P));
+                assertEquals(SA.count(P), index.count(P));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrefixLength() {
+        new PrefixTable(new byte[10], PrefixTable.MAX_PREFIX_LENGTH + 1);
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class QueryCacheTest {
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        QueryCache cache = new QueryCache(new SuffixArray(T), 1 << 10);
+        byte[] P = "abra".getBytes("US-ASCII");
+        assertEquals(new Range(1, 3), cache.range(P));
+        // the cache keeps its own copy of the pattern
+        Arrays.fill(P, (byte) 'z');
+        assertEquals(0, cache.count(P));
+        assertEquals(2, cache.count("abra".getBytes("US-ASCII")));
+        assertEquals(5, cache.count("a".getBytes("US-ASCII")));
+        assertEquals(1, cache.hitCount());
+        assertEquals(3, cache.missCount());
+        assertEquals(0.25, cache.hitRate(), 1e-9);
+        assertEquals(3, cache.size());
+        assertEquals(4 + 4 + 1 + 3 * QueryCache.ENTRY_OVERHEAD, cache.sizeInBytes());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeInBytes());
+        assertEquals(2, cache.count("abra".getBytes("US-ASCII")));
+        assertEquals(4, cache.missCount());
+    }
+
+    @Test
+    public void testBudgetAndAdmission() throws Exception {
+        Random random = new Random(0);
+        byte[] T = new byte[10000];
+        for (int i = 0; i < T.length; i++) {
+            T[i] = (byte) random.nextInt(4);
+        }
+        SuffixArray SA = new SuffixArray(T);
+        int entries = 10;
+        long budget = entries * (8 + QueryCache.ENTRY_OVERHEAD);
+        QueryCache cache = new QueryCache(new ImmutableIndex(T), budget);
+
+        // hot patterns are queried often, so a scan of cold patterns doesn't evict them
+        byte[][] hot = new byte[entries / 2][];
+        for (int k = 0; k < hot.length; k++) {
+            hot[k] = Arrays.copyOfRange(T, k * 8, k * 8 + 8);
+            for (int r = 0; r < 5; r++) {
+                assertEquals(SA.count(hot[k]), cache.count(hot[k]));
+            }
+        }
+        for (int k = 0; k < 1000; k++) {
+            int from = random.nextInt(T.length - 8);
+            byte[] P = Arrays.copyOfRange(T, from, from + 8);
+            assertEquals(SA.range(P), cache.range(P));
+            assertTrue(cache.sizeInBytes() <= budget);
+        }
+        assertTrue(cache.rejectionCount() > 0);
+        long misses = cache.missCount();
+        for (byte[] P : hot) {
+            assertEquals(SA.count(P), cache.count(P));
+        }
+        assertEquals(misses, cache.missCount());
+
+        // a pattern larger than the budget is never cached
+        byte[] large = Arrays.copyOf(T, (int) budget);
+        assertEquals(1, cache.count(large));
+        assertEquals(1, cache.count(large));
+        assertEquals(misses + 2, cache.missCount());
+    }
+
+    @Test
+    public void testAdmissionAgainstEveryVictim() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        byte[] a = {'a'};
+        byte[] b = {'b'};
+        byte[] ab = {'a', 'b'};
+        // room for two 1-byte patterns, so that caching "ab" evicts both
+        QueryCache cache = new QueryCache(new SuffixArray(T), 2 * (1 + QueryCache.ENTRY_OVERHEAD));
+        assertEquals(1, cache.segmentCount());
+        assertEquals(5, cache.count(a));
+        for (int r = 0; r < 5; r++) {
+            assertEquals(2, cache.count(b));
+        }
+        // "ab" becomes more frequent than the LRU entry "a", but never more than "b" behind it
+        for (int r = 0; r < 3; r++) {
+            assertEquals(2, cache.count(ab));
+        }
+        assertEquals(3, cache.rejectionCount());
+        assertEquals(0, cache.evictionCount());
+        long hits = cache.hitCount();
+        assertEquals(2, cache.count(b));
+        assertEquals(5, cache.count(a));
+        assertEquals(hits + 2, cache.hitCount());
+    }
+
+    @Test
+    public void testSegments() throws Exception {
+        Random random = new Random(1);
+        byte[] T = new byte[100000];
+        for (int i = 0; i < T.length; i++) {
+            T[i] = (byte) random.nextInt(4);
+        }
+        SuffixArray SA = new SuffixArray(T);
+        long budget = 1 << 22;
+        QueryCache cache = new QueryCache(SA, budget);
+        assertEquals(QueryCache.MAX_SEGMENTS, cache.segmentCount());
+        assertEquals(1, new QueryCache(SA, QueryCache.MIN_SEGMENT_ENTRIES * (8 + QueryCache.ENTRY_OVERHEAD)).segmentCount());
+
+        byte[][] patterns = new byte[2000][];
+        for (int k = 0; k < patterns.length; k++) {
+            int from = random.nextInt(T.length - 8);
+            patterns[k] = Arrays.copyOfRange(T, from, from + 8);
+        }
+        Thread[] threads = new Thread[4];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    Random r = new Random(seed);
+                    for (int q = 0; q < 20000; q++) {
+                        byte[] P = patterns[r.nextInt(patterns.length)];
+                        assertEquals(SA.range(P), cache.range(P));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(4 * 20000, cache.hitCount() + cache.missCount());
+        // everything fits, so each distinct pattern is missed at least once and cached
+        assertTrue(cache.missCount() >= cache.size());
+        assertTrue(cache.size() <= patterns.length);
+        assertTrue(cache.sizeInBytes() <= budget);
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void testSketchRowsWithinSegment() throws Exception {
+        // keys of one segment of 16 spread over every row of its sketch, as over a sketch of their own
+        int segments = QueryCache.MAX_SEGMENTS;
+        int width = 1024;
+        Random random = new Random(2);
+        int[] hashes = new int[width];
+        for (int k = 0; k < hashes.length; ) {
+            byte[] P = new byte[8];
+            random.nextBytes(P);
+            int hash = Arrays.hashCode(P);
+            if (QueryCache.segmentIndex(hash, segments) == 0) {
+                hashes[k++] = hash;
+            }
+        }
+        QueryCache.FrequencySketch sketch = new QueryCache.FrequencySketch(width);
+        for (int r = 0; r < 4; r++) {
+            BitSet counters = new BitSet();
+            for (int hash : hashes) {
+                counters.set(sketch.index(hash, r));
+            }
+            // 1024 keys over 1024 counters hit 1 - 1/e of them
+            assertTrue("row " + r + ": " + counters.cardinality(), counters.cardinality() > 0.55 * width);
+        }
+
+        // a quarter as many keys as counters: nearly all estimates are exact
+        int exact = 0;
+        for (int k = 0; k < width / 4; k++) {
+            sketch.increment(hashes[k]);
+        }
+        for (int k = 0; k < width / 4; k++) {
+            if (sketch.frequency(hashes[k]) == 1) {
+                exact++;
+            }
+        }
+        assertTrue(exact + " exact", exact >= 0.98 * width / 4);
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class RepeatsTest {
+    @Test
+    public void testRepeats() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        SuffixArray SA = new SuffixArray(T);
+        List<String> repeats = new ArrayList<>();
+        assertEquals(4, Repeats.longestRepeatedSubstring(T, (position, length, count) ->
+                repeats.add(new String(T, position, length, StandardCharsets.US_ASCII) + "x" + count)));
+        assertEquals(Arrays.asList("abrax2"), repeats);
+
+        // a is followed by b, c and d, and abra, bra and ra by c and the end
+        repeats.clear();
+        Repeats.repeats(SA.getArray(), SA.computeLCP(), 1, (position, length, count) ->
+                repeats.add(new String(T, position, length, StandardCharsets.US_ASCII) + "x" + count));
+        assertEquals(new HashSet<>(Arrays.asList("ax5", "abrax2", "brax2", "rax2")), new HashSet<>(repeats));
+        assertEquals(4, repeats.size());
+
+        List<String> matches = new ArrayList<>();
+        byte[] U = "cadabrx".getBytes("US-ASCII");
+        assertEquals(6, Repeats.longestCommonSubstring(T, U, (position1, position2, length) ->
+                matches.add(position1 + "," + position2 + "," + length)));
+        assertEquals(Arrays.asList("4,0,6"), matches);
+    }
+
+    @Test
+    public void testNoRepeats() throws Exception {
+        byte[] T = "abc".getBytes("US-ASCII");
+        assertEquals(0, Repeats.longestRepeatedSubstring(T, (position, length, count) -> {
+            throw new AssertionError();
+        }));
+        assertEquals(0, Repeats.longestRepeatedSubstring(new byte[0], (position, length, count) -> {
+            throw new AssertionError();
+        }));
+        assertEquals(0, Repeats.longestCommonSubstring(T, "xyz".getBytes("US-ASCII"), (position1, position2, length) -> {
+            throw new AssertionError();
+        }));
+        assertEquals(0, Repeats.longestCommonSubstring(new byte[0], T, (position1, position2, length) -> {
+            throw new AssertionError();
+        }));
+    }
+
+    @Test
+    public void testRandomTexts() throws Exception {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 200; trial++) {
+            byte[] T = randomText(random, 1 + random.nextInt(60));
+            byte[] U = randomText(random, 1 + random.nextInt(60));
+            SuffixArray SA = new SuffixArray(T);
+            int[] LCP = SA.computeLCP();
+            Map<String, Integer> counts = substringCounts(T);
+
+            // longest repeated substrings
+            int max = 0;
+            Set<String> longest = new HashSet<>();
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                if (e.getValue() > 1 && e.getKey().length() >= max) {
+                    if (e.getKey().length() > max) {
+                        longest.clear();
+                        max = e.getKey().length();
+                    }
+                    longest.add(e.getKey());
+                }
+            }
+            Set<String> actual = new HashSet<>();
+            assertEquals(max, Repeats.longestRepeatedSubstring(SA.getArray(), LCP, (position, length, count) -> {
+                String s = latin1(T, position, length);
+                assertEquals((int) counts.get(s), count);
+                assertTrue(actual.add(s));
+            }));
+            assertEquals(longest, actual);
+
+            // every repeat of minLength or longer is a prefix of a reported one with the same count
+            int minLength = 1 + random.nextInt(4);
+            Map<String, Integer> reported = new HashMap<>();
+            Repeats.repeats(SA.getArray(), LCP, minLength, (position, length, count) -> {
+                String s = latin1(T, position, length);
+                assertEquals((int) counts.get(s), count);
+                assertEquals(null, reported.put(s, count));
+            });
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                String s = e.getKey();
+                if (e.getValue() < 2 || s.length() < minLength) {
+                    continue;
+                }
+                String shortest = null;
+                for (String r : reported.keySet()) {
+                    if (r.startsWith(s) && (shortest == null || r.length() < shortest.length())) {
+                        shortest = r;
+                    }
+                }
+                assertEquals(e.getValue(), reported.get(shortest));
+            }
+
+            // longest common substrings
+            Map<String, Integer> countsU = substringCounts(U);
+            int common = 0;
+            Set<String> expected = new HashSet<>();
+            for (String s : counts.keySet()) {
+                if (countsU.containsKey(s) && s.length() >= common) {
+                    if (s.length() > common) {
+                        expected.clear();
+                        common = s.length();
+                    }
+                    expected.add(s);
+                }
+            }
+            Set<String> matches = new HashSet<>();
+            assertEquals(common, Repeats.longestCommonSubstring(T, U, (position1, position2, length) -> {
+                String s = latin1(T, position1, length);
+                assertEquals(s, latin1(U, position2, length));
+                assertTrue(matches.add(s));
+            }));
+            assertEquals(expected, matches);
+        }
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        // highly repetitive text, whose repeats are reported once each rather than once per occurrence
+        byte[] T = readText("corpus/gauntlet/test1");
+        SuffixArray SA = new SuffixArray(T);
+        int[] LCP = SA.computeLCP();
+        int length = Repeats.longestRepeatedSubstring(SA.getArray(), LCP, (position, l, count) -> {
+            byte[] repeat = Arrays.copyOfRange(T, position, position + l);
+            assertEquals(count, SA.count(repeat));
+        });
+        assertTrue(length > 0);
+        long[] repeats = new long[1];
+        Repeats.repeats(SA.getArray(), LCP, 1024, (position, l, count) -> {
+            assertTrue(l >= 1024);
+            repeats[0]++;
+        });
+        assertTrue(repeats[0] < T.length);
+    }
+
+    private static byte[] randomText(Random random, int length) {
+        byte[] T = new byte[length];
+        int sigma = 1 + random.nextInt(random.nextBoolean() ? 3 : 256);
+        for (int i = 0; i < T.length; i++) {
+            T[i] = (byte) (0x80 + random.nextInt(sigma));
+        }
+        return T;
+    }
+
+    private static Map<String, Integer> substringCounts(byte[] T) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < T.length; i++) {
+            for (int j = i + 1; j <= T.length; j++) {
+                counts.merge(latin1(T, i, j - i), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static String latin1(byte[] T, int position, int length) {
+        return new String(T, position, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class SearchTest {
+    @Test
+    public void testByteSearch() throws Exception {
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        SuffixArray SA = new SuffixArray(T);
+
+        assertEquals(5, SA.count("a".getBytes("US-ASCII")));
+        assertEquals(2, SA.count("abra".getBytes("US-ASCII")));
+        assertEquals(1, SA.count("abracadabra".getBytes("US-ASCII")));
+        assertEquals(0, SA.count("abracadabraa".getBytes("US-ASCII")));
+        assertEquals(0, SA.count("z".getBytes("US-ASCII")));
+        assertEquals(11, SA.count(new byte[0]));
+        assertArrayEquals(new int[]{0, 7}, SA.locate("abra".getBytes("US-ASCII")).sorted().toArray());
+        assertEquals(new Range(1, 3), SA.range("abra".getBytes("US-ASCII")));
+        assertTrue(SA.range("b".getBytes("US-ASCII")).size() == 2);
+    }
+
+    @Test
+    public void testStringSearch() throws Exception {
+        SuffixArray SA = new SuffixArray("ああいあいうあいええあいうあい");
+        assertEquals(6, SA.count("あ"));
+        assertEquals(5, SA.count("あい"));
+        assertEquals(2, SA.count("あいう"));
+        assertEquals(0, SA.count("お"));
+        assertArrayEquals(new int[]{3, 10}, SA.locate("あいう").sorted().toArray());
+    }
+
+    @Test
+    public void testHighBytesAreUnsigned() throws Exception {
+        byte[] T = {(byte) 0x80, 0x01, (byte) 0xff, 0x01, (byte) 0x80, 0x7f};
+        SuffixArray SA = new SuffixArray(T);
+        assertEquals(2, SA.count(new byte[]{(byte) 0x80}));
+        assertEquals(1, SA.count(new byte[]{(byte) 0xff, 0x01}));
+        assertEquals(1, SA.count(new byte[]{0x7f}));
+        assertEquals(2, SA.count(new byte[]{0x01}));
+    }
+
+    @Test
+    public void testRandomPatterns() throws Exception {
+        Random random = new Random(0);
+        byte[] T = new byte[20000];
+        for (int i = 0; i < T.length; i++) {
+            T[i] = (byte) ('a' + random.nextInt(3));
+        }
+        SuffixArray SA = new SuffixArray(T);
+        for (int trial = 0; trial < 500; trial++) {
+            byte[] P = new byte[1 + random.nextInt(12)];
+            if (random.nextBoolean()) {
+                int pos = random.nextInt(T.length - P.length);
+                System.arraycopy(T, pos, P, 0, P.length);
+            } else {
+                for (int i = 0; i < P.length; i++) {
+                    P[i] = (byte) ('a' + random.nextInt(4));
+                }
+            }
+            assertArrayEquals(naiveLocate(T, P), SA.locate(P).sorted().toArray());
+        }
+    }
+
+    @Test
+    public void testLCPLRSearch() throws Exception {
+        Random random = new Random(4);
+        // random over a small alphabet, and periodic, where the lcps of the interval ends differ most
+        byte[] random4 = new byte[5000];
+        for (int i = 0; i < random4.length; i++) {
+            random4[i] = (byte) ("acgt".charAt(random.nextInt(4)) | (random.nextInt(50) == 0 ? 0x80 : 0));
+        }
+        byte[] periodic = new byte[5000];
+        for (int i = 0; i < periodic.length; i++) {
+            periodic[i] = (byte) (i % 7 == 6 ? 'b' : 'a');
+        }
+        for (byte[] T : new byte[][]{random4, periodic, new byte[]{'a'}, new byte[0]}) {
+            SuffixArray SA = new SuffixArray(T);
+            LCPLRSearch search = new LCPLRSearch(SA);
+            for (int r = 0; r < 3000; r++) {
+                int m = random.nextInt(40);
+                byte[] P;
+                if (T.length > 0 && r % 3 != 0) {
+                    // occurs, or differs in the last byte
+                    int from = random.nextInt(T.length);
+                    P = Arrays.copyOfRange(T, from, Math.min(T.length, from + m));
+                    if (r % 3 == 2 && P.length > 0) {
+                        P[P.length - 1] += random.nextBoolean() ? 1 : -1;
+                    }
+                } else {
+                    P = Arrays.copyOf(T, Math.min(m, T.length) + random.nextInt(2));
+                }
+                assertEquals(SA.range(P), search.range(P));
+                assertEquals(SA.count(P), search.count(P));
+            }
+        }
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        byte[] T = readText("corpus/gauntlet/paper5x80");
+        SuffixArray SA = new SuffixArray(T);
+        byte[] P = Arrays.copyOfRange(T, 1000, 1040);
+        assertArrayEquals(naiveLocate(T, P), SA.locate(P).sorted().toArray());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPatternTypeMustMatchText() throws Exception {
+        new SuffixArray("abc").count("a".getBytes("US-ASCII"));
+    }
+
+    private static int[] naiveLocate(byte[] T, byte[] P) {
+        int[] positions = new int[T.length];
+        int count = 0;
+        for (int i = 0; i + P.length <= T.length; i++) {
+            int j = 0;
+            while (j < P.length && T[i + j] == P[j]) {
+                j++;
+            }
+            if (j == P.length) {
+                positions[count++] = i;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
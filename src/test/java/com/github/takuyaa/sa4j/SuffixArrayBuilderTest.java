@@ -0,0 +1,103 @@
+package com.github.takuyaa.sa4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SuffixArrayBuilderTest {
+    @Test
+    public void testBuild() throws Exception {
+        SuffixArrayBuilder builder = new SuffixArrayBuilder();
+        byte[] T = "abracadabra".getBytes("US-ASCII");
+        assertArrayEquals(new int[]{10, 7, 0, 3, 5, 8, 1, 4, 6, 9, 2}, builder.build(T));
+        assertArrayEquals(new SuffixArray("mmiissiissiippii").getArray(), builder.build("mmiissiissiippii"));
+        assertArrayEquals(new int[0], builder.build(new byte[0]));
+    }
+
+    @Test
+    public void testReuseBuffers() throws Exception {
+        SuffixArrayBuilder builder = new SuffixArrayBuilder();
+        Random random = new Random(0);
+        int[] SA = new int[4000];
+        for (int trial = 0; trial < 300; trial++) {
+            // sizes go up and down so that every level of the workspace is reused with stale contents
+            byte[] T = new byte[random.nextInt(trial % 3 == 0 ? 4000 : 50)];
+            int sigma = 1 + random.nextInt(random.nextBoolean() ? 3 : 256);
+            for (int i = 0; i < T.length; i++) {
+                T[i] = (byte) random.nextInt(sigma);
+            }
+            Arrays.fill(SA, -12345);
+            builder.build(T, T.length, SA);
+            int[] expected = new SuffixArray(T).getArray();
+            assertArrayEquals(expected, Arrays.copyOf(SA, T.length));
+            assertEquals(-12345, T.length < SA.length ? SA[T.length] : -12345);
+        }
+    }
+
+    @Test
+    public void testPrefix() throws Exception {
+        byte[] T = readText("corpus/gauntlet/paper5x80");
+        int[] SA = new int[T.length];
+        SuffixArrayBuilder builder = new SuffixArrayBuilder();
+        for (int n : new int[]{T.length, 1000, 1, T.length / 2}) {
+            builder.build(T, n, SA);
+            assertArrayEquals(new SuffixArray(Arrays.copyOf(T, n)).getArray(), Arrays.copyOf(SA, n));
+        }
+    }
+
+    @Test
+    public void testBuildAll() throws Exception {
+        Random random = new Random(1);
+        List<byte[]> documents = new ArrayList<>();
+        for (int d = 0; d < 500; d++) {
+            byte[] T = new byte[random.nextInt(300)];
+            for (int i = 0; i < T.length; i++) {
+                T[i] = (byte) ('a' + random.nextInt(4));
+            }
+            documents.add(T);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SuffixArrayBuilder builder = new SuffixArrayBuilder();
+            int[][] SAs = new int[documents.size()][];
+            SAs[0] = new int[1000];
+            int[] buffer = SAs[0];
+            assertSame(SAs, builder.buildAll(documents, SAs, pool));
+            assertSame(buffer, SAs[0]);
+            for (int d = 0; d < documents.size(); d++) {
+                int[] expected = new SuffixArray(documents.get(d)).getArray();
+                assertArrayEquals(expected, Arrays.copyOf(SAs[d], expected.length));
+            }
+            // again into the same buffers
+            builder.buildAll(documents, SAs, pool);
+            assertArrayEquals(new SuffixArray(documents.get(7)).getArray(), SAs[7]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortBuffer() {
+        new SuffixArrayBuilder().build(new byte[10], 10, new int[9]);
+    }
+
+    private byte[] readText(String path) throws Exception {
+        File f = new File(path);
+        FileInputStream s = new FileInputStream(f);
+        int n = (int) f.length();
+        byte[] T = new byte[n];
+        s.read(T);
+        s.close();
+        return T;
+    }
+}
@@ -5,10 +5,21 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.sun.management.ThreadMXBean;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.util.BitSet;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 public class SuffixArrayTest {
     @Test
@@ -103,14 +114,311 @@ public class SuffixArrayTest {
         assertEquals(0, SA[0]);
     }
 
+    @Test
+    public void testSuffixArrayFullByteRange() throws Exception {
+        byte[] T = new byte[10000];
+        new Random(0).nextBytes(T);
+        T[0] = 0;
+        T[1] = (byte) 0xff;
+        int[] SA = new SuffixArray(T).array;
+        isValidSA(T, SA, T.length);
+
+        int[] expected = new int[T.length];
+        sais.suffixsort(T, expected, T.length);
+        assertArrayEquals(expected, SA);
+    }
+
+    @Test
+    public void testSaisInputTypes() throws Exception {
+        // repeats force recursion, whose levels go through the bucket layouts within SA and on the heap
+        Random random = new Random(1);
+        byte[] T = new byte[50000];
+        for (int i = 0; i < T.length; i++) {
+            T[i] = i >= 1000 && random.nextInt(4) > 0 ? T[i - 1000 + random.nextInt(3)] : (byte) ('a' + random.nextInt(20));
+        }
+        int n = T.length;
+        int[] expected = new SuffixArray(T).getArray();
+        char[] C = new char[n];
+        short[] S = new short[n];
+        int[] I = new int[n];
+        for (int i = 0; i < n; i++) {
+            C[i] = (char) (T[i] & 0xff);
+            S[i] = (short) (T[i] & 0xff);
+            I[i] = (T[i] & 0xff) * 10;
+        }
+        int[] SA = new int[n];
+        assertEquals(0, sais.suffixsort(T, SA, n));
+        assertArrayEquals(expected, SA);
+        assertEquals(0, sais.suffixsort(C, SA, n));
+        assertArrayEquals(expected, SA);
+        assertEquals(0, sais.suffixsort(S, SA, n, 256));
+        assertArrayEquals(expected, SA);
+        assertEquals(0, sais.suffixsort(I, SA, n, 2560));
+        assertArrayEquals(expected, SA);
+        assertEquals(0, sais.suffixsort(new String(C), SA, n));
+        assertArrayEquals(expected, SA);
+    }
+
+    @Test
+    public void testIntArray() throws Exception {
+        byte[] T = new byte[20000];
+        Random random = new Random(2);
+        for (int i = 0; i < T.length; i++) {
+            T[i] = (byte) (random.nextInt(8) == 0 ? random.nextInt(256) : 'a' + random.nextInt(3));
+        }
+        SuffixArray expected = new SuffixArray(T);
+        byte[] pattern = {'a', 'b'};
+        SuffixArrayBuilder builder = new SuffixArrayBuilder();
+        // order-preserving maps to int alphabets: as they are, sparse, at both ends of int (ranked by bitmap),
+        // and negative and wide (ranked by sorting)
+        for (int[] map : new int[][]{{1, 0}, {500, 0}, {1, Integer.MIN_VALUE}, {1, Integer.MAX_VALUE - 255}, {8000000, -1000000000}}) {
+            int[] I = new int[T.length];
+            for (int i = 0; i < T.length; i++) {
+                I[i] = (T[i] & 0xff) * map[0] + map[1];
+            }
+            int[] P = new int[pattern.length];
+            for (int i = 0; i < pattern.length; i++) {
+                P[i] = (pattern[i] & 0xff) * map[0] + map[1];
+            }
+
+            SuffixArray SA = new SuffixArray(I);
+            assertArrayEquals(expected.getArray(), SA.getArray());
+            assertArrayEquals(expected.getArray(), new SuffixArray(I, SuffixArray.Mode.LOW_MEMORY).getArray());
+            int[] buffer = new int[T.length + 1];
+            builder.build(I, T.length, buffer);
+            assertArrayEquals(expected.getArray(), Arrays.copyOf(buffer, T.length));
+
+            assertEquals(expected.count(pattern), SA.count(P));
+            assertArrayEquals(expected.locate(pattern).toArray(), SA.locate(P).toArray());
+            assertArrayEquals(expected.computeLCP(), SA.computeLCP());
+        }
+        assertEquals(0, new SuffixArray(new int[0]).getArray().length);
+        assertArrayEquals(new int[]{0}, new SuffixArray(new int[]{Integer.MIN_VALUE}).getArray());
+        assertArrayEquals(new int[]{1, 2, 0}, new SuffixArray(new int[]{Integer.MAX_VALUE, -1, 0}).getArray());
+        assertArrayEquals(new int[]{3, 1, 2, 0},
+                new SuffixArray(new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE, 0, Integer.MIN_VALUE}).getArray());
+    }
+
+    @Test
+    public void testIntAlphabetRange() throws Exception {
+        // the whole int range is never ranked by bitmap, however long the text is
+        assertFalse(IntAlphabet.isBitmapRange((long) Integer.MAX_VALUE - Integer.MIN_VALUE + 1, Integer.MAX_VALUE));
+        assertFalse(IntAlphabet.isBitmapRange(Integer.MAX_VALUE + 1L, Integer.MAX_VALUE));
+        assertTrue(IntAlphabet.isBitmapRange(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertTrue(IntAlphabet.isBitmapRange(800, 100));
+        assertFalse(IntAlphabet.isBitmapRange(801, 100));
+
+        // values near MIN_VALUE fill a bitmap, until a single MAX_VALUE widens the range to all ints
+        int n = 1000;
+        int[] T = new int[n];
+        Random random = new Random(3);
+        for (int i = 0; i < n; i++) {
+            T[i] = Integer.MIN_VALUE + random.nextInt(8 * n);
+        }
+        for (int max : new int[]{Integer.MIN_VALUE + 8 * n - 1, Integer.MAX_VALUE}) {
+            T[n / 2] = max;
+            IntAlphabet alphabet = IntAlphabet.of(T, n);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j += 97) {
+                    assertEquals(Integer.compare(T[i], T[j]), Integer.compare(alphabet.text[i], alphabet.text[j]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConstructionStats() throws Exception {
+        ConstructionStats stats = new ConstructionStats();
+        for (String name : new String[]{"houston", "abac"}) {
+            byte[] T = readText("corpus/gauntlet/" + name);
+            assertArrayEquals(new SuffixArray(T).getArray(), new SuffixArray(T, stats).getArray());
+
+            List<ConstructionStats.Level> levels = stats.levels();
+            assertEquals(T.length, levels.get(0).length());
+            assertEquals(255, levels.get(0).maxCharacter());
+            for (int d = 0; d < levels.size(); d++) {
+                ConstructionStats.Level level = levels.get(d);
+                assertEquals(d, level.depth());
+                assertTrue(level.reductionRatio() <= 0.5);
+                if (d + 1 < levels.size()) {
+                    // names aren't unique, so the reduced problem is the next level
+                    assertTrue(level.names() < level.lmsCount());
+                    assertEquals(level.lmsCount(), levels.get(d + 1).length());
+                    assertEquals(level.names(), levels.get(d + 1).maxCharacter());
+                } else {
+                    assertEquals(level.names(), level.lmsCount());
+                }
+            }
+            assertTrue(stats.totalNanos() > 0);
+            assertTrue(stats.totalAllocatedBytes() == -1 || stats.totalAllocatedBytes() >= 4L * T.length);
+        }
+    }
+
+    @Test
+    public void testConstructionStatsOfEntryPoints() throws Exception {
+        byte[] T = readText("corpus/gauntlet/abac");
+        String s = new String(T, StandardCharsets.ISO_8859_1);
+        int[] I = new int[T.length];
+        for (int i = 0; i < T.length; i++) {
+            I[i] = (T[i] & 0xff) * 100000 - 1000;
+        }
+        int[] expected = new SuffixArray(T).getArray();
+        ConstructionStats stats = new ConstructionStats();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        SuffixArrayBuilder builder = new SuffixArrayBuilder();
+        try {
+            List<Callable<int[]>> constructions = Arrays.asList(
+                    () -> new SuffixArray(T, SuffixArray.Mode.LOW_MEMORY, stats).getArray(),
+                    () -> new SuffixArray(T, stats).getArray(),
+                    () -> new SuffixArray(s, stats).getArray(),
+                    () -> new SuffixArray(I, stats).getArray(),
+                    () -> new SuffixArray(s, SuffixArray.Mode.FAST, stats).getArray(),
+                    () -> new SuffixArray(s, SuffixArray.Mode.LOW_MEMORY, stats).getArray(),
+                    () -> new SuffixArray(I, SuffixArray.Mode.FAST, stats).getArray(),
+                    () -> new SuffixArray(I, SuffixArray.Mode.LOW_MEMORY, stats).getArray(),
+                    () -> new SuffixArray(T, pool, stats).getArray(),
+                    () -> new SuffixArray(s, pool, stats).getArray(),
+                    () -> builder.build(T, T.length, new int[T.length], stats),
+                    () -> builder.build(I, T.length, new int[T.length], stats),
+                    () -> builder.build(s, new int[T.length], stats),
+                    () -> {
+                        int[] SA = new int[T.length];
+                        assertEquals(0, sais.suffixsort(T, SA, T.length, stats));
+                        return SA;
+                    });
+            for (Callable<int[]> construction : constructions) {
+                assertArrayEquals(expected, construction.call());
+                List<ConstructionStats.Level> levels = stats.levels();
+                assertTrue(levels.size() > 1);
+                assertEquals(T.length, levels.get(0).length());
+                for (int d = 0; d + 1 < levels.size(); d++) {
+                    assertEquals(levels.get(d).lmsCount(), levels.get(d + 1).length());
+                }
+                assertTrue(stats.totalNanos() > 0);
+
+                // an empty input doesn't keep the levels of the previous one
+                new SuffixArray(new byte[0], stats);
+                assertTrue(stats.levels().isEmpty());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // the builder stops collecting after each build
+        builder.build(new byte[0], 0, new int[0], stats);
+        builder.build(T);
+        assertTrue(stats.levels().isEmpty());
+        assertEquals(0, sais.suffixsort(T, new int[T.length], T.length, stats));
+        assertEquals(0, sais.suffixsort(new byte[0], new int[0], 0, stats));
+        assertTrue(stats.levels().isEmpty());
+    }
+
+    @Test
+    public void testLowMemoryMode() throws Exception {
+        for (String name : new String[]{"abac", "paper5x80", "test3"}) {
+            byte[] T = readText("corpus/gauntlet/" + name);
+            assertArrayEquals(new SuffixArray(T).array, new SuffixArray(T, SuffixArray.Mode.LOW_MEMORY).array);
+
+            String S = new String(T);
+            assertArrayEquals(new SuffixArray(S).array, new SuffixArray(S, SuffixArray.Mode.LOW_MEMORY).array);
+        }
+        assertEquals(0, new SuffixArray("", SuffixArray.Mode.LOW_MEMORY).array.length);
+        assertArrayEquals(new int[]{0}, new SuffixArray("a", SuffixArray.Mode.LOW_MEMORY).array);
+    }
+
+    @Test
+    public void testLowMemoryModePeakAllocation() throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long id = Thread.currentThread().getId();
+
+        for (String name : new String[]{"abac", "fss9", "houston", "paper5x80", "test1", "test2", "test3"}) {
+            byte[] T = readText("corpus/gauntlet/" + name);
+            int n = T.length;
+
+            // everything allocated during construction is an upper bound of the peak
+            long before = threads.getThreadAllocatedBytes(id);
+            new SuffixArray(T, SuffixArray.Mode.LOW_MEMORY);
+            long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+            // n * 4 bytes of SA + O(k) bytes of buckets (with generous slack for headers)
+            assertTrue(name + ": " + allocated + " bytes", allocated <= 4L * n + 512 * 1024);
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String name : new String[]{"abac", "paper5x80", "test3"}) {
+                byte[] T = readText("corpus/gauntlet/" + name);
+                assertArrayEquals(name, new SuffixArray(T).array, new SuffixArray(T, pool).array);
+
+                String S = new String(T);
+                assertArrayEquals(name, new SuffixArray(S).array, new SuffixArray(S, pool).array);
+            }
+
+            // runs of equal characters which extend over whole blocks
+            byte[] T = new byte[300000];
+            Random random = new Random(0);
+            for (int i = 0; i < T.length; ) {
+                int run = random.nextBoolean() ? 1 + random.nextInt(4) : 1 + random.nextInt(50000);
+                byte ch = (byte) ('a' + random.nextInt(3));
+                for (int j = 0; j < run && i < T.length; j++) {
+                    T[i++] = ch;
+                }
+            }
+            assertArrayEquals(new SuffixArray(T).array, new SuffixArray(T, pool).array);
+            assertEquals(0, new SuffixArray(new byte[0], pool).array.length);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelCountAndSetTypes() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Random random = new Random(1);
+            for (int trial = 0; trial < 20; trial++) {
+                int n = 1 + random.nextInt(5000);
+                byte[] T = new byte[n];
+                int sigma = 1 + random.nextInt(3);
+                for (int i = 0; i < n; i++) {
+                    T[i] = (byte) (0xfe + random.nextInt(sigma));
+                }
+                SAISKernel S = new ByteSAISKernel(T);
+                int[] count = new int[256];
+                long[] isTypeS = new long[(n + 63) >>> 6];
+                // stale bits of a reused array are overwritten
+                Arrays.fill(isTypeS, -1L);
+                int n1 = S.countAndSetTypes(count, isTypeS, n);
+
+                int[] parallelCount = new int[256];
+                long[] parallelTypeS = ParallelSAIS.countAndSetTypes(S, parallelCount, n, pool);
+                assertArrayEquals(count, parallelCount);
+                assertArrayEquals(isTypeS, parallelTypeS);
+                assertEquals(n1, ParallelSAIS.countLMS(parallelTypeS));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMaxCharacter() throws Exception {
+        assertEquals(0, SuffixArray.maxCharacter(""));
+        assertEquals('d', SuffixArray.maxCharacter("aababcabddabcab$"));
+        assertEquals('え', SuffixArray.maxCharacter("ああいあいうあいええあいうあい$"));
+    }
+
     @Test
     public void testCountAndSetTypes() throws Exception {
         String T = "aababcabddabcab$";
-        BaseArray S = new StringArray(T);
+        SAISKernel S = new CharSAISKernel(T.toCharArray());
         int[] count = new int[Character.MAX_VALUE];
-        BitSet isTypeS = new BitSet(T.length());
-        BitSet isTypeLMS = new BitSet(T.length());
-        SuffixArray.countAndSetTypes(S, count, isTypeS, isTypeLMS, T.length());
+        long[] isTypeS = new long[1];
+        assertEquals(4, S.countAndSetTypes(count, isTypeS, T.length()));
 
         assertEquals(1, count['$']);
         assertEquals(6, count['a']);
@@ -118,39 +426,39 @@ public class SuffixArrayTest {
         assertEquals(2, count['c']);
         assertEquals(2, count['d']);
 
-        assertEquals( true, isTypeS.get(0));
-        assertEquals( true, isTypeS.get(1));
-        assertEquals(false, isTypeS.get(2));
-        assertEquals( true, isTypeS.get(3));
-        assertEquals( true, isTypeS.get(4));
-        assertEquals(false, isTypeS.get(5));
-        assertEquals( true, isTypeS.get(6));
-        assertEquals( true, isTypeS.get(7));
-        assertEquals(false, isTypeS.get(8));
-        assertEquals(false, isTypeS.get(9));
-        assertEquals( true, isTypeS.get(10));
-        assertEquals( true, isTypeS.get(11));
-        assertEquals(false, isTypeS.get(12));
-        assertEquals( true, isTypeS.get(13));
-        assertEquals(false, isTypeS.get(14));
-        assertEquals(false, isTypeS.get(15));
-
-        assertEquals(false, isTypeLMS.get(0));
-        assertEquals(false, isTypeLMS.get(1));
-        assertEquals(false, isTypeLMS.get(2));
-        assertEquals( true, isTypeLMS.get(3));
-        assertEquals(false, isTypeLMS.get(4));
-        assertEquals(false, isTypeLMS.get(5));
-        assertEquals( true, isTypeLMS.get(6));
-        assertEquals(false, isTypeLMS.get(7));
-        assertEquals(false, isTypeLMS.get(8));
-        assertEquals(false, isTypeLMS.get(9));
-        assertEquals( true, isTypeLMS.get(10));
-        assertEquals(false, isTypeLMS.get(11));
-        assertEquals(false, isTypeLMS.get(12));
-        assertEquals( true, isTypeLMS.get(13));
-        assertEquals(false, isTypeLMS.get(14));
-        assertEquals(false, isTypeLMS.get(15));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 0));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 1));
+        assertEquals(false, SAISKernel.isTypeS(isTypeS, 2));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 3));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 4));
+        assertEquals(false, SAISKernel.isTypeS(isTypeS, 5));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 6));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 7));
+        assertEquals(false, SAISKernel.isTypeS(isTypeS, 8));
+        assertEquals(false, SAISKernel.isTypeS(isTypeS, 9));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 10));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 11));
+        assertEquals(false, SAISKernel.isTypeS(isTypeS, 12));
+        assertEquals( true, SAISKernel.isTypeS(isTypeS, 13));
+        assertEquals(false, SAISKernel.isTypeS(isTypeS, 14));
+        assertEquals(false, SAISKernel.isTypeS(isTypeS, 15));
+
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 0));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 1));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 2));
+        assertEquals( true, SAISKernel.isTypeLMS(isTypeS, 3));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 4));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 5));
+        assertEquals( true, SAISKernel.isTypeLMS(isTypeS, 6));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 7));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 8));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 9));
+        assertEquals( true, SAISKernel.isTypeLMS(isTypeS, 10));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 11));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 12));
+        assertEquals( true, SAISKernel.isTypeLMS(isTypeS, 13));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 14));
+        assertEquals(false, SAISKernel.isTypeLMS(isTypeS, 15));
     }
 
     @Test